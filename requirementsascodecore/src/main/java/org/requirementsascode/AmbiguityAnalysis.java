@@ -0,0 +1,214 @@
+package org.requirementsascode;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import org.requirementsascode.exception.AmbiguousSteps;
+import org.requirementsascode.exception.MissingUseCaseStepPart;
+import org.requirementsascode.flowposition.After;
+import org.requirementsascode.flowposition.FlowPosition;
+import org.requirementsascode.flowposition.InsteadOf;
+
+/**
+ * A static analysis of a model that finds the pairs of steps which may react to
+ * the same message. Two steps overlap if all of the following is true:
+ * <ul>
+ * <li>a runner can run as an actor of both steps, or one of them is a system
+ * step,</li>
+ * <li>a message can be an instance of both steps' message classes: one of them
+ * is the same class as, or a superclass/interface of the other one, or both
+ * are interfaces, or one is an interface and the other one a non-final class,
+ * which a subclass may implement the interface of,</li>
+ * <li>the steps may react after the same step has been run. Flowless steps and
+ * steps with an <code>anytime()</code> or a custom flow position may react after
+ * any step.</li>
+ * </ul>
+ * An interrupting step doesn't overlap with an interruptable step it
+ * interrupts, as it takes precedence, or with the later steps of its own flow.
+ *
+ * <p>
+ * An overlap of two steps without conditions is an error: a runner will throw
+ * {@link org.requirementsascode.exception.MoreThanOneStepCanReact} when it
+ * receives such a message at that position. An overlap where at least one of
+ * the steps has a condition or reactWhile condition is a warning: whether both
+ * steps react depends on the conditions at runtime.
+ *
+ * <p>
+ * The analysis is created once per model, and again after the model has
+ * changed.
+ *
+ * @author b_muth
+ *
+ */
+public class AmbiguityAnalysis {
+	private final List<StepOverlap> errors;
+	private final List<StepOverlap> warnings;
+
+	AmbiguityAnalysis(Model model) {
+		List<Step> steps = new ArrayList<>(model.getModifiableSteps());
+		List<StepOverlap> errors = new ArrayList<>();
+		List<StepOverlap> warnings = new ArrayList<>();
+
+		for (int i = 0; i < steps.size(); i++) {
+			for (int j = i + 1; j < steps.size(); j++) {
+				Step firstStep = steps.get(i);
+				Step secondStep = steps.get(j);
+				if (stepsOverlap(firstStep, secondStep)) {
+					boolean isGuardedByCondition = isGuardedByCondition(firstStep) || isGuardedByCondition(secondStep);
+					StepOverlap stepOverlap = new StepOverlap(firstStep, secondStep, isGuardedByCondition);
+					if (isGuardedByCondition) {
+						warnings.add(stepOverlap);
+					} else {
+						errors.add(stepOverlap);
+					}
+				}
+			}
+		}
+		this.errors = Collections.unmodifiableList(errors);
+		this.warnings = Collections.unmodifiableList(warnings);
+	}
+
+	/**
+	 * Returns the analysis of the specified model.
+	 *
+	 * @param model the model to analyze
+	 * @return the analysis
+	 */
+	public static AmbiguityAnalysis of(Model model) {
+		Objects.requireNonNull(model);
+		return model.getAmbiguityAnalysis();
+	}
+
+	/**
+	 * Returns the overlapping steps that don't have conditions.
+	 *
+	 * @return the errors, or an empty list if there are none
+	 */
+	public List<StepOverlap> getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Returns the overlapping steps where at least one step has a condition.
+	 *
+	 * @return the warnings, or an empty list if there are none
+	 */
+	public List<StepOverlap> getWarnings() {
+		return warnings;
+	}
+
+	/**
+	 * Throws an exception if the analysis found errors. Warnings are ignored.
+	 *
+	 * @throws AmbiguousSteps if there is at least one error
+	 */
+	public void verify() {
+		if (!errors.isEmpty()) {
+			throw new AmbiguousSteps(errors);
+		}
+	}
+
+	private boolean stepsOverlap(Step firstStep, Step secondStep) {
+		return haveCommonActor(firstStep, secondStep) && messageClassesOverlap(firstStep, secondStep)
+				&& !interruptsTheOther(firstStep, secondStep) && !interruptsTheOther(secondStep, firstStep)
+				&& !continuesFlowOf(firstStep, secondStep) && !continuesFlowOf(secondStep, firstStep)
+				&& positionsOverlap(firstStep, secondStep);
+	}
+
+	private boolean haveCommonActor(Step firstStep, Step secondStep) {
+		List<Actor> firstStepActors = getActors(firstStep);
+		List<Actor> secondStepActors = getActors(secondStep);
+		Actor systemActor = firstStep.getModel().getSystemActor();
+		return firstStepActors.contains(systemActor) || secondStepActors.contains(systemActor)
+				|| firstStepActors.stream().anyMatch(secondStepActors::contains);
+	}
+
+	private List<Actor> getActors(Step step) {
+		Actor[] stepActors = step.getActors();
+		if (stepActors == null) {
+			throw new MissingUseCaseStepPart(step, "actor");
+		}
+		return Arrays.asList(stepActors);
+	}
+
+	private boolean messageClassesOverlap(Step firstStep, Step secondStep) {
+		Class<?> firstMessageClass = firstStep.getMessageClass();
+		Class<?> secondMessageClass = secondStep.getMessageClass();
+		if (firstMessageClass == null || secondMessageClass == null) {
+			return false;
+		}
+		return firstMessageClass.isAssignableFrom(secondMessageClass)
+				|| secondMessageClass.isAssignableFrom(firstMessageClass)
+				|| mayBeImplementedBySubclassOf(firstMessageClass, secondMessageClass)
+				|| mayBeImplementedBySubclassOf(secondMessageClass, firstMessageClass);
+	}
+
+	private static boolean mayBeImplementedBySubclassOf(Class<?> interfaceClass, Class<?> messageClass) {
+		return interfaceClass.isInterface() && !Modifier.isFinal(messageClass.getModifiers());
+	}
+
+	private boolean interruptsTheOther(Step interruptingStep, Step interruptableStep) {
+		return InterruptingFlowStep.class.equals(interruptingStep.getClass())
+				&& interruptableStep instanceof InterruptableFlowStep
+				&& interruptingStep.getMessageClass().isAssignableFrom(interruptableStep.getMessageClass());
+	}
+
+	private boolean continuesFlowOf(Step interruptableStep, Step interruptingStep) {
+		if (!(interruptableStep instanceof InterruptableFlowStep)
+				|| !InterruptingFlowStep.class.equals(interruptingStep.getClass())) {
+			return false;
+		}
+		FlowStep flowStep = (FlowStep) interruptableStep;
+		return flowStep.getPreviousStepInFlow().isPresent()
+				&& flowStep.getFlow().equals(((FlowStep) interruptingStep).getFlow());
+	}
+
+	private boolean positionsOverlap(Step firstStep, Step secondStep) {
+		Set<Step> firstLatestSteps = getLatestStepsBeforeReacting(firstStep);
+		Set<Step> secondLatestSteps = getLatestStepsBeforeReacting(secondStep);
+		if (firstLatestSteps == null || secondLatestSteps == null) {
+			return true;
+		}
+		return firstLatestSteps.stream().anyMatch(secondLatestSteps::contains);
+	}
+
+	/**
+	 * Returns the steps after which the specified step may react. Null in the
+	 * returned set means: when no step has been run yet.
+	 *
+	 * @param step the step
+	 * @return the latest steps, or null if the step may react after any step
+	 */
+	private Set<Step> getLatestStepsBeforeReacting(Step step) {
+		if (!(step instanceof FlowStep)) {
+			return null;
+		}
+
+		FlowPosition flowPosition = ((FlowStep) step).getFlowPosition();
+		Class<?> flowPositionClass = flowPosition.getClass();
+		Step latestStep;
+		if (After.class.equals(flowPositionClass)) {
+			latestStep = flowPosition.getStep();
+		} else if (InsteadOf.class.equals(flowPositionClass)) {
+			latestStep = ((FlowStep) flowPosition.getStep()).getPreviousStepInFlow().orElse(null);
+		} else {
+			return null;
+		}
+
+		Set<Step> latestSteps = new HashSet<>();
+		latestSteps.add(latestStep);
+		latestSteps.addAll(flowPosition.getOrAfterSteps());
+		return latestSteps;
+	}
+
+	private boolean isGuardedByCondition(Step step) {
+		boolean hasReactWhile = step instanceof FlowStep && ((FlowStep) step).hasReactWhile();
+		return step.hasCondition() || hasReactWhile;
+	}
+}
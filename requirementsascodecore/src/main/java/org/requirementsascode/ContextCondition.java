@@ -0,0 +1,17 @@
+package org.requirementsascode;
+
+import java.util.function.Predicate;
+
+/**
+ * A condition that is evaluated for the context a model runner has been bound
+ * to, see {@link ModelRunner#run(ModelTemplate, Object)}. Use it in a
+ * {@link ModelTemplate}, so that the same condition object can be shared by
+ * all runners, no matter which context they are bound to.
+ *
+ * @author b_muth
+ *
+ * @param <C> the type of context
+ */
+@FunctionalInterface
+public interface ContextCondition<C> extends Predicate<C> {
+}
@@ -0,0 +1,31 @@
+package org.requirementsascode;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A system reaction that is performed on the context a model runner has been
+ * bound to, see {@link ModelRunner#run(ModelTemplate, Object)}. Use it in a
+ * {@link ModelTemplate}, so that the same reaction object can be shared by all
+ * runners, no matter which context they are bound to.
+ *
+ * <p>
+ * Create a context reaction with {@link ModelTemplate#reaction(BiConsumer)}, or
+ * by extending this class. It is a class, not a functional interface, so that
+ * passing a method reference like <code>list::add</code> to
+ * <code>system(..)</code> still selects the overload for consumers.
+ *
+ * @author b_muth
+ *
+ * @param <C> the type of context
+ * @param <T> the type of message
+ */
+public abstract class ContextReaction<C, T> implements BiConsumer<C, T> {
+	/**
+	 * Performs the reaction on the specified context.
+	 *
+	 * @param context the context the runner has been bound to
+	 * @param message the message the system reacts to
+	 */
+	@Override
+	public abstract void accept(C context, T message);
+}
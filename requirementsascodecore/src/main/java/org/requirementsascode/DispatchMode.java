@@ -0,0 +1,60 @@
+package org.requirementsascode;
+
+/**
+ * Defines how a {@link ModelRunner} finds the step that reacts to a message.
+ *
+ * <p>
+ * By default, the runner evaluates the predicates of all steps that may react
+ * to the message, to detect that more than one step can react. In a correct
+ * model, that never happens. So once a model has been verified, the runner can
+ * stop at the first step with a true predicate instead.
+ *
+ * @author b_muth
+ *
+ */
+public class DispatchMode {
+	/**
+	 * Evaluates the predicates of all steps that may react, and throws
+	 * {@link org.requirementsascode.exception.MoreThanOneStepCanReact} if more than
+	 * one is true. This is the default.
+	 */
+	public static final DispatchMode ALL_MATCHES = new DispatchMode(1);
+
+	/**
+	 * Stops at the first step whose predicate is true, in the order of the steps in
+	 * the model. The runner verifies the model with an {@link AmbiguityAnalysis}
+	 * when it is run, and rejects models with overlapping steps that don't have
+	 * conditions.
+	 */
+	public static final DispatchMode FIRST_MATCH = new DispatchMode(0);
+
+	private final int checkInterval;
+
+	private DispatchMode(int checkInterval) {
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * Behaves like {@link #FIRST_MATCH}, but evaluates the predicates of all steps
+	 * for one in every specified number of messages, like {@link #ALL_MATCHES}. So
+	 * overlaps that depend on conditions are still detected eventually, at a
+	 * fraction of the cost.
+	 *
+	 * @param checkInterval the number of messages per full check, at least 1
+	 * @return the dispatch mode
+	 */
+	public static DispatchMode sampled(int checkInterval) {
+		if (checkInterval < 1) {
+			throw new IllegalArgumentException("checkInterval must be at least 1, but was " + checkInterval);
+		}
+		return new DispatchMode(checkInterval);
+	}
+
+	boolean checksAllMatches(long messageCount) {
+		return checkInterval == 1 || (checkInterval > 1 && messageCount % checkInterval == 0);
+	}
+
+	boolean verifiesModel() {
+		return checkInterval != 1;
+	}
+}
@@ -0,0 +1,276 @@
+package org.requirementsascode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Connects model runners in the same process: the events published by a
+ * runner are delivered to the runners that can react to them.
+ *
+ * <p>
+ * The bus keeps an index from event classes to the runners whose models have a
+ * step for the event class, or a superclass/interface of it. So publishing an
+ * event only costs time for the runners that may be interested in it, not for
+ * all runners. Before an event is delivered, the bus checks that the runner
+ * can react to it in its current state (see
+ * {@link ModelRunner#canReactTo(Class)}). Events no runner can react to are
+ * dropped.
+ *
+ * <p>
+ * Each runner has a queue of events. Publishing an event adds it to the queues
+ * of the interested runners. Then the bus delivers the queued events in
+ * batches: all events queued for a runner are passed to a single call of
+ * {@link ModelRunner#reactToAll(Iterable, EventSink)}, in the order they were
+ * published, before the next runner's events are. Events published while the
+ * bus is delivering are queued as well, so a chain of events across runners
+ * doesn't lead to a chain of nested calls.
+ *
+ * <p>
+ * If a subscribed runner throws an exception while reacting to an event, the
+ * bus doesn't propagate it, but collects it (see {@link #getFailures()}) and
+ * goes on delivering to the other runners. The events queued for the failed
+ * runner after that event stay queued, and are delivered when the next event
+ * is published, or {@link #deliver()} is called. If a connected runner throws
+ * an exception while reacting to its own events, the events it has published
+ * so far are still delivered to the other runners, see
+ * {@link ModelRunner#publishQueued(java.util.function.Consumer)}. The
+ * exception is thrown to the caller of the connected runner.
+ *
+ * <p>
+ * The index doesn't depend on the state of the runners, so it stays valid
+ * while they react to messages. But it is built from the steps a runner runs
+ * as its current actor. Call {@link #subscribe(ModelRunner)} again after the
+ * runner has been run with a different model, or as a different actor.
+ *
+ * <p>
+ * An event bus is not thread safe. Use it for runners that run in the same
+ * thread.
+ *
+ * @author b_muth
+ *
+ */
+public class EventBus {
+	private final Map<ModelRunner, Subscription> runnerToSubscription;
+	private final Map<Class<?>, Subscription[]> eventClassToSubscriptions;
+	private final Deque<Subscription> subscriptionsWithQueuedEvents;
+	private final Map<ModelRunner, RuntimeException> failures;
+	private boolean isDelivering;
+
+	/**
+	 * Creates an event bus without subscribers.
+	 */
+	public EventBus() {
+		this.runnerToSubscription = new LinkedHashMap<>();
+		this.eventClassToSubscriptions = new HashMap<>();
+		this.subscriptionsWithQueuedEvents = new ArrayDeque<>();
+		this.failures = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Subscribes the specified runner to the bus, and makes it publish its events
+	 * to the bus. The runner's publishing is queued, see
+	 * {@link ModelRunner#publishQueued(java.util.function.Consumer)}: the runner
+	 * reacts to its own events after the system reaction that published them has
+	 * been completed. After each call to the runner, the events it has published
+	 * are passed to the bus in a single batch, and delivered to the other
+	 * subscribed runners.
+	 *
+	 * @param runner the runner, which should have been run with its model
+	 * @return this event bus, for chaining
+	 */
+	public EventBus connect(ModelRunner runner) {
+		subscribe(runner);
+		runner.publishQueued(events -> publishAll(events, runner));
+		return this;
+	}
+
+	/**
+	 * Subscribes the specified runner to the bus, so that the runner receives the
+	 * published events it can react to. If it has already been subscribed, the
+	 * index is updated with the runner's current model and actor.
+	 *
+	 * @param runner the runner, which should have been run with its model
+	 * @return this event bus, for chaining
+	 */
+	public EventBus subscribe(ModelRunner runner) {
+		Objects.requireNonNull(runner);
+		runnerToSubscription.computeIfAbsent(runner, Subscription::new);
+		eventClassToSubscriptions.clear();
+		return this;
+	}
+
+	/**
+	 * Unsubscribes the specified runner from the bus. Events queued for the
+	 * runner are dropped. The runner keeps publishing to the bus if it has been
+	 * connected to it.
+	 *
+	 * @param runner the runner
+	 */
+	public void unsubscribe(ModelRunner runner) {
+		Objects.requireNonNull(runner);
+		Subscription subscription = runnerToSubscription.remove(runner);
+		if (subscription != null) {
+			subscription.queuedEvents.clear();
+			eventClassToSubscriptions.clear();
+		}
+	}
+
+	/**
+	 * Publishes the specified event to the subscribed runners that may react to
+	 * it, and delivers the queued events, unless the bus is already delivering.
+	 *
+	 * @param event the event
+	 */
+	public void publish(Object event) {
+		Objects.requireNonNull(event);
+		queue(event, null);
+		deliver();
+	}
+
+	private void publishAll(List<Object> events, ModelRunner publisher) {
+		for (Object event : events) {
+			queue(event, publisher);
+		}
+		deliver();
+	}
+
+	private void queue(Object event, ModelRunner publisher) {
+		for (Subscription subscription : getSubscriptions(event.getClass())) {
+			if (subscription.runner == publisher) {
+				continue;
+			}
+			subscription.queuedEvents.add(event);
+			if (!subscription.hasQueuedEvents) {
+				subscription.hasQueuedEvents = true;
+				subscriptionsWithQueuedEvents.add(subscription);
+			}
+		}
+	}
+
+	/**
+	 * Delivers the queued events to the runners, unless the bus is already
+	 * delivering.
+	 */
+	public void deliver() {
+		if (isDelivering) {
+			return;
+		}
+		isDelivering = true;
+		List<Subscription> failedSubscriptions = new ArrayList<>();
+		try {
+			Subscription subscription;
+			while ((subscription = subscriptionsWithQueuedEvents.poll()) != null) {
+				if (deliverBatch(subscription)) {
+					subscription.hasQueuedEvents = false;
+				} else {
+					failedSubscriptions.add(subscription);
+				}
+			}
+		} finally {
+			subscriptionsWithQueuedEvents.addAll(failedSubscriptions);
+			isDelivering = false;
+		}
+	}
+
+	private boolean deliverBatch(Subscription subscription) {
+		ReactionSummary summary = subscription.runner.reactToAll(subscription, event -> {
+		});
+		Optional<RuntimeException> failure = summary.getFailure();
+		failure.ifPresent(e -> failures.put(subscription.runner, e));
+		return !failure.isPresent();
+	}
+
+	/**
+	 * Returns the latest exception of each subscribed runner that failed to react
+	 * to an event delivered by the bus, since the failures have been cleared.
+	 *
+	 * @return the exceptions by runner, in the order the runners failed first
+	 */
+	public Map<ModelRunner, RuntimeException> getFailures() {
+		return Collections.unmodifiableMap(failures);
+	}
+
+	/**
+	 * Clears the collected failures, e.g. after they have been logged.
+	 */
+	public void clearFailures() {
+		failures.clear();
+	}
+
+	/**
+	 * Returns the number of subscribed runners whose models have a step for the
+	 * specified class of events.
+	 *
+	 * @param eventClass the class of events
+	 * @return the number of runners
+	 */
+	int getSubscriberCount(Class<?> eventClass) {
+		return getSubscriptions(eventClass).length;
+	}
+
+	private Subscription[] getSubscriptions(Class<?> eventClass) {
+		return eventClassToSubscriptions.computeIfAbsent(eventClass, this::findSubscriptions);
+	}
+
+	private Subscription[] findSubscriptions(Class<?> eventClass) {
+		List<Subscription> subscriptions = new ArrayList<>();
+		for (Subscription subscription : runnerToSubscription.values()) {
+			if (subscription.runner.mayReactTo(eventClass)) {
+				subscriptions.add(subscription);
+			}
+		}
+		return subscriptions.toArray(new Subscription[0]);
+	}
+
+	/**
+	 * The queue of events of a subscribed runner. Iterating over it removes the
+	 * events the runner reacts to, one at a time. Events the runner can't react to
+	 * in its current state, when they are reached, are dropped. So the events
+	 * after an event the runner fails to react to stay queued.
+	 */
+	private static class Subscription implements Iterable<Object>, Iterator<Object> {
+		private final ModelRunner runner;
+		private final Deque<Object> queuedEvents;
+		private boolean hasQueuedEvents;
+
+		private Subscription(ModelRunner runner) {
+			this.runner = runner;
+			this.queuedEvents = new ArrayDeque<>();
+		}
+
+		@Override
+		public Iterator<Object> iterator() {
+			return this;
+		}
+
+		@Override
+		public boolean hasNext() {
+			Object event;
+			while ((event = queuedEvents.peek()) != null) {
+				if (runner.canReactTo(event.getClass())) {
+					return true;
+				}
+				queuedEvents.poll();
+			}
+			return false;
+		}
+
+		@Override
+		public Object next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			return queuedEvents.poll();
+		}
+	}
+}
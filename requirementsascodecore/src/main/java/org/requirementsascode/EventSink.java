@@ -0,0 +1,30 @@
+package org.requirementsascode;
+
+/**
+ * Receives the events published and the messages left unhandled while a model
+ * runner reacts to messages with
+ * {@link ModelRunner#reactToAll(Iterable, EventSink)}. A single sink can be
+ * used for any number of calls.
+ *
+ * @author b_muth
+ *
+ */
+public interface EventSink {
+	/**
+	 * Called for each event published by a system reaction, in the order the
+	 * events are published.
+	 *
+	 * @param event the published event
+	 */
+	void publishedEvent(Object event);
+
+	/**
+	 * Called for each message no step could react to, including published events.
+	 * Exceptions thrown by system reactions that no step handles are not passed
+	 * to the sink, as the runner rethrows them. Does nothing by default.
+	 *
+	 * @param message the unhandled message
+	 */
+	default void unhandledMessage(Object message) {
+	}
+}
@@ -94,4 +94,19 @@ public class Flow extends ModelElement implements Serializable {
 		Optional<Condition> condition = getFirstStep().flatMap(step -> step.getCondition());
 		return condition;
 	}
+
+	/**
+	 * Convenience method that returns the context condition of the flow, see
+	 * {@link ModelTemplate}.
+	 *
+	 * <p>
+	 * Internally this calls the method of the same name of the first step in the
+	 * flow.
+	 *
+	 * @return the context condition
+	 */
+	public Optional<ContextCondition<?>> getContextCondition() {
+		Optional<ContextCondition<?>> contextCondition = getFirstStep().flatMap(step -> step.getContextCondition());
+		return contextCondition;
+	}
 }
@@ -11,16 +11,22 @@ import org.requirementsascode.exception.ElementAlreadyInModel;
 public class FlowConditionPart {
 	private FlowPositionPart flowPositionPart;
 	private Condition condition;
+	private ContextCondition<?> contextCondition;
 
-	FlowConditionPart(FlowPositionPart flowPositionPart, Condition condition) {
+	FlowConditionPart(FlowPositionPart flowPositionPart, Condition condition, ContextCondition<?> contextCondition) {
 		this.flowPositionPart = flowPositionPart;
 		this.condition = condition;
+		this.contextCondition = contextCondition;
 	}
 
 	Condition getCondition() {
 		return condition;
 	}
 
+	ContextCondition<?> getContextCondition() {
+		return contextCondition;
+	}
+
 	/**
 	 * Creates the first step of this flow. It can be run when the runner is at the
 	 * right position and the flow's condition is fulfilled.
@@ -107,6 +107,21 @@ public class FlowPart {
 		return conditionPart;
 	}
 
+	/**
+	 * Constrains the flow's condition: only if the specified context condition is
+	 * true, the flow is started.
+	 *
+	 * @param contextCondition the condition, evaluated for the context the runner
+	 *                         has been bound to
+	 * @return the condition part, to ease creation of the first step of the flow
+	 */
+	public FlowConditionPart condition(ContextCondition<?> contextCondition) {
+		Objects.requireNonNull(contextCondition);
+		optionalFlowPositionPart = new FlowPositionPart(new Anytime(), this);
+		FlowConditionPart conditionPart = optionalFlowPositionPart.condition(contextCondition);
+		return conditionPart;
+	}
+
 	Flow getFlow() {
 		return flow;
 	}
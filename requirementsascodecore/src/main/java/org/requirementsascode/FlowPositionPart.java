@@ -11,7 +11,7 @@ public class FlowPositionPart {
 	FlowPositionPart(FlowPosition flowPosition, FlowPart flowPart) {
 		this.flowPosition = flowPosition;
 		this.flowPart = flowPart;
-		this.conditionPart = condition(null);
+		this.conditionPart = new FlowConditionPart(this, null, null);
 	}
 
 	/**
@@ -22,7 +22,20 @@ public class FlowPositionPart {
 	 * @return this condition part, to ease creation of the first step of the flow
 	 */
 	public FlowConditionPart condition(Condition condition) {
-		this.conditionPart = new FlowConditionPart(this, condition);
+		this.conditionPart = new FlowConditionPart(this, condition, null);
+		return conditionPart;
+	}
+
+	/**
+	 * Constrains the flow's condition: only if the specified context condition is
+	 * true as well (beside the flow position), the flow is started.
+	 *
+	 * @param contextCondition the condition, evaluated for the context the runner
+	 *                         has been bound to
+	 * @return this condition part, to ease creation of the first step of the flow
+	 */
+	public FlowConditionPart condition(ContextCondition<?> contextCondition) {
+		this.conditionPart = new FlowConditionPart(this, null, contextCondition);
 		return conditionPart;
 	}
 
@@ -39,8 +52,8 @@ public class FlowPositionPart {
 		UseCasePart useCasePart = flowPart.getUseCasePart();
 		UseCase useCase = useCasePart.getUseCase();
 		Flow flow = flowPart.getFlow();
-		Condition condition = conditionPart.getCondition();
-		FlowStep step = useCase.newInterruptingFlowStep(stepName, flow, flowPosition, condition);
+		FlowStep step = useCase.newInterruptingFlowStep(stepName, flow, flowPosition, conditionPart.getCondition(),
+				conditionPart.getContextCondition());
 		StepPart stepPart = new StepPart(step, useCasePart, flowPart);
 		return stepPart;
 	}
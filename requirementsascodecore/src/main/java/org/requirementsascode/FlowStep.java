@@ -3,6 +3,7 @@ package org.requirementsascode;
 import java.io.Serializable;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 import org.requirementsascode.flowposition.FlowPosition;
 
@@ -16,9 +17,10 @@ public abstract class FlowStep extends Step implements Serializable {
 	private FlowPosition flowPosition;
 	private FlowStep previousStepInFlow;
 	private Condition reactWhile;
+	private ContextCondition<?> contextReactWhile;
 
-	FlowStep(String stepName, Flow flow, Condition condition) {
-		super(stepName, flow.getUseCase(), condition);
+	FlowStep(String stepName, Flow flow, Condition condition, ContextCondition<?> contextCondition) {
+		super(stepName, flow.getUseCase(), condition, contextCondition);
 		this.flow = flow;
 	}
 
@@ -42,6 +44,7 @@ public abstract class FlowStep extends Step implements Serializable {
 		Objects.requireNonNull(flowPosition);
 
 		this.flowPosition = flowPosition;
+		getModel().discardStepIndexes();
 	}
 
 	public void orAfter(FlowStep step) {
@@ -50,7 +53,16 @@ public abstract class FlowStep extends Step implements Serializable {
 
 	void setReactWhile(Condition reactWhileCondition) {
 		this.reactWhile = reactWhileCondition;
+		this.contextReactWhile = null;
 		createLoop();
+		getModel().discardStepIndexes();
+	}
+
+	void setReactWhile(ContextCondition<?> reactWhileCondition) {
+		this.reactWhile = null;
+		this.contextReactWhile = reactWhileCondition;
+		createLoop();
+		getModel().discardStepIndexes();
 	}
 
 	private void createLoop() {
@@ -60,4 +72,30 @@ public abstract class FlowStep extends Step implements Serializable {
 	public Condition getReactWhile() {
 		return reactWhile;
 	}
+
+	public ContextCondition<?> getContextReactWhile() {
+		return contextReactWhile;
+	}
+
+	boolean hasReactWhile() {
+		return reactWhile != null || contextReactWhile != null;
+	}
+
+	/**
+	 * Returns a predicate that evaluates the step's react while condition, or
+	 * its context react while condition.
+	 *
+	 * @return the predicate, or null if the step has no react while condition
+	 */
+	Predicate<ModelRunner> getReactWhilePredicate() {
+		Predicate<ModelRunner> predicate;
+		if (contextReactWhile != null) {
+			predicate = modelRunner -> modelRunner.isContextConditionTrue(contextReactWhile);
+		} else if (reactWhile != null) {
+			predicate = toPredicate(reactWhile);
+		} else {
+			predicate = null;
+		}
+		return predicate;
+	}
 }
@@ -13,9 +13,11 @@ public class FlowlessConditionPart {
 	private long flowlessStepCounter;
 	private StepPart stepPart;
 
-	FlowlessConditionPart(Condition optionalCondition, UseCasePart useCasePart, long flowlessStepCounter) {
+	FlowlessConditionPart(Condition optionalCondition, ContextCondition<?> optionalContextCondition,
+			UseCasePart useCasePart, long flowlessStepCounter) {
 		UseCase useCase = useCasePart.getUseCase();
-		FlowlessStep newStep = useCase.newFlowlessStep(optionalCondition, "S" + flowlessStepCounter);
+		FlowlessStep newStep = useCase.newFlowlessStep(optionalCondition, optionalContextCondition,
+				"S" + flowlessStepCounter);
 		this.stepPart = new StepPart(newStep, useCasePart, null);
 		this.flowlessStepCounter = flowlessStepCounter;
 	}
@@ -0,0 +1,187 @@
+package org.requirementsascode;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.requirementsascode.exception.MissingUseCaseStepPart;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+import org.requirementsascode.exception.UnsupportedStep;
+
+/**
+ * A dispatcher for models that only contain flowless steps, i.e. steps that
+ * have been built with <code>on(..)</code> or <code>user(..)</code> outside of
+ * a flow.
+ *
+ * <p>
+ * Such models have no position state: which step reacts to a message only
+ * depends on the message's class and the steps' conditions, not on the steps
+ * that have been run before. So unlike a {@link ModelRunner}, a dispatcher has
+ * no mutable state, and a single instance can dispatch messages from any number
+ * of threads at the same time. The steps that may react to a message class are
+ * computed once per class, and then looked up in a {@link ClassValue}.
+ *
+ * <p>
+ * A dispatcher reacts like a runner that is run as the model's default user: it
+ * triggers the system reaction of the single step that can react, publishes the
+ * event the reaction returns by dispatching it, and dispatches exceptions thrown
+ * by system reactions. Unhandled exceptions are rethrown, other unhandled
+ * messages are ignored. Versioned conditions are evaluated every time, as there
+ * is no cache for their results.
+ *
+ * @author b_muth
+ *
+ */
+public class FlowlessDispatcher {
+	private final Step[] steps;
+	private final ClassValue<Step[]> messageClassToSteps;
+
+	private FlowlessDispatcher(Model model) {
+		Objects.requireNonNull(model);
+		this.steps = model.getModifiableSteps().stream().filter(step -> isUserOrSystemStep(step, model))
+				.peek(this::checkIsSupported).toArray(Step[]::new);
+		this.messageClassToSteps = new ClassValue<Step[]>() {
+			@Override
+			protected Step[] computeValue(Class<?> messageClass) {
+				return stepsThatMatch(messageClass);
+			}
+		};
+	}
+
+	/**
+	 * Creates a dispatcher for the specified model.
+	 *
+	 * @param model the model, containing only flowless steps
+	 * @return the dispatcher
+	 * @throws UnsupportedStep if the model contains a step of a flow, or a step
+	 *                         without a message class, i.e. an "autonomous system
+	 *                         reaction"
+	 */
+	public static FlowlessDispatcher of(Model model) {
+		return new FlowlessDispatcher(model);
+	}
+
+	/**
+	 * Creates a dispatcher for the model of the specified template. Pass the
+	 * context to {@link #dispatch(Object, Object)}.
+	 *
+	 * @param modelTemplate the template, whose model contains only flowless steps
+	 * @return the dispatcher
+	 * @throws UnsupportedStep if the model contains a step of a flow, or an
+	 *                         "autonomous system reaction"
+	 */
+	public static FlowlessDispatcher of(ModelTemplate<?> modelTemplate) {
+		Objects.requireNonNull(modelTemplate);
+		return new FlowlessDispatcher(modelTemplate.getModel());
+	}
+
+	private boolean isUserOrSystemStep(Step step, Model model) {
+		Actor[] stepActors = step.getActors();
+		if (stepActors == null) {
+			throw new MissingUseCaseStepPart(step, "actor");
+		}
+		return Arrays.stream(stepActors)
+				.anyMatch(actor -> actor.equals(model.getUserActor()) || actor.equals(model.getSystemActor()));
+	}
+
+	private void checkIsSupported(Step step) {
+		if (!(step instanceof FlowlessStep)) {
+			throw new UnsupportedStep(step, "a flowless dispatcher only supports steps outside of flows");
+		}
+		if (ModelRunner.class.equals(step.getMessageClass())) {
+			throw new UnsupportedStep(step, "a flowless dispatcher doesn't trigger autonomous system reactions");
+		}
+		if (step.getSystemReaction() == null) {
+			throw new MissingUseCaseStepPart(step, "system");
+		}
+	}
+
+	/**
+	 * Dispatches the specified message to the step that can react to it.
+	 *
+	 * @param message the message
+	 * @return the latest event that was published, or an empty optional if no
+	 *         event was published
+	 * @throws MoreThanOneStepCanReact when more than one step can react
+	 */
+	public Optional<Object> dispatch(Object message) {
+		return dispatch(null, message);
+	}
+
+	/**
+	 * Dispatches the specified message to the step that can react to it, passing
+	 * the specified context to context reactions and conditions.
+	 *
+	 * @param context the context, as described for {@link ModelTemplate}
+	 * @param message the message
+	 * @return the latest event that was published, or an empty optional if no
+	 *         event was published
+	 * @throws MoreThanOneStepCanReact when more than one step can react
+	 */
+	public Optional<Object> dispatch(Object context, Object message) {
+		Objects.requireNonNull(message);
+		return Optional.ofNullable(react(context, message));
+	}
+
+	private Object react(Object context, Object message) {
+		Step stepThatCanReact = getStepThatCanReact(context, message.getClass());
+		if (stepThatCanReact == null) {
+			if (message instanceof RuntimeException) {
+				throw (RuntimeException) message;
+			}
+			return null;
+		}
+
+		Object event;
+		try {
+			@SuppressWarnings("unchecked")
+			SystemReaction<Object> systemReaction = (SystemReaction<Object>) stepThatCanReact.getSystemReaction();
+			event = systemReaction.apply(context, message);
+		} catch (RuntimeException e) {
+			return react(context, e);
+		}
+
+		if (event == null) {
+			return null;
+		}
+		Object laterEvent = react(context, event);
+		return laterEvent != null ? laterEvent : event;
+	}
+
+	private Step getStepThatCanReact(Object context, Class<?> messageClass) {
+		Step stepThatCanReact = null;
+		for (Step step : getSteps(messageClass)) {
+			if (isConditionTrue(context, step)) {
+				if (stepThatCanReact != null) {
+					throw new MoreThanOneStepCanReact(Arrays.asList(stepThatCanReact, step));
+				}
+				stepThatCanReact = step;
+			}
+		}
+		return stepThatCanReact;
+	}
+
+	private Step[] getSteps(Class<?> messageClass) {
+		return messageClassToSteps.get(messageClass);
+	}
+
+	private Step[] stepsThatMatch(Class<?> messageClass) {
+		return Arrays.stream(steps).filter(step -> step.getMessageClass().isAssignableFrom(messageClass))
+				.toArray(Step[]::new);
+	}
+
+	@SuppressWarnings("unchecked")
+	private boolean isConditionTrue(Object context, Step step) {
+		ContextCondition<Object> contextCondition = (ContextCondition<Object>) step.getContextCondition().orElse(null);
+		Condition condition = step.getCondition().orElse(null);
+		boolean result;
+		if (contextCondition != null) {
+			result = contextCondition.test(context);
+		} else if (condition != null) {
+			result = condition.evaluate();
+		} else {
+			result = true;
+		}
+		return result;
+	}
+}
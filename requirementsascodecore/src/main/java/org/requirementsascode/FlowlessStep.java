@@ -11,18 +11,14 @@ import java.util.function.Predicate;
 public class FlowlessStep extends Step {
 	private static final long serialVersionUID = -5290327128546502292L;
 
-	FlowlessStep(String stepName, UseCase useCase, Condition optionalCondition) {
-		super(stepName, useCase, optionalCondition);
+	FlowlessStep(String stepName, UseCase useCase, Condition optionalCondition,
+			ContextCondition<?> optionalContextCondition) {
+		super(stepName, useCase, optionalCondition, optionalContextCondition);
 	}
 
 	@Override
 	public Predicate<ModelRunner> getPredicate() {
-		Predicate<ModelRunner> predicate = toPredicate(getConditionOrElseTrue());
+		Predicate<ModelRunner> predicate = getConditionPredicate();
 		return predicate;
 	}
-
-	private Condition getConditionOrElseTrue() {
-		Condition condition = getCondition().orElse(() -> true);
-		return condition;
-	}
 }
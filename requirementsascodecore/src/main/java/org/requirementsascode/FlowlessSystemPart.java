@@ -25,7 +25,22 @@ public class FlowlessSystemPart<T> {
 	 * @return the created condition part
 	 */
 	public FlowlessConditionPart condition(Condition condition) {
-		FlowlessConditionPart conditionPart = new FlowlessConditionPart(condition, useCasePart, ++flowlessStepCounter);
+		FlowlessConditionPart conditionPart = new FlowlessConditionPart(condition, null, useCasePart,
+				++flowlessStepCounter);
+		return conditionPart;
+	}
+
+	/**
+	 * Constrains the condition for triggering a system reaction: only if the
+	 * specified context condition is true, a system reaction can be triggered.
+	 *
+	 * @param contextCondition the condition, evaluated for the context the runner
+	 *                         has been bound to
+	 * @return the created condition part
+	 */
+	public FlowlessConditionPart condition(ContextCondition<?> contextCondition) {
+		FlowlessConditionPart conditionPart = new FlowlessConditionPart(null, contextCondition, useCasePart,
+				++flowlessStepCounter);
 		return conditionPart;
 	}
 
@@ -42,7 +57,7 @@ public class FlowlessSystemPart<T> {
 	 */
 	public <U> FlowlessUserPart<U> user(Class<U> commandClass) {
 		Objects.requireNonNull(commandClass);
-		FlowlessUserPart<U> flowlessUserPart = condition(null).user(commandClass);
+		FlowlessUserPart<U> flowlessUserPart = condition((Condition) null).user(commandClass);
 		return flowlessUserPart;
 	}
 
@@ -59,7 +74,7 @@ public class FlowlessSystemPart<T> {
 	 */
 	public <U> FlowlessUserPart<U> on(Class<U> messageClass) {
 		Objects.requireNonNull(messageClass);
-		FlowlessUserPart<U> flowlessUserPart = condition(null).on(messageClass);
+		FlowlessUserPart<U> flowlessUserPart = condition((Condition) null).on(messageClass);
 		return flowlessUserPart;
 	}
 
@@ -30,6 +30,19 @@ public class FlowlessUserPart<T> {
 		return new FlowlessSystemPart<>(stepSystemPart, flowlessStepCounter);
 	}
 	
+	/**
+	 * Defines the system reaction. The system will react as specified to the
+	 * message passed in, when {@link ModelRunner#reactTo(Object)} is called, and
+	 * receive the context the runner has been bound to, see {@link ModelTemplate}.
+	 *
+	 * @param systemReaction the specified context reaction
+	 * @return the created flowless system part
+	 */
+	public FlowlessSystemPart<T> system(ContextReaction<?, T> systemReaction) {
+		StepSystemPart<T> stepSystemPart = stepUserPart.system(systemReaction);
+		return new FlowlessSystemPart<>(stepSystemPart, flowlessStepCounter);
+	}
+	
 	/**
 	 * Defines the system reaction. The system will react as specified to the
 	 * message passed in, when you call {@link ModelRunner#reactTo(Object)}. After
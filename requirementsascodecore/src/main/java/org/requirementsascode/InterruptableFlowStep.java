@@ -2,9 +2,7 @@ package org.requirementsascode;
 
 import java.io.Serializable;
 import java.util.List;
-import java.util.Set;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 import org.requirementsascode.flowposition.After;
 
@@ -31,7 +29,7 @@ public class InterruptableFlowStep extends FlowStep implements Serializable {
 	 * @param flow     the flow that will contain the new step
 	 */
 	InterruptableFlowStep(String stepName, Flow flow) {
-		super(stepName, flow, null);
+		super(stepName, flow, null, null);
 		appendToLastStepOfFlow();
 	}
 
@@ -44,29 +42,17 @@ public class InterruptableFlowStep extends FlowStep implements Serializable {
 
 	@Override
 	public Predicate<ModelRunner> getPredicate() {
-		Condition reactWhile = getReactWhile();
+		Predicate<ModelRunner> reactWhile = getReactWhilePredicate();
 
 		Predicate<ModelRunner> predicate = getFlowPosition().and(noStepInterrupts());
 		if (reactWhile != null) {
-			predicate = predicate.and(toPredicate(reactWhile));
+			predicate = predicate.and(reactWhile);
 		}
 
 		return predicate;
 	}
 
 	private Predicate<ModelRunner> noStepInterrupts() {
-		return modelRunner -> {
-			Class<?> theStepsMessageClass = getMessageClass();
-
-			Stream<Step> interruptingStepsStream = modelRunner.getRunningStepStream().filter(isInterruptingStep());
-			Set<Step> interruptingStepsThatCanReact = modelRunner.getStepsInStreamThatCanReactTo(theStepsMessageClass,
-					interruptingStepsStream);
-
-			return interruptingStepsThatCanReact.isEmpty();
-		};
-	}
-
-	private Predicate<Step> isInterruptingStep() {
-		return step -> InterruptingFlowStep.class.equals(step.getClass());
+		return modelRunner -> !modelRunner.canInterruptingStepReactTo(getMessageClass());
 	}
 }
@@ -7,18 +7,19 @@ import org.requirementsascode.flowposition.FlowPosition;
 public class InterruptingFlowStep extends FlowStep {
 	private static final long serialVersionUID = 7204738737376844201L;
 
-	InterruptingFlowStep(String stepName, Flow useCaseFlow, FlowPosition flowPosition, Condition condition) {
-		super(stepName, useCaseFlow, condition);
+	InterruptingFlowStep(String stepName, Flow useCaseFlow, FlowPosition flowPosition, Condition condition,
+			ContextCondition<?> contextCondition) {
+		super(stepName, useCaseFlow, condition, contextCondition);
 		setFlowPosition(flowPosition);
 	}
 
 	public Predicate<ModelRunner> getPredicate() {
 		Predicate<ModelRunner> predicate;
-		Condition reactWhile = getReactWhile();
+		Predicate<ModelRunner> reactWhile = getReactWhilePredicate();
 
 		predicate = isFlowConditionTrueAndRunnerInDifferentFlow();
 		if (reactWhile != null) {
-			predicate = predicate.and(toPredicate(reactWhile));
+			predicate = predicate.and(reactWhile);
 		}
 
 		return predicate;
@@ -26,10 +27,8 @@ public class InterruptingFlowStep extends FlowStep {
 
 	private Predicate<ModelRunner> isFlowConditionTrueAndRunnerInDifferentFlow() {
 		Predicate<ModelRunner> flowPosition = getFlowPosition();
-		Condition conditionOrElseTrue = getCondition().orElse(() -> true);
-
 		Predicate<ModelRunner> flowCondition = isRunnerInDifferentFlow().and(flowPosition)
-				.and(toPredicate(conditionOrElseTrue));
+				.and(getConditionPredicate());
 		return flowCondition;
 	}
 
@@ -0,0 +1,351 @@
+package org.requirementsascode;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Delivers messages to model runners after a delay, e.g. a timeout message if
+ * a payment hasn't been received within 15 minutes. A single scheduler serves
+ * many runners, each identified by a key, e.g. a session id.
+ *
+ * <p>
+ * The scheduler is a hierarchical hashed timing wheel. Time is divided into
+ * ticks of the tick duration. Each level of the hierarchy is a wheel of 256
+ * slots. A message due within 256 ticks is put into a slot of the lowest
+ * level, messages due later into the slots of higher levels, each slot of
+ * which spans all slots of the level below. When the current tick reaches a
+ * slot of a higher level, its messages are moved to lower levels. So scheduling
+ * and cancelling a message take constant time, regardless of the number of
+ * scheduled messages and their delays. Advancing the wheel skips empty slots,
+ * so its cost doesn't grow with the time that has passed.
+ *
+ * <p>
+ * The scheduler doesn't start a thread. Call {@link #advance()} regularly,
+ * e.g. once per tick duration from a single scheduled task. It passes the
+ * messages that are due to the message consumer, together with the key of
+ * their runner: at the earliest after their delay, at the latest one call of
+ * {@link #advance()} after that. Messages due at the same tick are passed in
+ * the order they were scheduled. The consumer should pass each message to the
+ * runner's queue, or call {@link ModelRunner#reactTo(Object)} of the runner
+ * directly.
+ *
+ * <p>
+ * A scheduler is not thread safe. Use it from a single thread.
+ *
+ * @author b_muth
+ *
+ * @param <K> the type of keys that identify runners
+ */
+public class MessageScheduler<K> {
+	private static final int WHEEL_BITS = 8;
+	private static final int WHEEL_MASK = (1 << WHEEL_BITS) - 1;
+	private static final int LEVELS = (Long.SIZE + WHEEL_BITS - 1) / WHEEL_BITS;
+
+	private final BiConsumer<K, Object> messageConsumer;
+	private final long tickNanos;
+	private final LongSupplier nanoClock;
+	private final long startTime;
+	private final ScheduledMessage<K>[][] slots;
+	private final Map<K, ScheduledMessage<K>> runnerKeyToMessages;
+	private final Deque<ScheduledMessage<K>> dueMessages;
+	private long currentTick;
+	private long scheduledCount;
+	private int size;
+	private int wheelSize;
+	private boolean isAdvancing;
+
+	/**
+	 * Creates a scheduler that passes due messages to the specified consumer.
+	 *
+	 * @param messageConsumer the consumer of the due messages, and the keys of
+	 *                        their runners
+	 * @param tickDuration    the duration of a tick, at least 1 nanosecond. The
+	 *                        delays of messages are rounded up to full ticks.
+	 */
+	public MessageScheduler(BiConsumer<K, Object> messageConsumer, Duration tickDuration) {
+		this(messageConsumer, tickDuration, System::nanoTime);
+	}
+
+	@SuppressWarnings("unchecked")
+	MessageScheduler(BiConsumer<K, Object> messageConsumer, Duration tickDuration, LongSupplier nanoClock) {
+		this.messageConsumer = Objects.requireNonNull(messageConsumer);
+		this.tickNanos = Objects.requireNonNull(tickDuration).toNanos();
+		if (tickNanos < 1) {
+			throw new IllegalArgumentException("The tick duration must be at least 1 nanosecond, but is " + tickDuration);
+		}
+		this.nanoClock = Objects.requireNonNull(nanoClock);
+		this.startTime = nanoClock.getAsLong();
+		this.slots = (ScheduledMessage<K>[][]) new ScheduledMessage<?>[LEVELS][WHEEL_MASK + 1];
+		this.runnerKeyToMessages = new HashMap<>();
+		this.dueMessages = new ArrayDeque<>();
+	}
+
+	/**
+	 * Schedules the specified message for the runner with the specified key.
+	 *
+	 * @param runnerKey the key of the runner
+	 * @param message   the message
+	 * @param delay     the minimum time until the message is due, not negative
+	 * @return the scheduled message, which can be used to cancel it
+	 */
+	public ScheduledMessage<K> schedule(K runnerKey, Object message, Duration delay) {
+		Objects.requireNonNull(runnerKey);
+		Objects.requireNonNull(message);
+		Objects.requireNonNull(delay);
+		if (delay.isNegative()) {
+			throw new IllegalArgumentException("The delay must not be negative, but is " + delay);
+		}
+
+		long dueTime = nanoClock.getAsLong() - startTime + delay.toNanos();
+		long dueTick = Math.max(ceilTick(dueTime), currentTick + 1);
+		ScheduledMessage<K> scheduledMessage = new ScheduledMessage<>(this, runnerKey, message, dueTick, scheduledCount++);
+		addToWheel(scheduledMessage);
+		addToRunnerKey(scheduledMessage);
+		size++;
+		wheelSize++;
+		return scheduledMessage;
+	}
+
+	/**
+	 * Cancels all messages scheduled for the runner with the specified key, e.g.
+	 * when its session has ended.
+	 *
+	 * @param runnerKey the key of the runner
+	 * @return the number of messages that have been cancelled
+	 */
+	public int cancelAll(K runnerKey) {
+		Objects.requireNonNull(runnerKey);
+		ScheduledMessage<K> scheduledMessage = runnerKeyToMessages.remove(runnerKey);
+		int cancelledCount = 0;
+		while (scheduledMessage != null) {
+			ScheduledMessage<K> nextMessage = scheduledMessage.nextOfRunner;
+			scheduledMessage.previousOfRunner = null;
+			scheduledMessage.nextOfRunner = null;
+			markCancelled(scheduledMessage);
+			cancelledCount++;
+			scheduledMessage = nextMessage;
+		}
+		return cancelledCount;
+	}
+
+	/**
+	 * Cancels the specified message, if it hasn't been passed to the message
+	 * consumer yet.
+	 *
+	 * @param scheduledMessage the message
+	 * @return true if the message has been cancelled, false if it had been
+	 *         delivered or cancelled before
+	 */
+	boolean cancel(ScheduledMessage<K> scheduledMessage) {
+		if (!scheduledMessage.isPending()) {
+			return false;
+		}
+		removeFromRunnerKey(scheduledMessage);
+		markCancelled(scheduledMessage);
+		return true;
+	}
+
+	/**
+	 * Passes all messages that are due at the current time to the message
+	 * consumer. If the consumer throws an exception, the messages not passed yet
+	 * are passed on the next call. Calls from the consumer return immediately.
+	 *
+	 * @return the number of messages passed to the consumer
+	 */
+	public int advance() {
+		if (isAdvancing) {
+			return 0;
+		}
+		isAdvancing = true;
+		try {
+			advanceTo(floorTick(nanoClock.getAsLong() - startTime));
+			return deliverDueMessages();
+		} finally {
+			isAdvancing = false;
+		}
+	}
+
+	/**
+	 * Returns the number of scheduled messages that have neither been passed to
+	 * the message consumer, nor been cancelled.
+	 *
+	 * @return the number of messages
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	private void advanceTo(long tick) {
+		long nextTick;
+		while (wheelSize > 0 && (nextTick = nextTickToProcess(tick)) >= 0) {
+			currentTick = nextTick;
+			for (int level = LEVELS - 1; level > 0; level--) {
+				if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) == 0) {
+					moveToLowerLevels(level);
+				}
+			}
+			expireSlot();
+		}
+		currentTick = Math.max(currentTick, tick);
+	}
+
+	/**
+	 * Finds the next tick at which a slot with messages is reached, so that empty
+	 * slots are skipped. The slots of a level are reached after all slots of the
+	 * levels below, so the levels are searched from the lowest level upwards.
+	 *
+	 * @param maxTick the last tick to search
+	 * @return the tick, or -1 if no slot with messages is reached up to the
+	 *         maximum tick
+	 */
+	private long nextTickToProcess(long maxTick) {
+		for (int level = 0; level < LEVELS; level++) {
+			int shift = WHEEL_BITS * level;
+			int higherLevelsShift = shift + WHEEL_BITS;
+			long higherLevelsTick = higherLevelsShift >= Long.SIZE ? 0
+					: (currentTick >>> higherLevelsShift) << higherLevelsShift;
+			for (int index = slotIndex(currentTick, level) + 1; index <= WHEEL_MASK; index++) {
+				long tick = higherLevelsTick | ((long) index << shift);
+				if (tick > maxTick) {
+					return -1;
+				}
+				if (slots[level][index] != null) {
+					return tick;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void moveToLowerLevels(int level) {
+		int index = slotIndex(currentTick, level);
+		ScheduledMessage<K> scheduledMessage = slots[level][index];
+		slots[level][index] = null;
+		while (scheduledMessage != null) {
+			ScheduledMessage<K> nextMessage = scheduledMessage.nextInSlot;
+			addToWheel(scheduledMessage);
+			scheduledMessage = nextMessage;
+		}
+	}
+
+	private void expireSlot() {
+		int index = slotIndex(currentTick, 0);
+		ScheduledMessage<K> scheduledMessage = slots[0][index];
+		if (scheduledMessage == null) {
+			return;
+		}
+		slots[0][index] = null;
+		List<ScheduledMessage<K>> expiredMessages = new ArrayList<>();
+		while (scheduledMessage != null) {
+			ScheduledMessage<K> nextMessage = scheduledMessage.nextInSlot;
+			scheduledMessage.previousInSlot = null;
+			scheduledMessage.nextInSlot = null;
+			scheduledMessage.state = ScheduledMessage.DUE;
+			wheelSize--;
+			expiredMessages.add(scheduledMessage);
+			scheduledMessage = nextMessage;
+		}
+		expiredMessages.sort(Comparator.comparingLong(expiredMessage -> expiredMessage.sequenceNumber));
+		dueMessages.addAll(expiredMessages);
+	}
+
+	private int deliverDueMessages() {
+		int deliveredCount = 0;
+		ScheduledMessage<K> dueMessage;
+		while ((dueMessage = dueMessages.poll()) != null) {
+			if (dueMessage.state == ScheduledMessage.DUE) {
+				removeFromRunnerKey(dueMessage);
+				dueMessage.state = ScheduledMessage.DELIVERED;
+				size--;
+				deliveredCount++;
+				messageConsumer.accept(dueMessage.getRunnerKey(), dueMessage.getMessage());
+			}
+		}
+		return deliveredCount;
+	}
+
+	private void markCancelled(ScheduledMessage<K> scheduledMessage) {
+		if (scheduledMessage.state == ScheduledMessage.SCHEDULED) {
+			removeFromWheel(scheduledMessage);
+			wheelSize--;
+		}
+		scheduledMessage.state = ScheduledMessage.CANCELLED;
+		size--;
+	}
+
+	private void addToWheel(ScheduledMessage<K> scheduledMessage) {
+		long dueTick = scheduledMessage.dueTick;
+		long differentBits = dueTick ^ currentTick;
+		int level = differentBits == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(differentBits)) / WHEEL_BITS;
+		int index = slotIndex(dueTick, level);
+		ScheduledMessage<K> firstMessage = slots[level][index];
+		scheduledMessage.level = level;
+		scheduledMessage.previousInSlot = null;
+		scheduledMessage.nextInSlot = firstMessage;
+		if (firstMessage != null) {
+			firstMessage.previousInSlot = scheduledMessage;
+		}
+		slots[level][index] = scheduledMessage;
+	}
+
+	private void removeFromWheel(ScheduledMessage<K> scheduledMessage) {
+		ScheduledMessage<K> previousMessage = scheduledMessage.previousInSlot;
+		ScheduledMessage<K> nextMessage = scheduledMessage.nextInSlot;
+		if (previousMessage != null) {
+			previousMessage.nextInSlot = nextMessage;
+		} else {
+			slots[scheduledMessage.level][slotIndex(scheduledMessage.dueTick, scheduledMessage.level)] = nextMessage;
+		}
+		if (nextMessage != null) {
+			nextMessage.previousInSlot = previousMessage;
+		}
+		scheduledMessage.previousInSlot = null;
+		scheduledMessage.nextInSlot = null;
+	}
+
+	private void addToRunnerKey(ScheduledMessage<K> scheduledMessage) {
+		ScheduledMessage<K> firstMessage = runnerKeyToMessages.put(scheduledMessage.getRunnerKey(), scheduledMessage);
+		scheduledMessage.nextOfRunner = firstMessage;
+		if (firstMessage != null) {
+			firstMessage.previousOfRunner = scheduledMessage;
+		}
+	}
+
+	private void removeFromRunnerKey(ScheduledMessage<K> scheduledMessage) {
+		ScheduledMessage<K> previousMessage = scheduledMessage.previousOfRunner;
+		ScheduledMessage<K> nextMessage = scheduledMessage.nextOfRunner;
+		if (previousMessage != null) {
+			previousMessage.nextOfRunner = nextMessage;
+		} else if (nextMessage != null) {
+			runnerKeyToMessages.put(scheduledMessage.getRunnerKey(), nextMessage);
+		} else {
+			runnerKeyToMessages.remove(scheduledMessage.getRunnerKey());
+		}
+		if (nextMessage != null) {
+			nextMessage.previousOfRunner = previousMessage;
+		}
+		scheduledMessage.previousOfRunner = null;
+		scheduledMessage.nextOfRunner = null;
+	}
+
+	private static int slotIndex(long tick, int level) {
+		return (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK;
+	}
+
+	private long floorTick(long time) {
+		return time / tickNanos;
+	}
+
+	private long ceilTick(long time) {
+		return time / tickNanos + (time % tickNanos == 0 ? 0 : 1);
+	}
+}
@@ -35,6 +35,8 @@ public class Model implements Serializable {
 	private Map<String, UseCase> nameToUseCaseMap;
 	private Actor userActor;
 	private Actor systemActor;
+	private transient volatile StepIndex stepIndex;
+	private transient volatile AmbiguityAnalysis ambiguityAnalysis;
 
 	Model() {
 		this.nameToActorMap = new LinkedHashMap<>();
@@ -155,6 +157,41 @@ public class Model implements Serializable {
 		return modifiableSteps;
 	}
 
+	/**
+	 * Returns the steps a runner reacts in when it runs as the specified actor. The
+	 * partitions of all actors of this model are created together, the first time
+	 * one of them is needed, and again after the steps have changed.
+	 *
+	 * @param actor the actor the runner runs as
+	 * @return the partition of the actor
+	 */
+	StepPartition getStepPartition(Actor actor) {
+		return getStepIndex().getStepPartition(actor);
+	}
+
+	private StepIndex getStepIndex() {
+		StepIndex currentStepIndex = stepIndex;
+		if (currentStepIndex == null) {
+			currentStepIndex = new StepIndex(getModifiableSteps(), getActors());
+			stepIndex = currentStepIndex;
+		}
+		return currentStepIndex;
+	}
+
+	AmbiguityAnalysis getAmbiguityAnalysis() {
+		AmbiguityAnalysis currentAmbiguityAnalysis = ambiguityAnalysis;
+		if (currentAmbiguityAnalysis == null) {
+			currentAmbiguityAnalysis = new AmbiguityAnalysis(this);
+			ambiguityAnalysis = currentAmbiguityAnalysis;
+		}
+		return currentAmbiguityAnalysis;
+	}
+
+	void discardStepIndexes() {
+		stepIndex = null;
+		ambiguityAnalysis = null;
+	}
+
 	/**
 	 * Returns the actor representing the default user.
 	 *
@@ -68,6 +68,17 @@ public class ModelBuilder {
 		return useCase(HANDLES_MESSAGES).condition(condition);
 	}
 
+	/**
+	 * Only if the specified context condition is true, the message is handled.
+	 *
+	 * @param contextCondition the condition, evaluated for the context the runner
+	 *                         has been bound to
+	 * @return a part of the builder used to define the message class
+	 */
+	public FlowlessConditionPart condition(ContextCondition<?> contextCondition) {
+		return useCase(HANDLES_MESSAGES).condition(contextCondition);
+	}
+
 	/**
 	 * Creates a new use case in the current model, and returns a part for building
 	 * its details. If a use case with the specified name already exists, returns a
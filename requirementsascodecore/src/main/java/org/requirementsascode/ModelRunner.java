@@ -1,17 +1,27 @@
 package org.requirementsascode;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.requirementsascode.exception.AmbiguousSteps;
 import org.requirementsascode.exception.InfiniteRepetition;
 import org.requirementsascode.exception.MissingUseCaseStepPart;
 import org.requirementsascode.exception.MoreThanOneStepCanReact;
@@ -31,20 +41,42 @@ public class ModelRunner {
 	private Step latestStep;
 	private Object latestPublishedEvent;
 	private boolean isRunning;
-	private StepToBeRun stepToBeRun;
+	private StepToBeRun[] stepsToBeRun;
+	private int handlerDepth;
 	private Consumer<StepToBeRun> messageHandler;
 	private Consumer<Object> unhandledMessageHandler;
 	private Consumer<Object> eventPublisher;
+	private Deque<Object> queuedEvents;
+	private Consumer<List<Object>> queuedEventsHandler;
+	private boolean isDrainingQueuedEvents;
+	private Outbox outbox;
+	private EventSink eventSink;
+	private Object sinkInputMessage;
+	private boolean isSinkInputMessageUnhandled;
 	private List<String> recordedStepNames;
 	private List<Object> recordedMessages;
 	private boolean isRecording;
-	private Collection<Step> steps;
+	private StepPartition stepPartition;
+	private Object context;
+	private Map<Object, ConditionResult> versionedConditionResults;
+	private Map<StepPartition, TransitionCache> transitionCaches;
+	private TransitionCache transitionCache;
+	private DispatchMode dispatchMode;
+	private long dispatchedMessageCount;
+	private int maxStepsPerDispatch;
+	private boolean capturesStackTraces;
+	private int stepsRunInDispatch;
+	private boolean hasPendingAutonomousReaction;
 
 	/**
 	 * Constructor for creating a model runner.
 	 */
 	public ModelRunner() {
-		this.stepToBeRun = new StepToBeRun();
+		this.stepsToBeRun = new StepToBeRun[4];
+		this.versionedConditionResults = new IdentityHashMap<>();
+		this.dispatchMode = DispatchMode.ALL_MATCHES;
+		this.maxStepsPerDispatch = Integer.MAX_VALUE;
+		this.capturesStackTraces = true;
 		handleWith(stepToBeRun -> stepToBeRun.run());
 		publishWith(this::handleMessage);
 	}
@@ -55,6 +87,13 @@ public class ModelRunner {
 	 * 
 	 * A custom message handler is useful for cross-cutting concerns, e.g. measuring
 	 * performance.
+	 * 
+	 * The runner reuses the step to be run that it passes to the handler, once the
+	 * handler has returned. A step run by the handler may cause nested calls of the
+	 * handler, e.g. by publishing an event. Each nesting depth gets its own
+	 * instance, so an outer call's instance stays unchanged. To keep the step to be
+	 * run after the handler has returned, e.g. to run it asynchronously, call
+	 * {@link StepToBeRun#detach()}.
 	 *
 	 * @param messageHandler the custom message handler
 	 * @return this model runner, for chaining
@@ -85,10 +124,94 @@ public class ModelRunner {
 	 */
 	public ModelRunner publishWith(Consumer<Object> eventPublisher) {
 		Objects.requireNonNull(eventPublisher);
+		this.queuedEvents = null;
+		this.queuedEventsHandler = null;
+		setEventPublisher(eventPublisher);
+		detachOutbox();
+		return this;
+	}
+
+	/**
+	 * Define an outbox as publisher for events. The runner adds the returned
+	 * events of system reactions to the outbox, instead of reacting to them. It
+	 * flushes the outbox after each call to {@link #reactTo(Object)} or
+	 * {@link #run(Model)} that completes normally, and when it is stopped.
+	 *
+	 * @param outbox the outbox
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner publishTo(Outbox outbox) {
+		Objects.requireNonNull(outbox);
+		publishWith(outbox::add);
+		this.outbox = outbox;
+		return this;
+	}
+
+	private void detachOutbox() {
+		flushOutbox();
+		this.outbox = null;
+	}
+
+	private void flushOutbox() {
+		if (outbox != null) {
+			outbox.flush();
+		}
+	}
+
+	private void setEventPublisher(Consumer<Object> eventPublisher) {
 		this.eventPublisher = event -> {
 			latestPublishedEvent = event;
+			if (eventSink != null) {
+				eventSink.publishedEvent(event);
+			}
 			eventPublisher.accept(event);
 		};
+	}
+
+	/**
+	 * Makes the runner queue the events returned by system reactions, instead of
+	 * reacting to each event as soon as it has been returned.
+	 *
+	 * <p>
+	 * By default, the runner reacts to a returned event before the system reaction
+	 * that returned it has been completed by the runner, so a chain of events
+	 * leads to a chain of nested calls. With queued publishing, the runner reacts
+	 * to the queued events in the order they have been published, after the
+	 * reaction to the message passed to {@link #reactTo(Object)} (or to
+	 * {@link #run(Model)}) has been completed. Events published while reacting to
+	 * a queued event are queued as well, so the depth of the call stack doesn't
+	 * depend on the length of the chain.
+	 *
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner publishQueued() {
+		return publishQueued(events -> {
+		});
+	}
+
+	/**
+	 * Makes the runner queue the events returned by system reactions, as described
+	 * for {@link #publishQueued()}. After the runner has reacted to all queued
+	 * events, it passes them to the specified handler, e.g. to send them to an
+	 * external system in a single batch.
+	 *
+	 * <p>
+	 * If the runner throws an exception while reacting to a queued event, it
+	 * doesn't react to the events queued after that event. It still passes all
+	 * events published so far to the handler, including the ones it hasn't
+	 * reacted to, and then rethrows the exception. So the events of system
+	 * reactions that have completed are not lost.
+	 *
+	 * @param queuedEventsHandler the handler of the published events, in the
+	 *                            order they were published. It isn't called if
+	 *                            no event was published.
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner publishQueued(Consumer<List<Object>> queuedEventsHandler) {
+		this.queuedEventsHandler = Objects.requireNonNull(queuedEventsHandler);
+		this.queuedEvents = new ArrayDeque<>();
+		setEventPublisher(queuedEvents::add);
+		detachOutbox();
 		return this;
 	}
 
@@ -113,12 +236,53 @@ public class ModelRunner {
 	 * @return this model runner, for chaining
 	 */
 	public ModelRunner run(Model model) {
+		startWith(model);
+		triggerAutonomousSystemReaction();
+		reactToQueuedEvents();
+		flushOutbox();
+		return this;
+	}
+
+	/**
+	 * Configures the runner to use the specified model, as {@link #run(Model)}
+	 * does, but doesn't trigger autonomous system reactions. Used for runners
+	 * whose position is loaded from somewhere else, see
+	 * {@link #loadPosition(Step, boolean, boolean)}.
+	 *
+	 * @param model the model that defines the runner's behavior
+	 */
+	void startWith(Model model) {
 		this.model = Objects.requireNonNull(model);
 		this.isRunning = true;
+		this.versionedConditionResults.clear();
+		if (transitionCaches != null) {
+			transitionCaches.clear();
+		}
+		verifyModelIfNeeded();
+		this.hasPendingAutonomousReaction = false;
+		if (handlerDepth == 0) {
+			this.stepsRunInDispatch = 0;
+		}
 
 		Actor runActorOrDefaultUser = runActor != null ? runActor : model.getUserActor();
-		as(runActorOrDefaultUser).triggerAutonomousSystemReaction();
-		return this;
+		as(runActorOrDefaultUser);
+	}
+
+	/**
+	 * Configures the runner to use the model of the specified template, bound to
+	 * the specified context. The template's context reactions and conditions
+	 * receive the context. Otherwise, the runner behaves as described for
+	 * {@link #run(Model)}.
+	 *
+	 * @param <C>           the type of context
+	 * @param modelTemplate the template whose model defines the runner's behavior
+	 * @param context       the object the template is bound to
+	 * @return this model runner, for chaining
+	 */
+	public <C> ModelRunner run(ModelTemplate<C> modelTemplate, C context) {
+		Objects.requireNonNull(modelTemplate);
+		this.context = modelTemplate.getContextClass().cast(Objects.requireNonNull(context));
+		return run(modelTemplate.getModel());
 	}
 
 	private void triggerAutonomousSystemReaction() {
@@ -136,30 +300,182 @@ public class ModelRunner {
 	public ModelRunner as(Actor runActor) {
 		this.runActor = Objects.requireNonNull(runActor);
 		if (model != null) {
-			this.steps = getActorSteps(runActor, model);
+			this.stepPartition = model.getStepPartition(runActor);
+			switchTransitionCache();
 		}
 		return this;
 	}
 
-	private Collection<Step> getActorSteps(Actor actor, Model model) {
-		Set<Step> actorSteps = model.getModifiableSteps().stream().filter(step -> anyStepActorIsRunActor(step, actor))
-				.collect(Collectors.toSet());
-		return actorSteps;
+	/**
+	 * After calling this method, the runner caches which step reacts to a message
+	 * of a certain class, after a certain step has been run latest. The cache is
+	 * consulted before the steps' predicates are evaluated, and only used if all
+	 * steps that may react to the message class have neither a condition nor a
+	 * reactWhile condition, and use one of the library's flow positions. So the
+	 * runner's behavior stays the same, but repetitive messages cause table
+	 * lookups instead of evaluations.
+	 * 
+	 * <p>
+	 * The runner keeps a separate cache for each actor it runs as. The caches are
+	 * discarded whenever the runner is run with a model.
+	 *
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner cacheTransitions() {
+		this.transitionCaches = new IdentityHashMap<>();
+		switchTransitionCache();
+		return this;
 	}
-	
-	private boolean anyStepActorIsRunActor(Step step, Actor runActor) {
-		Actor[] stepActors = step.getActors();
-		if (stepActors == null) {
-			throw (new MissingUseCaseStepPart(step, "actor"));
+
+	private void switchTransitionCache() {
+		if (transitionCaches != null && stepPartition != null) {
+			transitionCache = transitionCaches.computeIfAbsent(stepPartition, partition -> new TransitionCache());
 		}
+	}
 
-		Actor systemActor = step.getModel().getSystemActor();
-		for (Actor stepActor : stepActors) {
-			if (stepActor.equals(systemActor) || stepActor.equals(runActor)) {
-				return true;
+	/**
+	 * Defines how the runner finds the step that reacts to a message. See
+	 * {@link DispatchMode} for details.
+	 *
+	 * <p>
+	 * Unless the mode is {@link DispatchMode#ALL_MATCHES}, the runner verifies the
+	 * model with an {@link AmbiguityAnalysis} when it is run, or immediately if it
+	 * is already running.
+	 *
+	 * @param dispatchMode the dispatch mode
+	 * @return this model runner, for chaining
+	 * @throws AmbiguousSteps if the runner is running, and the analysis of its model
+	 *                        found errors
+	 */
+	public ModelRunner dispatchWith(DispatchMode dispatchMode) {
+		this.dispatchMode = Objects.requireNonNull(dispatchMode);
+		verifyModelIfNeeded();
+		return this;
+	}
+
+	/**
+	 * Limits the number of steps the runner runs per dispatch, i.e. per call of
+	 * {@link #run(Model)} or {@link #resume()}, and per message passed to
+	 * {@link #reactTo(Object)}, {@link #reactTo(Object...)} or
+	 * {@link #reactToAll(Iterable, EventSink)}. So a call with several messages
+	 * has a budget of steps for each message. Without a limit, a single dispatch
+	 * may trigger an arbitrarily long chain of autonomous system reactions, e.g.
+	 * steps with a <code>system(Runnable)</code> reaction, or loops built with
+	 * <code>continuesAt</code>.
+	 *
+	 * <p>
+	 * When the limit has been reached, the runner yields instead of triggering the
+	 * next autonomous system reaction. The latest step run is the position the
+	 * runner continues at: on the next call of {@link #reactTo(Object)} before it
+	 * reacts to the message, or when {@link #resume()} is called, e.g. by a
+	 * cooperative scheduler that checks {@link #hasPendingWork()}. The limit
+	 * doesn't stop the runner from reacting to messages and published events, so a
+	 * single call may run more steps than the limit if events are published.
+	 *
+	 * @param maxStepsPerDispatch the maximum number of steps, at least 1
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner limitStepsPerDispatch(int maxStepsPerDispatch) {
+		if (maxStepsPerDispatch < 1) {
+			throw new IllegalArgumentException(
+					"The maximum number of steps per dispatch must be at least 1, but is " + maxStepsPerDispatch);
+		}
+		this.maxStepsPerDispatch = maxStepsPerDispatch;
+		return this;
+	}
+
+	/**
+	 * Defines whether the exceptions the runner throws while dispatching a
+	 * message, i.e. {@link MoreThanOneStepCanReact}, capture a stack trace.
+	 * Capturing the stack trace is the most expensive part of creating an
+	 * exception. An application that handles these exceptions as part of its
+	 * normal control flow, and doesn't need their stack traces, can switch them
+	 * off. Exceptions thrown while building a model always capture a stack trace.
+	 *
+	 * @param capturesStackTraces true to capture stack traces, which is the
+	 *                            default, false otherwise
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner captureStackTraces(boolean capturesStackTraces) {
+		this.capturesStackTraces = capturesStackTraces;
+		return this;
+	}
+
+	/**
+	 * Returns whether the runner has yielded because the limit of steps per
+	 * dispatch has been reached, and an autonomous system reaction is waiting to
+	 * be triggered.
+	 *
+	 * @see #limitStepsPerDispatch(int)
+	 * @return true if the runner is running and {@link #resume()} would run a step,
+	 *         false otherwise
+	 */
+	public boolean hasPendingWork() {
+		return isRunning && hasPendingAutonomousReaction;
+	}
+
+	/**
+	 * Continues the chain of autonomous system reactions the runner has yielded
+	 * in, with a new budget of steps. Does nothing if there is no pending work.
+	 *
+	 * @see #limitStepsPerDispatch(int)
+	 * @return the event that was published (latest) if the system reacted. Null
+	 *         otherwise.
+	 */
+	public Optional<Object> resume() {
+		latestPublishedEvent = null;
+		startDispatch();
+		reactToQueuedEvents();
+		flushOutbox();
+		return Optional.ofNullable(latestPublishedEvent);
+	}
+
+	/**
+	 * Resets the budget of steps, and triggers the pending autonomous system
+	 * reaction, if there is one. Nested calls, e.g. of {@link #reactTo(Object)} in
+	 * a system reaction, use the budget of the outer call.
+	 */
+	private void startDispatch() {
+		if (handlerDepth > 0) {
+			return;
+		}
+		stepsRunInDispatch = 0;
+		if (hasPendingAutonomousReaction) {
+			hasPendingAutonomousReaction = false;
+			if (isRunning) {
+				triggerAutonomousSystemReaction();
 			}
 		}
-		return false;
+	}
+
+	/**
+	 * Replaces the runner's position with the specified one, e.g. the position of
+	 * a session that has been stored outside of the runner.
+	 *
+	 * @param latestStep     the latest step run, or null if no step has been run
+	 * @param isRunning      whether the runner is running, see
+	 *                       {@link #isRunning()}
+	 * @param hasPendingWork whether an autonomous system reaction is pending, see
+	 *                       {@link #hasPendingWork()}
+	 */
+	void loadPosition(Step latestStep, boolean isRunning, boolean hasPendingWork) {
+		this.latestStep = latestStep;
+		this.isRunning = isRunning;
+		this.hasPendingAutonomousReaction = hasPendingWork;
+	}
+
+	private void continueAutonomously() {
+		if (stepsRunInDispatch < maxStepsPerDispatch) {
+			triggerAutonomousSystemReaction();
+		} else if (getFirstStepThatCanReactTo(getClass()) != null) {
+			hasPendingAutonomousReaction = true;
+		}
+	}
+
+	private void verifyModelIfNeeded() {
+		if (model != null && dispatchMode.verifiesModel()) {
+			AmbiguityAnalysis.of(model).verify();
+		}
 	}
 
 	/**
@@ -174,10 +490,12 @@ public class ModelRunner {
 
 	/**
 	 * Stops the runner. It will not be reacting to messages, until
-	 * {@link #run(Model)} is called again.
+	 * {@link #run(Model)} is called again. If an outbox has been defined with
+	 * {@link #publishTo(Outbox)}, it is flushed.
 	 */
 	public void stop() {
 		isRunning = false;
+		flushOutbox();
 	}
 
 	/**
@@ -192,8 +510,11 @@ public class ModelRunner {
 
 		latestPublishedEvent = null;
 		for (Object message : messages) {
+			startDispatch();
 			handleMessage(message);
+			reactToQueuedEvents();
 		}
+		flushOutbox();
 		return Optional.ofNullable(latestPublishedEvent);
 	}
 
@@ -235,32 +556,270 @@ public class ModelRunner {
 		}
 
 		latestPublishedEvent = null;
+		startDispatch();
 		handleMessage(message);
+		reactToQueuedEvents();
+		flushOutbox();
 		return Optional.ofNullable(latestPublishedEvent);
 	}
 
+	/**
+	 * Reacts to each of the specified messages in turn, as described for
+	 * {@link #reactTo(Object)}, and passes each published event and each unhandled
+	 * message to the specified sink. The messages are streamed through the runner,
+	 * without being copied to an intermediate collection.
+	 *
+	 * <p>
+	 * If the runner throws an exception while reacting to a message, e.g. because
+	 * more than one step can react, or an exception thrown by a system reaction is
+	 * not handled, the runner doesn't react to the following messages. Instead, the
+	 * exception is returned as failure of the summary.
+	 *
+	 * @param messages the messages
+	 * @param eventSink the sink for the published events and unhandled messages
+	 * @return a summary of the counts of handled and unhandled messages
+	 */
+	public ReactionSummary reactToAll(Iterable<?> messages, EventSink eventSink) {
+		Objects.requireNonNull(messages);
+		Objects.requireNonNull(eventSink);
+
+		EventSink previousEventSink = this.eventSink;
+		Object previousSinkInputMessage = this.sinkInputMessage;
+		this.eventSink = eventSink;
+		long handledCount = 0;
+		long unhandledCount = 0;
+		RuntimeException failure = null;
+		try {
+			for (Object message : messages) {
+				sinkInputMessage = Objects.requireNonNull(message);
+				isSinkInputMessageUnhandled = false;
+				startDispatch();
+				handleMessage(message);
+				if (isSinkInputMessageUnhandled) {
+					unhandledCount++;
+				} else {
+					handledCount++;
+				}
+				reactToQueuedEvents();
+			}
+			flushOutbox();
+		} catch (RuntimeException e) {
+			failure = e;
+		} finally {
+			this.eventSink = previousEventSink;
+			this.sinkInputMessage = previousSinkInputMessage;
+		}
+		return new ReactionSummary(handledCount, unhandledCount, failure);
+	}
+
+	/**
+	 * Replays the specified messages, for example the stored events of an event
+	 * sourced aggregate, to restore the state they led to.
+	 *
+	 * <p>
+	 * Compared to {@link #reactTo(Object)}, replaying takes a fast path. The step
+	 * that reacts to a message is looked up in an index of message classes. Its
+	 * system reaction is called directly: the custom message handler is bypassed,
+	 * returned events are not published, messages and step names are not recorded,
+	 * and no autonomous system reactions are triggered. Messages no step can react
+	 * to are skipped. Exceptions thrown by system reactions are not handled, but
+	 * rethrown to the caller.
+	 *
+	 * @param messages the messages to replay, in order
+	 * @return this model runner, for chaining
+	 * @throws MoreThanOneStepCanReact when more than one step can react to a
+	 *                                 message
+	 */
+	public ModelRunner replay(Iterator<?> messages) {
+		Objects.requireNonNull(messages);
+
+		while (messages.hasNext()) {
+			replayMessage(messages.next());
+		}
+		return this;
+	}
+
+	/**
+	 * Replays the specified messages. See {@link #replay(Iterator)} for details.
+	 *
+	 * @param messages the messages to replay, in order
+	 * @return this model runner, for chaining
+	 */
+	public ModelRunner replay(Stream<?> messages) {
+		Objects.requireNonNull(messages);
+		return replay(messages.iterator());
+	}
+
+	private void replayMessage(Object message) {
+		Objects.requireNonNull(message);
+		if (!isRunning) {
+			return;
+		}
+
+		Step[] replaySteps = stepPartition.getCandidateSteps(message.getClass());
+		Step stepToReplay = null;
+		if (replaySteps.length == 1 && isUnconditional(replaySteps[0])) {
+			stepToReplay = replaySteps[0];
+		} else {
+			boolean checksAllMatches = dispatchMode.checksAllMatches(++dispatchedMessageCount);
+			for (Step replayStep : replaySteps) {
+				if (hasTruePredicate(replayStep)) {
+					if (stepToReplay != null) {
+						throw new MoreThanOneStepCanReact(Arrays.asList(stepToReplay, replayStep), capturesStackTraces);
+					}
+					stepToReplay = replayStep;
+					if (!checksAllMatches) {
+						break;
+					}
+				}
+			}
+		}
+
+		if (stepToReplay != null) {
+			replayStep(stepToReplay, message);
+		}
+	}
+
+	private boolean isUnconditional(Step step) {
+		return step instanceof FlowlessStep && !step.hasCondition();
+	}
+
+	private void replayStep(Step step, Object message) {
+		@SuppressWarnings("unchecked")
+		SystemReaction<Object> systemReaction = (SystemReaction<Object>) step.getSystemReaction();
+		if (systemReaction == null) {
+			throw new MissingUseCaseStepPart(step, "system");
+		}
+
+		setLatestStep(step);
+		systemReaction.apply(context, message);
+	}
+
+	/**
+	 * Reacts to the queued events, if publishing is queued. If this method is
+	 * called while the runner is already reacting to queued events, e.g. because a
+	 * system reaction calls {@link #reactTo(Object)}, it returns immediately: the
+	 * outer call reacts to the events queued in the meantime.
+	 */
+	private void reactToQueuedEvents() {
+		if (queuedEvents == null || queuedEvents.isEmpty() || isDrainingQueuedEvents) {
+			return;
+		}
+
+		List<Object> publishedEvents = new ArrayList<>(queuedEvents.size());
+		isDrainingQueuedEvents = true;
+		try {
+			Object event;
+			while ((event = queuedEvents.poll()) != null) {
+				publishedEvents.add(event);
+				handleMessage(event);
+			}
+		} catch (RuntimeException | Error e) {
+			publishedEvents.addAll(queuedEvents);
+			queuedEvents.clear();
+			handleQueuedEventsAfterFailure(publishedEvents, e);
+			throw e;
+		} finally {
+			isDrainingQueuedEvents = false;
+		}
+		queuedEventsHandler.accept(publishedEvents);
+	}
+
+	private void handleQueuedEventsAfterFailure(List<Object> publishedEvents, Throwable failure) {
+		try {
+			queuedEventsHandler.accept(publishedEvents);
+		} catch (RuntimeException | Error e) {
+			failure.addSuppressed(e);
+		}
+	}
+
 	private <T> void handleMessage(T message) {
 		Class<? extends Object> currentMessageClass = message.getClass();
 
 		try {
-			Set<Step> stepsThatCanReact = getStepsThatCanReactTo(currentMessageClass);
+			Collection<Step> stepsThatCanReact = transitionCache != null
+					? getCachedStepsThatCanReactTo(currentMessageClass)
+					: findStepsThatCanReactTo(currentMessageClass);
 			triggerSystemReactionForSteps(message, stepsThatCanReact);
 		} catch (StackOverflowError err) {
 			throw new InfiniteRepetition(latestStep);
 		}
 	}
 
-	private void triggerSystemReactionForSteps(Object message, Collection<Step> steps) {
-		Step step = null;
+	private Collection<Step> getCachedStepsThatCanReactTo(Class<?> messageClass) {
+		int latestStepOrdinal = getLatestStepOrdinal();
+		if (!isRunning || latestStepOrdinal < 0 || !stepPartition.isConditionFreeTransition(messageClass)) {
+			return findStepsThatCanReactTo(messageClass);
+		}
+
+		int index = transitionCache.indexOf(latestStepOrdinal, messageClass);
+		if (index >= 0) {
+			Step cachedStep = transitionCache.stepAt(index);
+			return cachedStep == null ? Collections.emptySet() : Collections.singleton(cachedStep);
+		}
+
+		Collection<Step> stepsThatCanReact = findStepsThatCanReactTo(messageClass);
+		if (stepsThatCanReact.size() <= 1) {
+			Step stepThatCanReact = stepsThatCanReact.isEmpty() ? null : stepsThatCanReact.iterator().next();
+			transitionCache.put(latestStepOrdinal, messageClass, stepThatCanReact);
+		}
+		return stepsThatCanReact;
+	}
+
+	private Collection<Step> findStepsThatCanReactTo(Class<?> messageClass) {
+		if (dispatchMode.checksAllMatches(++dispatchedMessageCount)) {
+			return getStepsThatCanReactTo(messageClass);
+		}
+		Step stepThatCanReact = getFirstStepThatCanReactTo(messageClass);
+		return stepThatCanReact == null ? Collections.emptySet() : Collections.singleton(stepThatCanReact);
+	}
+
+	private Step getFirstStepThatCanReactTo(Class<?> messageClass) {
+		if (!isRunning) {
+			return null;
+		}
+		for (Step step : stepPartition.getCandidateSteps(messageClass)) {
+			if (hasTruePredicate(step)) {
+				return step;
+			}
+		}
+		return null;
+	}
+
+	int getCachedTransitionCount() {
+		return transitionCache != null ? transitionCache.size() : 0;
+	}
+
+	private int getLatestStepOrdinal() {
+		if (latestStep == null) {
+			return 0;
+		}
+		return stepPartition.getStepOrdinal(latestStep);
+	}
 
+	private void triggerSystemReactionForSteps(Object message, Collection<Step> steps) {
 		if (steps.size() == 1) {
-			step = steps.iterator().next();
+			Step step = steps.iterator().next();
 			triggerSystemReactionForStep(message, step);
 		} else if (steps.size() > 1) {
-			throw new MoreThanOneStepCanReact(steps);
-		} else if (unhandledMessageHandler != null && !isSystemEvent(message)) {
+			throw new MoreThanOneStepCanReact(steps, capturesStackTraces);
+		} else {
+			handleUnhandledMessage(message);
+		}
+	}
+
+	private void handleUnhandledMessage(Object message) {
+		boolean isRethrown = unhandledMessageHandler == null && message instanceof RuntimeException;
+		if (eventSink != null && !isSystemEvent(message) && !isRethrown) {
+			if (handlerDepth == 0 && message == sinkInputMessage) {
+				isSinkInputMessageUnhandled = true;
+			}
+			eventSink.unhandledMessage(message);
+		}
+
+		if (unhandledMessageHandler != null && !isSystemEvent(message)) {
 			unhandledMessageHandler.accept(message);
-		} else if (message instanceof RuntimeException) {
+		} else if (isRethrown) {
 			throw (RuntimeException) message;
 		}
 	}
@@ -274,18 +833,41 @@ public class ModelRunner {
 			throw new MissingUseCaseStepPart(step, "system");
 		}
 
-		stepToBeRun.setupWith(step, message, eventPublisher);
+		StepToBeRun stepToBeRun = getStepToBeRunAtCurrentDepth();
+		stepToBeRun.setupWith(step, message, context, eventPublisher);
 		recordStepNameAndMessage(step, message);
 
 		setLatestStep(step);
+		stepsRunInDispatch++;
 
 		try {
-			messageHandler.accept(stepToBeRun);
+			handleAtNextDepth(stepToBeRun);
 		} catch (Exception e) {
 			handleException(e);
 		}
 
-		triggerAutonomousSystemReaction();
+		continueAutonomously();
+	}
+
+	private StepToBeRun getStepToBeRunAtCurrentDepth() {
+		if (handlerDepth == stepsToBeRun.length) {
+			stepsToBeRun = Arrays.copyOf(stepsToBeRun, stepsToBeRun.length * 2);
+		}
+		StepToBeRun stepToBeRun = stepsToBeRun[handlerDepth];
+		if (stepToBeRun == null) {
+			stepToBeRun = new StepToBeRun();
+			stepsToBeRun[handlerDepth] = stepToBeRun;
+		}
+		return stepToBeRun;
+	}
+
+	private void handleAtNextDepth(StepToBeRun stepToBeRun) {
+		handlerDepth++;
+		try {
+			messageHandler.accept(stepToBeRun);
+		} finally {
+			handlerDepth--;
+		}
 	}
 
 	void recordStepNameAndMessage(Step step, Object message) {
@@ -339,25 +921,50 @@ public class ModelRunner {
 	public Set<Step> getStepsThatCanReactTo(Class<? extends Object> messageClass) {
 		Objects.requireNonNull(messageClass);
 
-		Set<Step> stepsThatCanReact = getStepsInStreamThatCanReactTo(messageClass, getRunningStepStream());
+		Set<Step> stepsThatCanReact = new HashSet<>();
+		if (isRunning) {
+			for (Step step : stepPartition.getCandidateSteps(messageClass)) {
+				if (hasTruePredicate(step)) {
+					stepsThatCanReact.add(step);
+				}
+			}
+		}
 		return stepsThatCanReact;
 	}
 
-	Stream<Step> getRunningStepStream() {
-		Stream<Step> stepStream = isRunning ? steps.stream() : Stream.empty();
-		return stepStream;
+	/**
+	 * Checks whether any step the runner runs as its current actor has a message
+	 * class that matches the specified class, regardless of the steps' predicates.
+	 *
+	 * @param messageClass the class of messages
+	 * @return true if the runner may react to such messages in some state
+	 */
+	boolean mayReactTo(Class<?> messageClass) {
+		return stepPartition != null && stepPartition.getCandidateSteps(messageClass).length > 0;
 	}
 
-	Set<Step> getStepsInStreamThatCanReactTo(Class<? extends Object> messageClass, Stream<Step> stepStream) {
-		Set<Step> steps = stepStream.filter(step -> stepEventClassIsSameOrSuperclassAsEventClass(step, messageClass))
-				.filter(step -> hasTruePredicate(step)).collect(Collectors.toSet());
-		return steps;
+	Stream<Step> getRunningStepStream() {
+		Stream<Step> stepStream = isRunning ? stepPartition.getSteps().stream() : Stream.empty();
+		return stepStream;
 	}
 
-	private boolean stepEventClassIsSameOrSuperclassAsEventClass(Step useCaseStep, Class<?> currentEventClass) {
-		Class<?> stepEventClass = useCaseStep.getMessageClass();
-		boolean result = stepEventClass.isAssignableFrom(currentEventClass);
-		return result;
+	/**
+	 * Checks whether an interrupting step, i.e. the first step of a flow with a
+	 * flow position or condition, can react to messages of the specified class.
+	 * Only the candidate steps of the class are looked at.
+	 *
+	 * @param messageClass the class of messages
+	 * @return true if an interrupting step can react, false otherwise
+	 */
+	boolean canInterruptingStepReactTo(Class<?> messageClass) {
+		if (isRunning) {
+			for (Step step : stepPartition.getCandidateSteps(messageClass)) {
+				if (step instanceof InterruptingFlowStep && hasTruePredicate(step)) {
+					return true;
+				}
+			}
+		}
+		return false;
 	}
 
 	private boolean hasTruePredicate(Step step) {
@@ -366,6 +973,57 @@ public class ModelRunner {
 		return result;
 	}
 
+	boolean isConditionTrue(Condition condition) {
+		boolean result;
+		if (condition instanceof VersionedCondition) {
+			VersionedCondition versionedCondition = (VersionedCondition) condition;
+			result = isVersionedConditionTrue(condition, versionedCondition.getVersion(), versionedCondition::evaluate);
+		} else {
+			result = condition.evaluate();
+		}
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	boolean isContextConditionTrue(ContextCondition<?> contextCondition) {
+		boolean result;
+		if (contextCondition instanceof VersionedContextCondition) {
+			VersionedContextCondition<Object> versionedCondition = (VersionedContextCondition<Object>) contextCondition;
+			result = isVersionedConditionTrue(contextCondition, versionedCondition.getVersion(context),
+					() -> versionedCondition.test(context));
+		} else {
+			result = ((ContextCondition<Object>) contextCondition).test(context);
+		}
+		return result;
+	}
+
+	private boolean isVersionedConditionTrue(Object condition, long version, BooleanSupplier evaluation) {
+		ConditionResult conditionResult = versionedConditionResults.get(condition);
+
+		if (conditionResult == null) {
+			conditionResult = new ConditionResult(version, evaluation.getAsBoolean());
+			versionedConditionResults.put(condition, conditionResult);
+		} else if (conditionResult.version != version) {
+			conditionResult.version = version;
+			conditionResult.result = evaluation.getAsBoolean();
+		}
+		return conditionResult.result;
+	}
+
+	/**
+	 * The result of the latest evaluation of a versioned condition, and the state
+	 * version it was evaluated for.
+	 */
+	private static class ConditionResult {
+		private long version;
+		private boolean result;
+
+		ConditionResult(long version, boolean result) {
+			this.version = version;
+			this.result = result;
+		}
+	}
+
 	/**
 	 * Overwrite this method to control what happens exactly when an exception is
 	 * thrown by a system reaction. The behavior implemented in runner: the model
@@ -0,0 +1,118 @@
+package org.requirementsascode;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * A model that is built once, for a type of context, and is then bound to
+ * many context objects of that type.
+ *
+ * <p>
+ * Building a model for each object, for example for each event sourced
+ * aggregate, with method references to that object, costs time and memory. A
+ * template's system reactions are {@link ContextReaction}s and its conditions
+ * are {@link ContextCondition}s instead. They don't reference a specific
+ * object, but receive the context the runner has been bound to with
+ * {@link ModelRunner#run(ModelTemplate, Object)}. So a single template can be
+ * kept in a static field, and binding it to an object is cheap.
+ *
+ * <p>
+ * A template's model may contain ordinary system reactions and conditions as
+ * well. These don't receive the context.
+ *
+ * @author b_muth
+ *
+ * @param <C> the type of context
+ */
+public class ModelTemplate<C> {
+	private final Class<C> contextClass;
+	private final Model model;
+
+	private ModelTemplate(Class<C> contextClass, Model model) {
+		this.contextClass = Objects.requireNonNull(contextClass);
+		this.model = Objects.requireNonNull(model);
+	}
+
+	/**
+	 * Creates a template from the specified model, for contexts of the specified
+	 * class.
+	 *
+	 * @param <C>          the type of context
+	 * @param contextClass the class of contexts the template can be bound to
+	 * @param model        the model, containing context reactions and conditions
+	 * @return the template
+	 */
+	public static <C> ModelTemplate<C> of(Class<C> contextClass, Model model) {
+		return new ModelTemplate<>(contextClass, model);
+	}
+
+	/**
+	 * Creates a system reaction that is performed on the runner's context, for
+	 * use in a template's model.
+	 *
+	 * @param <C>      the type of context
+	 * @param <T>      the type of message
+	 * @param reaction the reaction, receiving the context and the message
+	 * @return the context reaction
+	 */
+	public static <C, T> ContextReaction<C, T> reaction(BiConsumer<C, T> reaction) {
+		Objects.requireNonNull(reaction);
+
+		return new ContextReaction<C, T>() {
+			@Override
+			public void accept(C context, T message) {
+				reaction.accept(context, message);
+			}
+		};
+	}
+
+	/**
+	 * Creates a condition that is evaluated for the runner's context, for use in a
+	 * template's model.
+	 *
+	 * @param <C>       the type of context
+	 * @param condition the condition, receiving the context
+	 * @return the context condition
+	 */
+	public static <C> ContextCondition<C> condition(Predicate<C> condition) {
+		Objects.requireNonNull(condition);
+		return condition::test;
+	}
+
+	/**
+	 * Creates a condition that is evaluated for the runner's context, and only
+	 * evaluated again when the version of the context's state changes.
+	 *
+	 * @param <C>          the type of context
+	 * @param condition    the condition, receiving the context
+	 * @param stateVersion returns the version of the context's state the condition
+	 *                     depends on
+	 * @return the versioned context condition
+	 */
+	public static <C> VersionedContextCondition<C> condition(Predicate<C> condition, ToLongFunction<C> stateVersion) {
+		Objects.requireNonNull(condition);
+		Objects.requireNonNull(stateVersion);
+
+		return new VersionedContextCondition<C>() {
+			@Override
+			public boolean test(C context) {
+				return condition.test(context);
+			}
+
+			@Override
+			public long getVersion(C context) {
+				return stateVersion.applyAsLong(context);
+			}
+		};
+	}
+
+	public Class<C> getContextClass() {
+		return contextClass;
+	}
+
+	public Model getModel() {
+		return model;
+	}
+}
@@ -0,0 +1,100 @@
+package org.requirementsascode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Buffers the events a model runner publishes, and passes them to a batch sink
+ * in batches, e.g. to write them to a file, socket or database with a single
+ * call per batch instead of one call per event.
+ *
+ * <p>
+ * A batch is flushed when it has reached the maximum batch size, when an event
+ * is added and the oldest buffered event has been waiting for at least the
+ * maximum delay, or when {@link #flush()} is called. So at most the maximum
+ * batch size of events is buffered. A runner the outbox has been set for with
+ * {@link ModelRunner#publishTo(Outbox)} flushes it after each call of
+ * {@link ModelRunner#reactTo(Object)} that completes normally, and when it is
+ * stopped.
+ *
+ * <p>
+ * An outbox is not thread safe. Use it for a single runner.
+ *
+ * @author b_muth
+ *
+ */
+public class Outbox {
+	private final Consumer<List<Object>> batchSink;
+	private final int maxBatchSize;
+	private final long maxDelayNanos;
+	private final LongSupplier nanoClock;
+	private List<Object> bufferedEvents;
+	private long oldestEventTime;
+
+	/**
+	 * Creates an outbox that passes batches of events to the specified sink.
+	 *
+	 * @param batchSink    the sink, which receives a new list for each batch,
+	 *                     with the events in the order they were published
+	 * @param maxBatchSize the maximum number of events per batch, at least 1
+	 * @param maxDelay     the maximum time an event is buffered, checked when the
+	 *                     next event is added
+	 */
+	public Outbox(Consumer<List<Object>> batchSink, int maxBatchSize, Duration maxDelay) {
+		this(batchSink, maxBatchSize, maxDelay, System::nanoTime);
+	}
+
+	Outbox(Consumer<List<Object>> batchSink, int maxBatchSize, Duration maxDelay, LongSupplier nanoClock) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("The maximum batch size must be at least 1, but is " + maxBatchSize);
+		}
+		this.batchSink = Objects.requireNonNull(batchSink);
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayNanos = Objects.requireNonNull(maxDelay).toNanos();
+		this.nanoClock = Objects.requireNonNull(nanoClock);
+		this.bufferedEvents = new ArrayList<>();
+	}
+
+	/**
+	 * Adds the specified event to the buffer, and flushes the buffer if the
+	 * maximum batch size or delay has been reached.
+	 *
+	 * @param event the event
+	 */
+	public void add(Object event) {
+		Objects.requireNonNull(event);
+		long now = nanoClock.getAsLong();
+		if (bufferedEvents.isEmpty()) {
+			oldestEventTime = now;
+		}
+		bufferedEvents.add(event);
+		if (bufferedEvents.size() >= maxBatchSize || now - oldestEventTime >= maxDelayNanos) {
+			flush();
+		}
+	}
+
+	/**
+	 * Passes the buffered events to the batch sink, if there are any.
+	 */
+	public void flush() {
+		if (bufferedEvents.isEmpty()) {
+			return;
+		}
+		List<Object> batch = bufferedEvents;
+		bufferedEvents = new ArrayList<>();
+		batchSink.accept(batch);
+	}
+
+	/**
+	 * Returns the number of buffered events.
+	 *
+	 * @return the number of events that haven't been flushed yet
+	 */
+	public int getSize() {
+		return bufferedEvents.size();
+	}
+}
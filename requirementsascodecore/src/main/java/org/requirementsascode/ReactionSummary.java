@@ -0,0 +1,62 @@
+package org.requirementsascode;
+
+import java.util.Optional;
+
+/**
+ * The result of {@link ModelRunner#reactToAll(Iterable, EventSink)}: how many
+ * of the messages passed in were handled by a step, how many were not, and the
+ * exception that stopped the runner from reacting to further messages, if
+ * there was one.
+ *
+ * @author b_muth
+ *
+ */
+public class ReactionSummary {
+	private final long handledCount;
+	private final long unhandledCount;
+	private final RuntimeException failure;
+
+	ReactionSummary(long handledCount, long unhandledCount, RuntimeException failure) {
+		this.handledCount = handledCount;
+		this.unhandledCount = unhandledCount;
+		this.failure = failure;
+	}
+
+	/**
+	 * Returns the number of messages a step reacted to. Published events are not
+	 * counted.
+	 *
+	 * @return the number of handled messages
+	 */
+	public long getHandledCount() {
+		return handledCount;
+	}
+
+	/**
+	 * Returns the number of messages no step could react to. Published events are
+	 * not counted.
+	 *
+	 * @return the number of unhandled messages
+	 */
+	public long getUnhandledCount() {
+		return unhandledCount;
+	}
+
+	/**
+	 * Returns the exception the runner threw while reacting to the message after
+	 * the handled and unhandled ones. The runner didn't react to the messages
+	 * after that message.
+	 *
+	 * @return the exception, or an empty optional if the runner reacted to all
+	 *         messages
+	 */
+	public Optional<RuntimeException> getFailure() {
+		return Optional.ofNullable(failure);
+	}
+
+	@Override
+	public String toString() {
+		return "ReactionSummary [handledCount=" + handledCount + ", unhandledCount=" + unhandledCount + ", failure="
+				+ failure + "]";
+	}
+}
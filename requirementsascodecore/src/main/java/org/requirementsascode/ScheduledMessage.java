@@ -0,0 +1,67 @@
+package org.requirementsascode;
+
+import java.util.Objects;
+
+/**
+ * A message scheduled for a runner with a {@link MessageScheduler}.
+ *
+ * @author b_muth
+ *
+ * @param <K> the type of keys that identify runners
+ */
+public class ScheduledMessage<K> {
+	static final int SCHEDULED = 0;
+	static final int DUE = 1;
+	static final int DELIVERED = 2;
+	static final int CANCELLED = 3;
+
+	private final MessageScheduler<K> scheduler;
+	private final K runnerKey;
+	private final Object message;
+	final long dueTick;
+	final long sequenceNumber;
+	int state;
+	int level;
+	ScheduledMessage<K> previousInSlot;
+	ScheduledMessage<K> nextInSlot;
+	ScheduledMessage<K> previousOfRunner;
+	ScheduledMessage<K> nextOfRunner;
+
+	ScheduledMessage(MessageScheduler<K> scheduler, K runnerKey, Object message, long dueTick, long sequenceNumber) {
+		this.scheduler = Objects.requireNonNull(scheduler);
+		this.runnerKey = Objects.requireNonNull(runnerKey);
+		this.message = Objects.requireNonNull(message);
+		this.dueTick = dueTick;
+		this.sequenceNumber = sequenceNumber;
+		this.state = SCHEDULED;
+	}
+
+	public K getRunnerKey() {
+		return runnerKey;
+	}
+
+	public Object getMessage() {
+		return message;
+	}
+
+	/**
+	 * Returns whether the message will still be passed to the message consumer of
+	 * the scheduler.
+	 *
+	 * @return true if the message has neither been passed to the consumer, nor
+	 *         been cancelled
+	 */
+	public boolean isPending() {
+		return state == SCHEDULED || state == DUE;
+	}
+
+	/**
+	 * Cancels the message, if it hasn't been passed to the message consumer yet.
+	 *
+	 * @return true if the message has been cancelled, false if it had been passed
+	 *         to the consumer or cancelled before
+	 */
+	public boolean cancel() {
+		return scheduler.cancel(this);
+	}
+}
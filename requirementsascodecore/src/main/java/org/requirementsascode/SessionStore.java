@@ -0,0 +1,372 @@
+package org.requirementsascode;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.requirementsascode.exception.NoSuchElementInModel;
+
+/**
+ * Holds the model runners of sessions, e.g. one runner per user, and keeps only
+ * the runners of active sessions in memory.
+ *
+ * <p>
+ * At most the maximum number of runners are active. When a session is
+ * accessed and the maximum has been exceeded, the runner of the least recently
+ * accessed session is evicted. Runners that haven't been accessed for the
+ * maximum idle time are evicted as well, when another session is accessed, or
+ * {@link #evictIdle()} is called. An evicted runner is passivated: its position
+ * in the model, i.e. its latest step, whether it is running and whether it has
+ * pending work, is written to a file in the passivation directory, and the
+ * runner is dropped. If writing the file fails, the runner stays active. When
+ * the session is accessed again, a new runner is created and its position is
+ * restored, transparently for the caller. The file is deleted only after the
+ * runner has been restored. So memory is bounded by the number of active
+ * sessions, not by the number of all sessions.
+ *
+ * <p>
+ * The runners are created by a runner factory, and run with the model by the
+ * store. The factory should configure the runner, e.g. its actor and
+ * publisher, but not run it. A restored runner gets the model and its position,
+ * so it continues where it was passivated. Restoring it doesn't trigger
+ * autonomous system reactions, as the runner would not have triggered them if
+ * it had stayed active. Only the position is passivated:
+ * any other state of a session, e.g. the context of a model template, must be
+ * restored by the application.
+ *
+ * <p>
+ * The passivation file of a session is named after the hexadecimal UTF-8 bytes
+ * of the session id, so session ids should be short enough for file names.
+ *
+ * <p>
+ * A session store is not thread safe. Use it from a single thread.
+ *
+ * @author b_muth
+ *
+ */
+public class SessionStore {
+	private static final byte SNAPSHOT_VERSION = 1;
+	private static final String SNAPSHOT_FILE_SUFFIX = ".position";
+	private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+	private final Model model;
+	private final Supplier<ModelRunner> runnerFactory;
+	private final int maxActiveSessions;
+	private final long maxIdleNanos;
+	private final Path passivationDirectory;
+	private final LongSupplier nanoClock;
+	private final LinkedHashMap<String, ActiveSession> activeSessions;
+	private long hitCount;
+	private long missCount;
+	private long passivationCount;
+	private long activationCount;
+
+	/**
+	 * Creates a session store.
+	 *
+	 * @param model                the model the runners are run with
+	 * @param runnerFactory        creates a runner that hasn't been run yet, for
+	 *                             a new or reactivated session
+	 * @param maxActiveSessions    the maximum number of runners in memory, at
+	 *                             least 1
+	 * @param maxIdleTime          the time after which a runner that hasn't been
+	 *                             accessed is passivated, positive
+	 * @param passivationDirectory the existing directory the positions of
+	 *                             passivated sessions are written to
+	 */
+	public SessionStore(Model model, Supplier<ModelRunner> runnerFactory, int maxActiveSessions, Duration maxIdleTime,
+			Path passivationDirectory) {
+		this(model, runnerFactory, maxActiveSessions, maxIdleTime, passivationDirectory, System::nanoTime);
+	}
+
+	SessionStore(Model model, Supplier<ModelRunner> runnerFactory, int maxActiveSessions, Duration maxIdleTime,
+			Path passivationDirectory, LongSupplier nanoClock) {
+		if (maxActiveSessions < 1) {
+			throw new IllegalArgumentException(
+					"The maximum number of active sessions must be at least 1, but is " + maxActiveSessions);
+		}
+		this.model = Objects.requireNonNull(model);
+		this.runnerFactory = Objects.requireNonNull(runnerFactory);
+		this.maxActiveSessions = maxActiveSessions;
+		this.maxIdleNanos = Objects.requireNonNull(maxIdleTime).toNanos();
+		if (maxIdleNanos < 1) {
+			throw new IllegalArgumentException("The maximum idle time must be positive, but is " + maxIdleTime);
+		}
+		this.passivationDirectory = Objects.requireNonNull(passivationDirectory);
+		this.nanoClock = Objects.requireNonNull(nanoClock);
+		this.activeSessions = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns the runner of the session with the specified id. If the session
+	 * isn't active, its runner is restored if it has been passivated, or created
+	 * otherwise. Then runners are evicted, if necessary. Don't keep the returned
+	 * runner, as it is dropped when it is evicted.
+	 *
+	 * @param sessionId the id of the session
+	 * @return the runner of the session
+	 */
+	public ModelRunner get(String sessionId) {
+		Objects.requireNonNull(sessionId);
+		long now = nanoClock.getAsLong();
+		ActiveSession activeSession = activeSessions.get(sessionId);
+		if (activeSession != null) {
+			hitCount++;
+		} else {
+			missCount++;
+			activeSession = new ActiveSession(activate(sessionId));
+			activeSessions.put(sessionId, activeSession);
+		}
+		activeSession.lastAccessTime = now;
+		evict(now);
+		return activeSession.runner;
+	}
+
+	/**
+	 * Makes the runner of the session with the specified id react to the specified
+	 * message. See {@link #get(String)} and {@link ModelRunner#reactTo(Object)}.
+	 *
+	 * @param sessionId the id of the session
+	 * @param message   the message
+	 * @return the event that was published (latest) if the system reacted. Null
+	 *         otherwise.
+	 */
+	public Optional<Object> reactTo(String sessionId, Object message) {
+		return get(sessionId).reactTo(message);
+	}
+
+	/**
+	 * Removes the session with the specified id, e.g. after it has ended. Its
+	 * runner is dropped, and its passivated position is deleted.
+	 *
+	 * @param sessionId the id of the session
+	 */
+	public void remove(String sessionId) {
+		Objects.requireNonNull(sessionId);
+		activeSessions.remove(sessionId);
+		try {
+			Files.deleteIfExists(snapshotFile(sessionId));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Passivates the runners that haven't been accessed for the maximum idle time.
+	 *
+	 * @return the number of passivated runners
+	 */
+	public int evictIdle() {
+		long passivationCountBefore = passivationCount;
+		evict(nanoClock.getAsLong());
+		return (int) (passivationCount - passivationCountBefore);
+	}
+
+	/**
+	 * Passivates the runners of all active sessions, e.g. before the application
+	 * shuts down.
+	 */
+	public void passivateAll() {
+		List<String> sessionIds = new ArrayList<>(activeSessions.keySet());
+		for (String sessionId : sessionIds) {
+			passivate(sessionId, activeSessions.get(sessionId).runner);
+			activeSessions.remove(sessionId);
+		}
+	}
+
+	/**
+	 * Returns the number of runners in memory.
+	 *
+	 * @return the number of active sessions
+	 */
+	public int getActiveCount() {
+		return activeSessions.size();
+	}
+
+	/**
+	 * Returns how often the runner of an active session has been accessed.
+	 *
+	 * @return the number of hits
+	 */
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns how often a session has been accessed that wasn't active, so that
+	 * its runner had to be restored or created.
+	 *
+	 * @return the number of misses
+	 */
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns how often a runner has been passivated.
+	 *
+	 * @return the number of passivations
+	 */
+	public long getPassivationCount() {
+		return passivationCount;
+	}
+
+	/**
+	 * Returns how often a runner has been restored from its passivated position.
+	 * The other misses created new runners.
+	 *
+	 * @return the number of activations
+	 */
+	public long getActivationCount() {
+		return activationCount;
+	}
+
+	private void evict(long now) {
+		Iterator<Map.Entry<String, ActiveSession>> leastRecentlyAccessed = activeSessions.entrySet().iterator();
+		while (leastRecentlyAccessed.hasNext()) {
+			Map.Entry<String, ActiveSession> entry = leastRecentlyAccessed.next();
+			boolean isIdle = now - entry.getValue().lastAccessTime >= maxIdleNanos;
+			if (!isIdle && activeSessions.size() <= maxActiveSessions) {
+				break;
+			}
+			passivate(entry.getKey(), entry.getValue().runner);
+			leastRecentlyAccessed.remove();
+		}
+	}
+
+	private ModelRunner activate(String sessionId) {
+		ModelRunner runner = Objects.requireNonNull(runnerFactory.get());
+		Path snapshotFile = snapshotFile(sessionId);
+		if (!Files.exists(snapshotFile)) {
+			return runner.run(model);
+		}
+
+		boolean isRunning;
+		boolean hasPendingWork;
+		Step latestStep;
+		try (DataInputStream snapshot = new DataInputStream(Files.newInputStream(snapshotFile))) {
+			int version = snapshot.readByte();
+			if (version != SNAPSHOT_VERSION) {
+				throw new IOException("Unknown version of position snapshot: " + version);
+			}
+			isRunning = snapshot.readBoolean();
+			hasPendingWork = snapshot.readBoolean();
+			int stepOrdinal = snapshot.readInt();
+			String stepName = snapshot.readUTF();
+			latestStep = findStep(stepOrdinal, stepName);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		runner.startWith(model);
+		runner.loadPosition(latestStep, isRunning, hasPendingWork);
+		delete(snapshotFile);
+		activationCount++;
+		return runner;
+	}
+
+	/**
+	 * Writes the position of the runner to a temporary file first, and then moves
+	 * it to the snapshot file atomically. So a crash while passivating leaves
+	 * either the previous snapshot or the new one, never a partially written one.
+	 */
+	private void passivate(String sessionId, ModelRunner runner) {
+		Step latestStep = runner.getLatestStep().orElse(null);
+		Path snapshotFile = snapshotFile(sessionId);
+		Path temporaryFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + TEMPORARY_FILE_SUFFIX);
+		try {
+			try (DataOutputStream snapshot = new DataOutputStream(Files.newOutputStream(temporaryFile))) {
+				snapshot.writeByte(SNAPSHOT_VERSION);
+				snapshot.writeBoolean(runner.isRunning());
+				snapshot.writeBoolean(runner.hasPendingWork());
+				snapshot.writeInt(stepOrdinal(latestStep));
+				snapshot.writeUTF(latestStep == null ? "" : latestStep.getName());
+			}
+			Files.move(temporaryFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE,
+					StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			deleteIfExists(temporaryFile, e);
+			throw new UncheckedIOException(e);
+		}
+		passivationCount++;
+	}
+
+	private void delete(Path file) {
+		try {
+			Files.delete(file);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void deleteIfExists(Path file, IOException failure) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			failure.addSuppressed(e);
+		}
+	}
+
+	/**
+	 * Returns the position of the specified step in the model's steps, starting
+	 * at 1, or 0 if there is no step.
+	 */
+	private int stepOrdinal(Step step) {
+		if (step == null) {
+			return 0;
+		}
+		int ordinal = 1;
+		for (Step modelStep : model.getModifiableSteps()) {
+			if (modelStep == step) {
+				return ordinal;
+			}
+			ordinal++;
+		}
+		throw new NoSuchElementInModel(step.getName());
+	}
+
+	private Step findStep(int stepOrdinal, String stepName) {
+		if (stepOrdinal == 0) {
+			return null;
+		}
+		Collection<Step> steps = model.getModifiableSteps();
+		Step step = stepOrdinal <= steps.size() ? steps.stream().skip(stepOrdinal - 1).findFirst().get() : null;
+		if (step == null || !step.getName().equals(stepName)) {
+			throw new NoSuchElementInModel(stepName);
+		}
+		return step;
+	}
+
+	private Path snapshotFile(String sessionId) {
+		StringBuilder fileName = new StringBuilder();
+		for (byte b : sessionId.getBytes(StandardCharsets.UTF_8)) {
+			fileName.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return passivationDirectory.resolve(fileName.append(SNAPSHOT_FILE_SUFFIX).toString());
+	}
+
+	private static class ActiveSession {
+		private final ModelRunner runner;
+		private long lastAccessTime;
+
+		private ActiveSession(ModelRunner runner) {
+			this.runner = runner;
+		}
+	}
+}
@@ -0,0 +1,331 @@
+package org.requirementsascode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import org.requirementsascode.exception.NoSuchElementInModel;
+
+/**
+ * Holds the state of many sessions of a model in columns of primitive values,
+ * instead of a model runner per session. The state of a session is its
+ * position: the ordinal of the latest step it has run, whether it is running,
+ * and whether it has pending work (see {@link ModelRunner#hasPendingWork()}).
+ * So a session takes about 4 bytes, and tens of millions of sessions fit into a
+ * few hundred megabytes. The ordinals are stored in an int buffer, either on
+ * the heap, or off the heap in a direct buffer, see {@link #onHeap} and
+ * {@link #offHeap}. The flags are stored in bit sets.
+ *
+ * <p>
+ * Sessions are identified by a dense index, starting at 0, in the order they
+ * have been added. A single dispatch runner reacts to the messages of all
+ * sessions: before it reacts to a message for a session, the session's
+ * position is loaded into the runner, and afterwards the runner's new position
+ * is stored in the table. Configure the dispatch runner like any other runner,
+ * e.g. with a publisher, or with {@link ModelRunner#cacheTransitions()}, which
+ * is shared by all sessions. Don't run it: the table runs it with the model.
+ * A step that stops the dispatch runner stops the session it runs for. If the
+ * runner throws an exception, the position it has reached is stored as well, as
+ * a runner would keep it.
+ *
+ * <p>
+ * The table is intended for models whose sessions' state is their position
+ * only. The conditions and system reactions are shared by all sessions, and
+ * must not depend on state of a session that is kept elsewhere. The model must
+ * not be changed after the table has been created.
+ *
+ * <p>
+ * A session table is not thread safe. Use it from a single thread.
+ *
+ * @author b_muth
+ *
+ */
+public class SessionTable {
+	private static final int NO_STEP = 0;
+
+	private final ModelRunner dispatchRunner;
+	private final IntFunction<IntBuffer> bufferAllocator;
+	private final Step[] steps;
+	private final Map<Step, Integer> stepOrdinals;
+	private IntBuffer latestStepOrdinals;
+	private long[] runningSessions;
+	private long[] sessionsWithPendingWork;
+	private int size;
+
+	private SessionTable(Model model, ModelRunner dispatchRunner, int initialCapacity,
+			IntFunction<IntBuffer> bufferAllocator) {
+		Objects.requireNonNull(model);
+		this.dispatchRunner = Objects.requireNonNull(dispatchRunner);
+		if (initialCapacity < 1) {
+			throw new IllegalArgumentException("The initial capacity must be at least 1, but is " + initialCapacity);
+		}
+		this.bufferAllocator = bufferAllocator;
+		this.steps = model.getModifiableSteps().toArray(new Step[0]);
+		this.stepOrdinals = new IdentityHashMap<>();
+		for (int i = 0; i < steps.length; i++) {
+			stepOrdinals.put(steps[i], i + 1);
+		}
+		this.latestStepOrdinals = bufferAllocator.apply(initialCapacity);
+		this.runningSessions = new long[bitSetLength(initialCapacity)];
+		this.sessionsWithPendingWork = new long[bitSetLength(initialCapacity)];
+		dispatchRunner.startWith(model);
+	}
+
+	/**
+	 * Creates a session table that stores the positions of sessions on the heap.
+	 *
+	 * @param model           the model of the sessions
+	 * @param dispatchRunner  the runner that reacts to messages for all sessions,
+	 *                        not run yet
+	 * @param initialCapacity the number of sessions the table has room for
+	 *                        initially, at least 1. The table grows if needed.
+	 * @return the session table
+	 */
+	public static SessionTable onHeap(Model model, ModelRunner dispatchRunner, int initialCapacity) {
+		return new SessionTable(model, dispatchRunner, initialCapacity, IntBuffer::allocate);
+	}
+
+	/**
+	 * Creates a session table that stores the positions of sessions in a direct
+	 * buffer, off the heap.
+	 *
+	 * @param model           the model of the sessions
+	 * @param dispatchRunner  the runner that reacts to messages for all sessions,
+	 *                        not run yet
+	 * @param initialCapacity the number of sessions the table has room for
+	 *                        initially, at least 1. The table grows if needed.
+	 * @return the session table
+	 */
+	public static SessionTable offHeap(Model model, ModelRunner dispatchRunner, int initialCapacity) {
+		return new SessionTable(model, dispatchRunner, initialCapacity,
+				capacity -> ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer());
+	}
+
+	/**
+	 * Adds a running session, and triggers its autonomous system reactions, as
+	 * {@link ModelRunner#run(Model)} does.
+	 *
+	 * @return the index of the session
+	 */
+	public int addSession() {
+		ensureCapacity(size + 1);
+		int session = size++;
+		latestStepOrdinals.put(session, NO_STEP);
+		setFlag(runningSessions, session, true);
+		dispatchRunner.loadPosition(null, true, true);
+		try {
+			dispatchRunner.resume();
+		} finally {
+			storePosition(session);
+		}
+		return session;
+	}
+
+	/**
+	 * Makes the specified session react to the specified message, as
+	 * {@link ModelRunner#reactTo(Object)} does. Messages for sessions that aren't
+	 * running are ignored.
+	 *
+	 * @param session the index of the session
+	 * @param message the message
+	 * @return the event that was published (latest) if the system reacted. Null
+	 *         otherwise.
+	 */
+	public Optional<Object> reactTo(int session, Object message) {
+		Objects.requireNonNull(message);
+		if (!isRunning(session)) {
+			return Optional.empty();
+		}
+		loadPosition(session);
+		try {
+			return dispatchRunner.reactTo(message);
+		} finally {
+			storePosition(session);
+		}
+	}
+
+	/**
+	 * Makes all running sessions whose latest step is the specified step react to
+	 * the specified message, e.g. to advance all sessions waiting at that step.
+	 * The sessions react in the order of their indexes. The ordinals are scanned
+	 * sequentially, so only the sessions at the step are loaded into the dispatch
+	 * runner.
+	 *
+	 * @param latestStep the latest step of the sessions, or null for sessions that
+	 *                   haven't run a step
+	 * @param message    the message
+	 * @return the number of sessions that have been passed the message
+	 */
+	public int reactToAllAt(Step latestStep, Object message) {
+		Objects.requireNonNull(message);
+		int stepOrdinal = stepOrdinal(latestStep);
+		int sessionCount = size;
+		int reactedCount = 0;
+		for (int session = 0; session < sessionCount; session++) {
+			if (latestStepOrdinals.get(session) == stepOrdinal && isRunning(session)) {
+				reactTo(session, message);
+				reactedCount++;
+			}
+		}
+		return reactedCount;
+	}
+
+	/**
+	 * Continues the pending work of the specified session, see
+	 * {@link ModelRunner#resume()}.
+	 *
+	 * @param session the index of the session
+	 * @return the event that was published (latest) if the system reacted. Null
+	 *         otherwise.
+	 */
+	public Optional<Object> resume(int session) {
+		if (!hasPendingWork(session)) {
+			return Optional.empty();
+		}
+		loadPosition(session);
+		try {
+			return dispatchRunner.resume();
+		} finally {
+			storePosition(session);
+		}
+	}
+
+	/**
+	 * Stops the specified session. It doesn't react to messages anymore.
+	 *
+	 * @param session the index of the session
+	 */
+	public void stop(int session) {
+		checkSession(session);
+		setFlag(runningSessions, session, false);
+	}
+
+	/**
+	 * Returns the latest step run by the specified session.
+	 *
+	 * @param session the index of the session
+	 * @return the latest step run
+	 */
+	public Optional<Step> getLatestStep(int session) {
+		checkSession(session);
+		return Optional.ofNullable(stepAt(latestStepOrdinals.get(session)));
+	}
+
+	/**
+	 * Returns whether the specified session is running.
+	 *
+	 * @param session the index of the session
+	 * @return true if the session is running, false if it has been stopped
+	 */
+	public boolean isRunning(int session) {
+		checkSession(session);
+		return getFlag(runningSessions, session);
+	}
+
+	/**
+	 * Returns whether the specified session is running and has yielded because
+	 * the dispatch runner's limit of steps per dispatch has been reached.
+	 *
+	 * @param session the index of the session
+	 * @return true if {@link #resume(int)} would run a step, false otherwise
+	 */
+	public boolean hasPendingWork(int session) {
+		return isRunning(session) && getFlag(sessionsWithPendingWork, session);
+	}
+
+	/**
+	 * Counts the running sessions whose latest step is the specified step.
+	 *
+	 * @param latestStep the latest step of the sessions, or null for sessions that
+	 *                   haven't run a step
+	 * @return the number of sessions
+	 */
+	public int countSessionsAt(Step latestStep) {
+		int stepOrdinal = stepOrdinal(latestStep);
+		int count = 0;
+		for (int session = 0; session < size; session++) {
+			if (latestStepOrdinals.get(session) == stepOrdinal && getFlag(runningSessions, session)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of sessions that have been added.
+	 *
+	 * @return the number of sessions
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	private void loadPosition(int session) {
+		dispatchRunner.loadPosition(stepAt(latestStepOrdinals.get(session)), getFlag(runningSessions, session),
+				getFlag(sessionsWithPendingWork, session));
+	}
+
+	private void storePosition(int session) {
+		latestStepOrdinals.put(session, stepOrdinal(dispatchRunner.getLatestStep().orElse(null)));
+		setFlag(runningSessions, session, dispatchRunner.isRunning());
+		setFlag(sessionsWithPendingWork, session, dispatchRunner.hasPendingWork());
+	}
+
+	private Step stepAt(int stepOrdinal) {
+		return stepOrdinal == NO_STEP ? null : steps[stepOrdinal - 1];
+	}
+
+	private int stepOrdinal(Step step) {
+		if (step == null) {
+			return NO_STEP;
+		}
+		Integer stepOrdinal = stepOrdinals.get(step);
+		if (stepOrdinal == null) {
+			throw new NoSuchElementInModel(step.getName());
+		}
+		return stepOrdinal;
+	}
+
+	private void ensureCapacity(int capacity) {
+		int currentCapacity = latestStepOrdinals.capacity();
+		if (capacity <= currentCapacity) {
+			return;
+		}
+		int newCapacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity, 2L * currentCapacity));
+		IntBuffer newLatestStepOrdinals = bufferAllocator.apply(newCapacity);
+		latestStepOrdinals.clear();
+		newLatestStepOrdinals.put(latestStepOrdinals);
+		newLatestStepOrdinals.clear();
+		latestStepOrdinals = newLatestStepOrdinals;
+		runningSessions = Arrays.copyOf(runningSessions, bitSetLength(newCapacity));
+		sessionsWithPendingWork = Arrays.copyOf(sessionsWithPendingWork, bitSetLength(newCapacity));
+	}
+
+	private void checkSession(int session) {
+		if (session < 0 || session >= size) {
+			throw new IndexOutOfBoundsException("No session with index " + session + ", size is " + size);
+		}
+	}
+
+	private static int bitSetLength(int capacity) {
+		return (capacity + Long.SIZE - 1) / Long.SIZE;
+	}
+
+	private static boolean getFlag(long[] bitSet, int index) {
+		return (bitSet[index >>> 6] & (1L << index)) != 0;
+	}
+
+	private static void setFlag(long[] bitSet, int index, boolean value) {
+		if (value) {
+			bitSet[index >>> 6] |= 1L << index;
+		} else {
+			bitSet[index >>> 6] &= ~(1L << index);
+		}
+	}
+}
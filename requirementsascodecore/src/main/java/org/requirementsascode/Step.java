@@ -23,19 +23,22 @@ public abstract class Step extends ModelElement implements Serializable {
 	private Class<?> messageClass;
 	private SystemReaction<?> systemReaction;
 	private Condition condition;
+	private ContextCondition<?> contextCondition;
 
 	/**
 	 * Creates a step with the specified name that belongs to the specified use
-	 * case.
+	 * case. At most one of the conditions may be specified.
 	 *
-	 * @param useCase   the use case this step belongs to
-	 * @param stepName  the name of the step to be created
-	 * @param condition
+	 * @param useCase          the use case this step belongs to
+	 * @param stepName         the name of the step to be created
+	 * @param condition        the condition, or null
+	 * @param contextCondition the context condition, or null
 	 */
-	Step(String stepName, UseCase useCase, Condition condition) {
+	Step(String stepName, UseCase useCase, Condition condition, ContextCondition<?> contextCondition) {
 		super(stepName, useCase.getModel());
 		this.useCase = useCase;
 		this.condition = condition;
+		this.contextCondition = contextCondition;
 	}
 
 	public abstract Predicate<ModelRunner> getPredicate();
@@ -48,12 +51,27 @@ public abstract class Step extends ModelElement implements Serializable {
 		return Optional.ofNullable(condition);
 	}
 
+	/**
+	 * Returns the condition that is evaluated for the context the runner has been
+	 * bound to, see {@link ModelTemplate}.
+	 *
+	 * @return the context condition, or an empty optional if the step has none
+	 */
+	public Optional<ContextCondition<?>> getContextCondition() {
+		return Optional.ofNullable(contextCondition);
+	}
+
+	boolean hasCondition() {
+		return condition != null || contextCondition != null;
+	}
+
 	public Actor[] getActors() {
 		return actors;
 	}
 
 	void setActors(Actor[] actors) {
 		this.actors = actors;
+		getModel().discardStepIndexes();
 	}
 
 	public Class<?> getMessageClass() {
@@ -62,6 +80,7 @@ public abstract class Step extends ModelElement implements Serializable {
 
 	void setMessageClass(Class<?> eventClass) {
 		this.messageClass = eventClass;
+		getModel().discardStepIndexes();
 	}
 
 	public SystemReaction<?> getSystemReaction() {
@@ -73,6 +92,24 @@ public abstract class Step extends ModelElement implements Serializable {
 	}
 
 	protected static Predicate<ModelRunner> toPredicate(Condition condition) {
-		return modelRunner -> condition.evaluate();
+		return modelRunner -> modelRunner.isConditionTrue(condition);
+	}
+
+	/**
+	 * Returns a predicate that evaluates the step's condition or context
+	 * condition, and is always true if the step has neither.
+	 *
+	 * @return the predicate
+	 */
+	Predicate<ModelRunner> getConditionPredicate() {
+		Predicate<ModelRunner> predicate;
+		if (contextCondition != null) {
+			predicate = modelRunner -> modelRunner.isContextConditionTrue(contextCondition);
+		} else if (condition != null) {
+			predicate = toPredicate(condition);
+		} else {
+			predicate = modelRunner -> true;
+		}
+		return predicate;
 	}
 }
@@ -0,0 +1,40 @@
+package org.requirementsascode;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The step partitions of all actors of a model, created by the model. See
+ * {@link Model#getStepPartition(Actor)}.
+ *
+ * <p>
+ * The partitions of the model's actors are created up front. Actors that are
+ * added to the model later get their partition when it's first needed.
+ *
+ * @author b_muth
+ *
+ */
+class StepIndex {
+	private final Collection<Step> steps;
+	private final ConcurrentMap<Actor, StepPartition> actorToStepPartition;
+	private final Map<Step, Integer> stepOrdinals;
+
+	StepIndex(Collection<Step> steps, Collection<Actor> actors) {
+		this.steps = steps;
+		this.stepOrdinals = new IdentityHashMap<>();
+		for (Step step : steps) {
+			stepOrdinals.put(step, stepOrdinals.size() + 1);
+		}
+		this.actorToStepPartition = new ConcurrentHashMap<>();
+		for (Actor actor : actors) {
+			actorToStepPartition.put(actor, new StepPartition(steps, actor, stepOrdinals));
+		}
+	}
+
+	StepPartition getStepPartition(Actor actor) {
+		return actorToStepPartition.computeIfAbsent(actor, a -> new StepPartition(steps, a, stepOrdinals));
+	}
+}
@@ -0,0 +1,47 @@
+package org.requirementsascode;
+
+import java.util.Objects;
+
+/**
+ * Two steps of a model that may react to the same message, after the same
+ * step, when the runner runs as the same actor. Found by an
+ * {@link AmbiguityAnalysis}.
+ *
+ * @author b_muth
+ *
+ */
+public class StepOverlap {
+	private final Step firstStep;
+	private final Step secondStep;
+	private final boolean isGuardedByCondition;
+
+	StepOverlap(Step firstStep, Step secondStep, boolean isGuardedByCondition) {
+		this.firstStep = Objects.requireNonNull(firstStep);
+		this.secondStep = Objects.requireNonNull(secondStep);
+		this.isGuardedByCondition = isGuardedByCondition;
+	}
+
+	public Step getFirstStep() {
+		return firstStep;
+	}
+
+	public Step getSecondStep() {
+		return secondStep;
+	}
+
+	/**
+	 * Returns whether at least one of the steps has a condition or reactWhile
+	 * condition. If so, the steps only react to the same message if the conditions
+	 * allow it at runtime.
+	 *
+	 * @return true if guarded by a condition, false if the steps always overlap
+	 */
+	public boolean isGuardedByCondition() {
+		return isGuardedByCondition;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + firstStep + "," + secondStep + ")";
+	}
+}
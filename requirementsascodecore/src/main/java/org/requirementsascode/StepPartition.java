@@ -0,0 +1,151 @@
+package org.requirementsascode;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+import org.requirementsascode.exception.MissingUseCaseStepPart;
+import org.requirementsascode.flowposition.After;
+import org.requirementsascode.flowposition.Anytime;
+import org.requirementsascode.flowposition.InsteadOf;
+
+/**
+ * The steps of a model that a {@link ModelRunner} reacts in when it runs as a
+ * certain actor: the steps that have the actor as one of their actors, and the
+ * steps of the system actor. Also contains the indexes that depend on these
+ * steps only, and not on a runner's state.
+ *
+ * <p>
+ * Instances are immutable and thread-safe, so they are shared by all runners of
+ * a model. See {@link Model#getStepPartition(Actor)}.
+ *
+ * @author b_muth
+ *
+ */
+class StepPartition {
+	private final Collection<Step> steps;
+	private final Map<Step, Integer> stepOrdinals;
+	private final ConcurrentMap<Class<?>, Step[]> messageClassToCandidateSteps;
+	private final ClassValue<Boolean> conditionFreeMessageClasses;
+
+	StepPartition(Collection<Step> modelSteps, Actor actor, Map<Step, Integer> stepOrdinals) {
+		Objects.requireNonNull(modelSteps);
+		Objects.requireNonNull(actor);
+		this.stepOrdinals = Objects.requireNonNull(stepOrdinals);
+
+		Set<Step> actorSteps = new LinkedHashSet<>();
+		for (Step step : modelSteps) {
+			if (anyStepActorIsRunActor(step, actor)) {
+				actorSteps.add(step);
+			}
+		}
+		this.steps = Collections.unmodifiableSet(actorSteps);
+		this.messageClassToCandidateSteps = new ConcurrentHashMap<>();
+		this.conditionFreeMessageClasses = new ClassValue<Boolean>() {
+			@Override
+			protected Boolean computeValue(Class<?> messageClass) {
+				return computeIsConditionFreeTransition(messageClass);
+			}
+		};
+	}
+
+	private static boolean anyStepActorIsRunActor(Step step, Actor runActor) {
+		Actor[] stepActors = step.getActors();
+		if (stepActors == null) {
+			throw (new MissingUseCaseStepPart(step, "actor"));
+		}
+
+		Actor systemActor = step.getModel().getSystemActor();
+		for (Actor stepActor : stepActors) {
+			if (stepActor.equals(systemActor) || stepActor.equals(runActor)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	Collection<Step> getSteps() {
+		return steps;
+	}
+
+	/**
+	 * Returns the position of the specified step in the model, starting at 1.
+	 *
+	 * @param step the step
+	 * @return the ordinal, or -1 if the step is not part of the model
+	 */
+	int getStepOrdinal(Step step) {
+		Integer ordinal = stepOrdinals.get(step);
+		return ordinal != null ? ordinal : -1;
+	}
+
+	/**
+	 * Returns the steps whose message class is the same class as, or a
+	 * superclass/interface of the specified message class, regardless of their
+	 * predicates. The steps are in model order. The index is built once per
+	 * message class, so dispatching a message, e.g. an exception to the steps
+	 * that handle it, doesn't need to look at every step of the model.
+	 *
+	 * <p>
+	 * The index is a map owned by the partition, not a {@link ClassValue}: the
+	 * steps reference the model, and a class value whose values reference it
+	 * would keep the model reachable from the message classes forever.
+	 *
+	 * @param messageClass the class of messages
+	 * @return the steps that may react to such messages
+	 */
+	Step[] getCandidateSteps(Class<?> messageClass) {
+		Step[] candidateSteps = messageClassToCandidateSteps.get(messageClass);
+		if (candidateSteps == null) {
+			candidateSteps = messageClassToCandidateSteps.computeIfAbsent(messageClass,
+					c -> stepsThatMatch(c).toArray(new Step[0]));
+		}
+		return candidateSteps;
+	}
+
+	/**
+	 * Checks whether the step reacting to messages of the specified class only
+	 * depends on the step run latest. That is the case if all steps that may react,
+	 * and all interrupting steps that may interrupt them, are condition-free.
+	 *
+	 * @param messageClass the class of messages
+	 * @return true if the transition for the class can be cached
+	 */
+	boolean isConditionFreeTransition(Class<?> messageClass) {
+		return conditionFreeMessageClasses.get(messageClass);
+	}
+
+	private boolean computeIsConditionFreeTransition(Class<?> messageClass) {
+		List<Step> candidateSteps = stepsThatMatch(messageClass);
+		boolean interruptingStepsAreConditionFree = steps.stream().filter(step -> step instanceof InterruptingFlowStep)
+				.filter(step -> candidateSteps.stream()
+						.anyMatch(candidate -> step.getMessageClass().isAssignableFrom(candidate.getMessageClass())))
+				.allMatch(StepPartition::isConditionFree);
+		return interruptingStepsAreConditionFree && candidateSteps.stream().allMatch(StepPartition::isConditionFree);
+	}
+
+	private static boolean isConditionFree(Step step) {
+		if (step.hasCondition()) {
+			return false;
+		} else if (step instanceof FlowStep) {
+			FlowStep flowStep = (FlowStep) step;
+			Class<?> flowPositionClass = flowStep.getFlowPosition().getClass();
+			return !flowStep.hasReactWhile() && (After.class.equals(flowPositionClass)
+					|| Anytime.class.equals(flowPositionClass) || InsteadOf.class.equals(flowPositionClass));
+		} else {
+			return step instanceof FlowlessStep;
+		}
+	}
+
+	private List<Step> stepsThatMatch(Class<?> messageClass) {
+		return steps.stream().filter(step -> step.getMessageClass().isAssignableFrom(messageClass))
+				.collect(Collectors.toList());
+	}
+}
@@ -90,6 +90,20 @@ public class StepSystemPart<T> {
 		return this;
 	}
 
+	/**
+	 * Makes the step react while the specified context condition is true, like
+	 * {@link #reactWhile(Condition)}. The condition is evaluated for the context
+	 * the runner has been bound to, see {@link ModelTemplate}.
+	 *
+	 * @param reactWhileCondition the condition to check
+	 * @return the system part
+	 */
+	public StepSystemPart<T> reactWhile(ContextCondition<?> reactWhileCondition) {
+		Objects.requireNonNull(reactWhileCondition);
+		((FlowStep) step).setReactWhile(reactWhileCondition);
+		return this;
+	}
+
 	StepPart getStepPart() {
 		return stepPart;
 	}
@@ -3,7 +3,6 @@ package org.requirementsascode;
 import java.io.Serializable;
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.function.Function;
 
 /**
  * Use an instance of this class if you want to find out the details about the
@@ -17,27 +16,40 @@ public class StepToBeRun implements Serializable {
 
 	private Step step; 
 	private Object message;
+	private Object context;
 	private Consumer<Object> eventPublisher;
 
 	StepToBeRun() {
 	}
 
+	private StepToBeRun(StepToBeRun stepToBeRun) {
+		this.step = stepToBeRun.step;
+		this.message = stepToBeRun.message;
+		this.context = stepToBeRun.context;
+		this.eventPublisher = stepToBeRun.eventPublisher;
+	}
+
+	/**
+	 * Returns a copy of this step to be run, that the runner doesn't change. Call
+	 * this method in a custom message handler if you want to run the step after
+	 * the handler has returned, e.g. asynchronously. As the runner isn't thread
+	 * safe, running the copy must not overlap with other calls to the runner.
+	 *
+	 * @return the copy
+	 * @see ModelRunner#handleWith(Consumer)
+	 */
+	public StepToBeRun detach() {
+		return new StepToBeRun(this);
+	}
+
 	/**
 	 * Triggers the system reaction of this step, and publishes the resulting
 	 * event.
 	 */
 	public void run() {
-		Object eventToBePublished = runSystemReactionOfStep();
-		if(eventToBePublished != null) {
-			eventPublisher.accept(eventToBePublished);
-		}
-	}
-	
-	private Object runSystemReactionOfStep() {
 		@SuppressWarnings("unchecked")
-		Function<Object, Object> systemReactionFunction = (Function<Object, Object>) step.getSystemReaction();
-		Object eventToBePublished = systemReactionFunction.apply(message);
-		return eventToBePublished;
+		SystemReaction<Object> systemReaction = (SystemReaction<Object>) step.getSystemReaction();
+		systemReaction.invoke(context, message, eventPublisher);
 	}
 
 	/**
@@ -54,10 +66,13 @@ public class StepToBeRun implements Serializable {
 	 * Returns the precondition that needs to be true to trigger the system reaction
 	 * when {@link #run()} is called.
 	 *
-	 * @return the condition, or an empty optional when no condition was specified.
+	 * @return the condition or context condition, or an empty optional when no
+	 *         condition was specified.
 	 */
 	public Optional<? extends Object> getCondition() {
-		Optional<? extends Object> optionalCondition = step.getCondition();
+		Optional<? extends Object> optionalCondition = step.getContextCondition().isPresent()
+				? step.getContextCondition()
+				: step.getCondition();
 		return optionalCondition;
 	}
 
@@ -87,9 +102,10 @@ public class StepToBeRun implements Serializable {
 		return systemReactionObject;
 	}
 
-	void setupWith(Step useCaseStep, Object message, Consumer<Object> eventPublisher) {
+	void setupWith(Step useCaseStep, Object message, Object context, Consumer<Object> eventPublisher) {
 		this.step = useCaseStep;
 		this.message = message;
+		this.context = context;
 		this.eventPublisher = eventPublisher;
 	}
 }
@@ -31,7 +31,20 @@ public class StepUserPart<T> {
 	 * @return the created system part of this step
 	 */
 	public StepSystemPart<T> system(Consumer<T> systemReaction) {
-		SystemReaction<T> systemReactionObject = new SystemReaction<>(systemReaction);
+		SystemReaction<T> systemReactionObject = SystemReaction.ofConsumer(systemReaction);
+		return createStepSystemPart(systemReactionObject);
+	}
+
+	/**
+	 * Defines the system reaction. The system will react as specified to the
+	 * message passed in, when {@link ModelRunner#reactTo(Object)} is called, and
+	 * receive the context the runner has been bound to, see {@link ModelTemplate}.
+	 *
+	 * @param systemReaction the specified context reaction
+	 * @return the created system part of this step
+	 */
+	public StepSystemPart<T> system(ContextReaction<?, T> systemReaction) {
+		SystemReaction<T> systemReactionObject = SystemReaction.ofContextReaction(systemReaction);
 		return createStepSystemPart(systemReactionObject);
 	}
 
@@ -50,12 +63,12 @@ public class StepUserPart<T> {
 	 * @return the created system part of this step
 	 */
 	public StepSystemPart<T> systemPublish(Function<T, Object> systemReaction) {
-		SystemReaction<T> systemReactionObject = new SystemReaction<>(systemReaction);
+		SystemReaction<T> systemReactionObject = SystemReaction.ofFunction(systemReaction);
 		return createStepSystemPart(systemReactionObject);
 	}
 	
 	StepSystemPart<T> systemPublish(Supplier<Object> systemReaction) {
-		SystemReaction<T> systemReactionObject = new SystemReaction<>(systemReaction);
+		SystemReaction<T> systemReactionObject = SystemReaction.ofSupplier(systemReaction);
 		return createStepSystemPart(systemReactionObject);
 	}
 	
@@ -68,7 +81,7 @@ public class StepUserPart<T> {
 	 * @return the created system part of this step
 	 */
 	public StepSystemPart<T> system(Runnable systemReaction) {
-		SystemReaction<T> systemReactionObject = new SystemReaction<>(systemReaction);
+		SystemReaction<T> systemReactionObject = SystemReaction.ofRunnable(systemReaction);
 		return createStepSystemPart(systemReactionObject);
 	}
 
@@ -8,52 +8,151 @@ import java.util.function.Supplier;
 /**
  * An instance of this class represents an element specified via .system(..) by the user of the library.
  * That element is called modelObject.
- * 
- * Internally, each system reaction needs to be represented as an function, even if it has been specified as
- * a consumer by the user of the library. This approach simplifies development of the rest of the API.
- * 
+ *
+ * There is a final subclass for each kind of model object: runnables, consumers, context reactions,
+ * suppliers and functions. Each subclass implements {@link #invoke(Object, Object, Consumer)} by calling
+ * its model object directly, so no wrapping lambdas are needed, and only the subclasses for suppliers
+ * and functions check whether an event is returned. Applying a system reaction invokes it as well.
+ * The context the runner has been bound to is only used by {@link ContextReaction}s.
+ *
  * @author b_muth
  *
  * @param <T> the kind of message that is the input for this system reactions
  */
-public class SystemReaction<T> implements Function<T, Object> {
-	private Object modelObject;
-	private Function<T, Object> internalFunction;
+public abstract class SystemReaction<T> implements Function<T, Object> {
+	private final Object modelObject;
 
-	SystemReaction(Consumer<T> modelObject) {
+	private SystemReaction(Object modelObject) {
 		this.modelObject = Objects.requireNonNull(modelObject);
-		
-		Function<T, Object> nonPublishingReaction = message -> {
-			modelObject.accept(message);
-			return null;
-		};
-		this.internalFunction = nonPublishingReaction;
 	}
 
-	SystemReaction(Runnable modelObject) {
-		this((Consumer<T>) ignoredRunner -> modelObject.run());
-		this.modelObject = modelObject;
+	static <T> SystemReaction<T> ofConsumer(Consumer<T> modelObject) {
+		return new ConsumerSystemReaction<>(modelObject);
 	}
 
-	SystemReaction(Supplier<Object> modelObject) {
-		this.modelObject = Objects.requireNonNull(modelObject);
-		
-		Function<T, Object> publishingReaction = (Function<T, Object>) message -> modelObject.get();
-		this.internalFunction = publishingReaction;
+	static <T> SystemReaction<T> ofContextReaction(ContextReaction<?, T> modelObject) {
+		@SuppressWarnings("unchecked")
+		ContextReaction<Object, T> contextReaction = (ContextReaction<Object, T>) modelObject;
+		return new ContextReactionSystemReaction<>(contextReaction);
+	}
+
+	static <T> SystemReaction<T> ofRunnable(Runnable modelObject) {
+		return new RunnableSystemReaction<>(modelObject);
+	}
+
+	static <T> SystemReaction<T> ofSupplier(Supplier<Object> modelObject) {
+		return new SupplierSystemReaction<>(modelObject);
 	}
 
-	SystemReaction(Function<T, Object> modelObject) {
-		Objects.requireNonNull(modelObject);
-		this.modelObject = modelObject;
-		this.internalFunction = modelObject;
+	static <T> SystemReaction<T> ofFunction(Function<T, Object> modelObject) {
+		return new FunctionSystemReaction<>(modelObject);
 	}
 
 	public Object getModelObject() {
-		return modelObject; 
+		return modelObject;
 	}
 
 	@Override
 	public Object apply(T message) {
-		return internalFunction.apply(message);
+		return apply(null, message);
+	}
+
+	/**
+	 * Triggers the system reaction, and returns the event to be published.
+	 *
+	 * @param context the context the runner has been bound to, or null
+	 * @param message the message the system reacts to
+	 * @return the event, or null if there is none
+	 */
+	Object apply(Object context, T message) {
+		Object[] event = new Object[1];
+		invoke(context, message, publishedEvent -> event[0] = publishedEvent);
+		return event[0];
+	}
+
+	/**
+	 * Triggers the system reaction, and passes the returned event to the event
+	 * publisher, if there is one.
+	 *
+	 * @param context the context the runner has been bound to, or null
+	 * @param message the message the system reacts to
+	 * @param eventPublisher the publisher of the returned event
+	 */
+	abstract void invoke(Object context, T message, Consumer<Object> eventPublisher);
+
+	private static final class RunnableSystemReaction<T> extends SystemReaction<T> {
+		private final Runnable runnable;
+
+		private RunnableSystemReaction(Runnable runnable) {
+			super(runnable);
+			this.runnable = runnable;
+		}
+
+		@Override
+		void invoke(Object context, T message, Consumer<Object> eventPublisher) {
+			runnable.run();
+		}
+	}
+
+	private static final class ConsumerSystemReaction<T> extends SystemReaction<T> {
+		private final Consumer<T> consumer;
+
+		private ConsumerSystemReaction(Consumer<T> consumer) {
+			super(consumer);
+			this.consumer = consumer;
+		}
+
+		@Override
+		void invoke(Object context, T message, Consumer<Object> eventPublisher) {
+			consumer.accept(message);
+		}
+	}
+
+	private static final class ContextReactionSystemReaction<T> extends SystemReaction<T> {
+		private final ContextReaction<Object, T> contextReaction;
+
+		private ContextReactionSystemReaction(ContextReaction<Object, T> contextReaction) {
+			super(contextReaction);
+			this.contextReaction = contextReaction;
+		}
+
+		@Override
+		void invoke(Object context, T message, Consumer<Object> eventPublisher) {
+			contextReaction.accept(context, message);
+		}
+	}
+
+	private static final class SupplierSystemReaction<T> extends SystemReaction<T> {
+		private final Supplier<Object> supplier;
+
+		private SupplierSystemReaction(Supplier<Object> supplier) {
+			super(supplier);
+			this.supplier = supplier;
+		}
+
+		@Override
+		void invoke(Object context, T message, Consumer<Object> eventPublisher) {
+			Object event = supplier.get();
+			if (event != null) {
+				eventPublisher.accept(event);
+			}
+		}
+	}
+
+	private static final class FunctionSystemReaction<T> extends SystemReaction<T> {
+		private final Function<T, Object> function;
+
+		private FunctionSystemReaction(Function<T, Object> function) {
+			super(function);
+			this.function = function;
+		}
+
+		@Override
+		void invoke(Object context, T message, Consumer<Object> eventPublisher) {
+			Object event = function.apply(message);
+			if (event != null) {
+				eventPublisher.accept(event);
+			}
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package org.requirementsascode;
+
+/**
+ * An open addressing hash table that maps the ordinal of the latest step run
+ * and the class of a message to the step that reacts to it, or to null if no
+ * step reacts.
+ *
+ * <p>
+ * Only used by a {@link ModelRunner} when the outcome of a transition doesn't
+ * depend on anything else, i.e. when all steps involved are condition-free.
+ *
+ * @author b_muth
+ *
+ */
+class TransitionCache {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] ordinals;
+	private Class<?>[] messageClasses;
+	private Step[] steps;
+	private int size;
+
+	TransitionCache() {
+		clear();
+	}
+
+	/**
+	 * Looks up the step that reacts to messages of the specified class, after the
+	 * step with the specified ordinal.
+	 *
+	 * @param ordinal      the ordinal of the latest step run
+	 * @param messageClass the class of message
+	 * @return the index of the entry, or a negative value if there is none
+	 */
+	int indexOf(int ordinal, Class<?> messageClass) {
+		int mask = messageClasses.length - 1;
+		for (int i = hash(ordinal, messageClass) & mask;; i = (i + 1) & mask) {
+			Class<?> entryClass = messageClasses[i];
+			if (entryClass == null) {
+				return -1;
+			} else if (entryClass == messageClass && ordinals[i] == ordinal) {
+				return i;
+			}
+		}
+	}
+
+	Step stepAt(int index) {
+		return steps[index];
+	}
+
+	void put(int ordinal, Class<?> messageClass, Step step) {
+		if (2 * (size + 1) > messageClasses.length) {
+			resize();
+		}
+		int mask = messageClasses.length - 1;
+		int i = hash(ordinal, messageClass) & mask;
+		while (messageClasses[i] != null) {
+			if (messageClasses[i] == messageClass && ordinals[i] == ordinal) {
+				steps[i] = step;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		ordinals[i] = ordinal;
+		messageClasses[i] = messageClass;
+		steps[i] = step;
+		size++;
+	}
+
+	void clear() {
+		ordinals = new int[INITIAL_CAPACITY];
+		messageClasses = new Class<?>[INITIAL_CAPACITY];
+		steps = new Step[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void resize() {
+		int[] oldOrdinals = ordinals;
+		Class<?>[] oldMessageClasses = messageClasses;
+		Step[] oldSteps = steps;
+
+		int newCapacity = oldMessageClasses.length * 2;
+		ordinals = new int[newCapacity];
+		messageClasses = new Class<?>[newCapacity];
+		steps = new Step[newCapacity];
+		size = 0;
+
+		for (int i = 0; i < oldMessageClasses.length; i++) {
+			if (oldMessageClasses[i] != null) {
+				put(oldOrdinals[i], oldMessageClasses[i], oldSteps[i]);
+			}
+		}
+	}
+
+	private static int hash(int ordinal, Class<?> messageClass) {
+		int hash = System.identityHashCode(messageClass) * 31 + ordinal;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -111,13 +111,17 @@ public class UseCase extends ModelElement implements Serializable {
 	 * @param flow         the flow the step shall belong to
 	 * @param flowPosition the flow position, may be null, meaning: anytime.
 	 * @param condition    the condition, may be null if there is none.
+	 * @param contextCondition the context condition, may be null if there is
+	 *                     none.
 	 * @return the newly created step
 	 */
 	InterruptingFlowStep newInterruptingFlowStep(String stepName, Flow flow, FlowPosition flowPosition,
-			Condition condition) {
-		InterruptingFlowStep step = new InterruptingFlowStep(stepName, flow, flowPosition, condition);
+			Condition condition, ContextCondition<?> contextCondition) {
+		InterruptingFlowStep step = new InterruptingFlowStep(stepName, flow, flowPosition, condition,
+				contextCondition);
 
 		saveModelElement(step, nameToStepMap);
+		getModel().discardStepIndexes();
 
 		return step;
 	}
@@ -142,6 +146,7 @@ public class UseCase extends ModelElement implements Serializable {
 	InterruptableFlowStep newInterruptableFlowStep(String stepName, Flow flow) {
 		InterruptableFlowStep step = new InterruptableFlowStep(stepName, flow);
 		saveModelElement(step, nameToStepMap);
+		getModel().discardStepIndexes();
 
 		return step;
 	}
@@ -151,13 +156,17 @@ public class UseCase extends ModelElement implements Serializable {
 	 * 
 	 * @param optionalCondition the condition of the flow, or null if the step is
 	 *                          unconditional.
+	 * @param optionalContextCondition the context condition, or null if the step
+	 *                          has none.
 	 *
 	 * @param stepName          the name of the step
 	 * @return the newly created step
 	 */
-	FlowlessStep newFlowlessStep(Condition optionalCondition, String stepName) {
-		FlowlessStep step = new FlowlessStep(stepName, this, optionalCondition);
+	FlowlessStep newFlowlessStep(Condition optionalCondition, ContextCondition<?> optionalContextCondition,
+			String stepName) {
+		FlowlessStep step = new FlowlessStep(stepName, this, optionalCondition, optionalContextCondition);
 		saveModelElement(step, nameToStepMap);
+		getModel().discardStepIndexes();
 
 		return step;
 	}
@@ -61,7 +61,20 @@ public class UseCasePart {
 	 * @return the created condition part
 	 */
 	public FlowlessConditionPart condition(Condition condition) {
-		FlowlessConditionPart conditionPart = new FlowlessConditionPart(condition, this, 1);
+		FlowlessConditionPart conditionPart = new FlowlessConditionPart(condition, null, this, 1);
+		return conditionPart;
+	}
+
+	/**
+	 * Constrains the condition for triggering a system reaction: only if the
+	 * specified context condition is true, a system reaction can be triggered.
+	 *
+	 * @param contextCondition the condition, evaluated for the context the runner
+	 *                         has been bound to
+	 * @return the created condition part
+	 */
+	public FlowlessConditionPart condition(ContextCondition<?> contextCondition) {
+		FlowlessConditionPart conditionPart = new FlowlessConditionPart(null, contextCondition, this, 1);
 		return conditionPart;
 	}
 
@@ -77,7 +90,7 @@ public class UseCasePart {
 	 * @return the created user part
 	 */
 	public <T> FlowlessUserPart<T> user(Class<T> commandClass) {
-		FlowlessConditionPart conditionPart = condition(null);
+		FlowlessConditionPart conditionPart = condition((Condition) null);
 		FlowlessUserPart<T> flowlessUserPart = conditionPart.user(commandClass);
 		return flowlessUserPart;
 	}
@@ -94,7 +107,7 @@ public class UseCasePart {
 	 * @return the created user part
 	 */
 	public <T> FlowlessUserPart<T> on(Class<T> eventOrExceptionClass) {
-		FlowlessConditionPart conditionPart = condition(null);
+		FlowlessConditionPart conditionPart = condition((Condition) null);
 		FlowlessUserPart<T> flowlessUserPart = conditionPart.on(eventOrExceptionClass);
 		return flowlessUserPart;
 	}
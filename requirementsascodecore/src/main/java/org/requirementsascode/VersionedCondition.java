@@ -0,0 +1,51 @@
+package org.requirementsascode;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+/**
+ * A condition whose result only depends on a piece of state that carries a
+ * version.
+ *
+ * <p>
+ * A model runner caches the result of a versioned condition. As long as the
+ * version returned by {@link #getVersion()} stays the same, the runner reuses
+ * the cached result instead of evaluating the condition again. So the version
+ * must change whenever the state the condition depends on changes.
+ *
+ * @author b_muth
+ *
+ */
+public interface VersionedCondition extends Condition {
+	/**
+	 * Returns the version of the state the condition depends on.
+	 *
+	 * @return the state version
+	 */
+	long getVersion();
+
+	/**
+	 * Creates a versioned condition from the specified condition, and the supplier
+	 * of the version of the state it depends on.
+	 *
+	 * @param condition    the condition to be evaluated when the version changes
+	 * @param stateVersion the supplier of the state version
+	 * @return the versioned condition
+	 */
+	static VersionedCondition of(Condition condition, LongSupplier stateVersion) {
+		Objects.requireNonNull(condition);
+		Objects.requireNonNull(stateVersion);
+
+		return new VersionedCondition() {
+			@Override
+			public boolean evaluate() {
+				return condition.evaluate();
+			}
+
+			@Override
+			public long getVersion() {
+				return stateVersion.getAsLong();
+			}
+		};
+	}
+}
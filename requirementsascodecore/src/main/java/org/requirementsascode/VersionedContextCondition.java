@@ -0,0 +1,21 @@
+package org.requirementsascode;
+
+/**
+ * A context condition whose result only depends on a piece of the context's
+ * state that carries a version. Like for a {@link VersionedCondition}, a model
+ * runner reuses the cached result as long as the version stays the same.
+ *
+ * @author b_muth
+ *
+ * @param <C> the type of context
+ */
+public interface VersionedContextCondition<C> extends ContextCondition<C> {
+	/**
+	 * Returns the version of the state of the specified context the condition
+	 * depends on.
+	 *
+	 * @param context the context the runner has been bound to
+	 * @return the state version
+	 */
+	long getVersion(C context);
+}
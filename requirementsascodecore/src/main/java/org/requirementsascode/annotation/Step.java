@@ -0,0 +1,58 @@
+package org.requirementsascode.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a class annotated with {@link UseCase} as the system
+ * reaction of a step. The method must not be private or static. It either has
+ * no parameter, or a single parameter that messages of the {@link #on()} class
+ * can be assigned to. If it returns a value, the value is published as an
+ * event.
+ *
+ * <p>
+ * The generated model wraps each step in its own flow with the same name, i.e.
+ * <code>.flow(name)</code>, so the step is the flow's single step. If
+ * {@link #after()} is empty, the step can react anytime. Otherwise, it can only
+ * react after the step with the specified name has been run.
+ *
+ * @author b_muth
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Step {
+	/**
+	 * The name of the step. Defaults to the method name.
+	 *
+	 * @return the step name, or an empty string for the method name
+	 */
+	String name() default "";
+
+	/**
+	 * The class of messages the step reacts to, including instances of its
+	 * subclasses.
+	 *
+	 * @return the message class
+	 */
+	Class<?> on();
+
+	/**
+	 * The name of the step after which this step can react.
+	 *
+	 * @return the step name, or an empty string if the step can react anytime
+	 */
+	String after() default "";
+
+	/**
+	 * The name of a method of the same class that has no parameters and returns
+	 * a boolean. The step only reacts if the method returns true.
+	 *
+	 * @return the method name, or an empty string if the step has no condition
+	 */
+	String condition() default "";
+}
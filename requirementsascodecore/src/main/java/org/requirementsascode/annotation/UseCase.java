@@ -0,0 +1,42 @@
+package org.requirementsascode.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose methods annotated with {@link Step} are the system
+ * reactions of a use case.
+ *
+ * <p>
+ * For a top level class <code>Handlers</code>, the annotation processor of
+ * requirementsascodeprocessor generates a class <code>HandlersModel</code> in
+ * the same package. Its <code>model(Handlers handlers)</code> method builds the
+ * model with the model builder, with method references to the handler methods,
+ * so no reflection is used at runtime.
+ *
+ * <p>
+ * The generated model wraps each step in its own flow, named after the step,
+ * as if it had been built with
+ * <code>.flow(name).anytime().step(name)</code>, or
+ * <code>.flow(name).after(afterStep).step(name)</code> if the step has an
+ * {@link Step#after()} step. So the model's flows are the steps, and there is
+ * no basic flow. Only builder code is generated: the runner dispatches
+ * messages to the built model as it does for any other model.
+ *
+ * @author b_muth
+ *
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface UseCase {
+	/**
+	 * The name of the use case.
+	 *
+	 * @return the use case name
+	 */
+	String value();
+}
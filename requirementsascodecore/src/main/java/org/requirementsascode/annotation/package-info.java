@@ -0,0 +1,9 @@
+/**
+ * Annotation package of requirementsascode, containing the annotations for
+ * defining a model on handler methods. The requirementsascodeprocessor
+ * annotation processor generates the code that builds the model at compile
+ * time.
+ *
+ * @author b_muth
+ */
+package org.requirementsascode.annotation;
@@ -0,0 +1,30 @@
+package org.requirementsascode.exception;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import org.requirementsascode.StepOverlap;
+
+/**
+ * Exception that is thrown when the analysis of a model finds steps that both
+ * react to the same message at the same position, without a condition to tell
+ * them apart.
+ * 
+ * @author b_muth
+ *
+ */
+public class AmbiguousSteps extends RuntimeException implements Serializable {
+	private static final long serialVersionUID = -6010349516741364529L;
+
+	public AmbiguousSteps(Collection<StepOverlap> stepOverlaps) {
+		super(exceptionMessage(stepOverlaps));
+	}
+
+	private static String exceptionMessage(Collection<StepOverlap> stepOverlaps) {
+		String message = "More than one step can react to the same message: ";
+		String stepOverlapsText = stepOverlaps.stream().map(stepOverlap -> stepOverlap.toString())
+				.collect(Collectors.joining(",", message, ""));
+		return stepOverlapsText;
+	}
+}
@@ -20,6 +20,18 @@ public class MoreThanOneStepCanReact extends RuntimeException implements Seriali
 		super(exceptionMessage(useCaseSteps));
 	}
 
+	/**
+	 * Creates the exception, and only captures a stack trace if specified. Used by
+	 * runners that dispatch messages without stack traces, see
+	 * {@link org.requirementsascode.ModelRunner#captureStackTraces(boolean)}.
+	 *
+	 * @param useCaseSteps       the steps that could react
+	 * @param writableStackTrace whether to capture a stack trace
+	 */
+	public MoreThanOneStepCanReact(Collection<Step> useCaseSteps, boolean writableStackTrace) {
+		super(exceptionMessage(useCaseSteps), null, true, writableStackTrace);
+	}
+
 	private static String exceptionMessage(Collection<Step> useCaseSteps) {
 		String message = "System can react to more than one step: ";
 		String useCaseStepsClassNames = useCaseSteps.stream().map(useCaseStep -> useCaseStep.toString())
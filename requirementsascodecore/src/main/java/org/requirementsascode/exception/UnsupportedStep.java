@@ -0,0 +1,25 @@
+package org.requirementsascode.exception;
+
+import java.io.Serializable;
+
+import org.requirementsascode.Step;
+
+/**
+ * Exception that is thrown when a model contains a step that the component the
+ * model is used with does not support.
+ *
+ * @author b_muth
+ *
+ */
+public class UnsupportedStep extends RuntimeException implements Serializable {
+	private static final long serialVersionUID = -2465785462183945310L;
+
+	public UnsupportedStep(Step useCaseStep, String reason) {
+		super(exceptionMessage(useCaseStep, reason));
+	}
+
+	private static String exceptionMessage(Step useCaseStep, String reason) {
+		String message = "Step \"" + useCaseStep + "\" is not supported: " + reason;
+		return message;
+	}
+}
@@ -2,6 +2,7 @@ package org.requirementsascode.flowposition;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
 
@@ -33,6 +34,10 @@ public abstract class FlowPosition implements Predicate<ModelRunner>, Serializab
 		return step;
 	}
 
+	public final List<FlowStep> getOrAfterSteps() {
+		return Collections.unmodifiableList(orAfterSteps);
+	}
+
 	public FlowPosition orAfter(FlowStep mergeStep) {
 		orAfterSteps.add(mergeStep);
 		return this;
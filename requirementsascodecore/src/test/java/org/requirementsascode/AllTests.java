@@ -7,6 +7,12 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses({ BuildModelTest.class, RunStopAndRestartTest.class, FlowTest.class, CanReactToTest.class, ReactToTypesTest.class, FlowlessTest.class,
 	ExceptionsThrownTest.class, ExceptionHandlingTest.class, NonStandardEventHandlingTest.class,
-	IncludesTest.class, RecordingTest.class })
+	IncludesTest.class, RecordingTest.class, VersionedConditionTest.class,
+	ReplayTest.class, ModelTemplateTest.class, FlowlessDispatcherTest.class,
+	TransitionCacheTest.class, StepPartitionTest.class,
+	AmbiguityAnalysisTest.class, DispatchModeTest.class, SystemReactionTest.class,
+	QueuedPublishingTest.class, OutboxTest.class, ReactToAllTest.class,
+	StepBudgetTest.class, MessageSchedulerTest.class, EventBusTest.class,
+	SessionStoreTest.class, SessionTableTest.class })
 public class AllTests {
 }
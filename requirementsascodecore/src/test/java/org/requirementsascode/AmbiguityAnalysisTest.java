@@ -0,0 +1,159 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.requirementsascode.exception.AmbiguousSteps;
+
+public class AmbiguityAnalysisTest extends AbstractTestCase {
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+	}
+
+	@Test
+	public void findsNoOverlapsInFlowWithDifferentPositions() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).system(displaysEnteredText())
+			.flow(ALTERNATIVE_FLOW).insteadOf(CUSTOMER_ENTERS_TEXT_AGAIN)
+				.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		AmbiguityAnalysis analysis = AmbiguityAnalysis.of(model);
+
+		assertEquals(0, analysis.getErrors().size());
+		assertEquals(0, analysis.getWarnings().size());
+		analysis.verify();
+	}
+
+	@Test
+	public void reportsUnconditionalOverlapAsError() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow().anytime()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.flow(ALTERNATIVE_FLOW).anytime()
+				.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		AmbiguityAnalysis analysis = AmbiguityAnalysis.of(model);
+
+		assertEquals(1, analysis.getErrors().size());
+		StepOverlap stepOverlap = analysis.getErrors().get(0);
+		assertEquals(CUSTOMER_ENTERS_TEXT, stepOverlap.getFirstStep().getName());
+		assertEquals(CUSTOMER_ENTERS_ALTERNATIVE_TEXT, stepOverlap.getSecondStep().getName());
+	}
+
+	@Test
+	public void reportsOverlapGuardedByConditionAsWarning() {
+		Model model = modelBuilder
+			.condition(this::textIsNotAvailable).on(EntersText.class).system(displaysEnteredText())
+			.on(Object.class).system(o -> {})
+		.build();
+
+		AmbiguityAnalysis analysis = AmbiguityAnalysis.of(model);
+
+		assertEquals(0, analysis.getErrors().size());
+		assertEquals(1, analysis.getWarnings().size());
+		assertTrue(analysis.getWarnings().get(0).isGuardedByCondition());
+	}
+
+	@Test
+	public void reportsOverlapOfUnrelatedInterfaces() {
+		Model model = modelBuilder
+			.on(Serializable.class).system(s -> {})
+			.on(Runnable.class).system(r -> {})
+		.build();
+
+		AmbiguityAnalysis analysis = AmbiguityAnalysis.of(model);
+
+		assertEquals(1, analysis.getErrors().size());
+	}
+
+	@Test
+	public void reportsOverlapOfInterfaceAndNonFinalClass() {
+		Model model = modelBuilder
+			.on(Runnable.class).system(r -> {})
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		AmbiguityAnalysis analysis = AmbiguityAnalysis.of(model);
+
+		assertEquals(1, analysis.getErrors().size());
+	}
+
+	@Test
+	public void findsNoOverlapOfInterfaceAndFinalClassThatDoesntImplementIt() {
+		Model model = modelBuilder
+			.on(Runnable.class).system(r -> {})
+			.on(String.class).system(s -> {})
+		.build();
+
+		AmbiguityAnalysis analysis = AmbiguityAnalysis.of(model);
+
+		assertEquals(0, analysis.getErrors().size());
+		assertEquals(0, analysis.getWarnings().size());
+	}
+
+	@Test
+	public void findsNoOverlapsOfStepsOfDifferentActors() {
+		Actor customer = modelBuilder.actor("Customer");
+		Actor secondActor = modelBuilder.actor("Second Actor");
+		Model model = modelBuilder
+			.useCase(USE_CASE).as(customer)
+				.user(EntersText.class).system(displaysEnteredText())
+			.useCase("Second Use Case").as(secondActor)
+				.user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		assertEquals(0, AmbiguityAnalysis.of(model).getErrors().size());
+	}
+
+	@Test
+	public void findsNoOverlapOfInterruptingStepAndStepItInterrupts() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.flow(ALTERNATIVE_FLOW).anytime()
+				.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		assertEquals(0, AmbiguityAnalysis.of(model).getErrors().size());
+	}
+
+	@Test
+	public void sharesAnalysisOfUnchangedModel() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		assertSame(AmbiguityAnalysis.of(model), AmbiguityAnalysis.of(model));
+	}
+
+	@Test
+	public void verifyThrowsExceptionForErrors() {
+		thrown.expect(AmbiguousSteps.class);
+		thrown.expectMessage(CUSTOMER_ENTERS_TEXT);
+
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow().anytime()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.flow(ALTERNATIVE_FLOW).anytime()
+				.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		AmbiguityAnalysis.of(model).verify();
+	}
+}
@@ -0,0 +1,103 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.requirementsascode.exception.AmbiguousSteps;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+
+public class DispatchModeTest extends AbstractTestCase {
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private int conditionEvaluations;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		conditionEvaluations = 0;
+	}
+
+	@Test
+	public void firstMatchStopsAtFirstTruePredicate() {
+		Model model = modelBuilder
+			.condition(this::countsEvaluation).on(EntersText.class).system(displaysEnteredText())
+			.condition(this::countsEvaluation).on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.dispatchWith(DispatchMode.FIRST_MATCH).run(model);
+		modelRunner.reactTo(entersText(), entersText());
+
+		assertEquals(2, conditionEvaluations);
+		assertEquals(2, modelRunner.getRecordedStepNames().length);
+	}
+
+	@Test
+	public void firstMatchFindsLaterStepIfEarlierPredicatesAreFalse() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+				.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.dispatchWith(DispatchMode.FIRST_MATCH).run(model);
+		modelRunner.reactTo(entersText(), entersNumber(), entersText());
+
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER, CUSTOMER_ENTERS_TEXT_AGAIN);
+	}
+
+	@Test
+	public void firstMatchRejectsAmbiguousModelWhenRun() {
+		thrown.expect(AmbiguousSteps.class);
+
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.dispatchWith(DispatchMode.FIRST_MATCH).run(model);
+	}
+
+	@Test
+	public void firstMatchRejectsAmbiguousModelOfRunningRunner() {
+		thrown.expect(AmbiguousSteps.class);
+
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model).dispatchWith(DispatchMode.FIRST_MATCH);
+	}
+
+	@Test
+	public void sampledModeChecksAllMatchesForEveryNthMessage() {
+		Model model = modelBuilder
+			.condition(this::countsEvaluation).on(EntersText.class).system(displaysEnteredText())
+			.condition(this::countsEvaluation).on(EntersText.class).system(displaysEnteredText())
+		.build();
+		modelRunner.dispatchWith(DispatchMode.sampled(3)).run(model);
+		modelRunner.reactTo(entersText());
+		assertEquals(1, conditionEvaluations);
+		modelRunner.reactTo(entersText());
+		assertEquals(2, conditionEvaluations);
+
+		thrown.expect(MoreThanOneStepCanReact.class);
+		modelRunner.reactTo(entersText());
+	}
+
+	@Test
+	public void rejectsSamplingIntervalBelowOne() {
+		thrown.expect(IllegalArgumentException.class);
+		DispatchMode.sampled(0);
+	}
+
+	private boolean countsEvaluation() {
+		conditionEvaluations++;
+		return true;
+	}
+}
@@ -0,0 +1,224 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventBusTest extends AbstractTestCase {
+	private EventBus eventBus;
+	private List<String> log;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		eventBus = new EventBus();
+		log = new ArrayList<>();
+	}
+
+	@Test
+	public void deliversPublishedEventsToOtherRunners() {
+		ModelRunner textRunner = new ModelRunner().run(Model.builder()
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.build());
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.connect(textRunner).connect(numberRunner);
+
+		Object event = textRunner.reactTo(entersText()).get();
+
+		assertTrue(event instanceof EntersNumber);
+		assertEquals(Arrays.asList("Number"), log);
+	}
+
+	@Test
+	public void deliversEventsAfterPublishingStepHasCompleted() {
+		ModelRunner textRunner = new ModelRunner().run(Model.builder()
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.build());
+		textRunner.handleWith(stepToBeRun -> {
+			log.add("Text before");
+			stepToBeRun.run();
+			log.add("Text after");
+		});
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.connect(textRunner).connect(numberRunner);
+
+		textRunner.reactTo(entersText());
+
+		assertEquals(Arrays.asList("Text before", "Text after", "Number"), log);
+	}
+
+	@Test
+	public void connectedRunnerReactsToItsOwnEventsOnce() {
+		ModelRunner runner = new ModelRunner().run(Model.builder()
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(entersNumber -> log.add("Own number"))
+			.build());
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.connect(runner).connect(numberRunner);
+
+		runner.reactTo(entersText());
+
+		assertEquals(Arrays.asList("Own number", "Number"), log);
+	}
+
+	@Test
+	public void indexesRunnersByEventClass() {
+		eventBus.subscribe(runnerThatLogs(EntersText.class, "Text"))
+			.subscribe(runnerThatLogs(EntersNumber.class, "Number"))
+			.subscribe(runnerThatLogs(CharSequence.class, "CharSequence"));
+
+		assertEquals(1, eventBus.getSubscriberCount(EntersText.class));
+		assertEquals(1, eventBus.getSubscriberCount(EntersNumber.class));
+		assertEquals(1, eventBus.getSubscriberCount(String.class));
+		assertEquals(0, eventBus.getSubscriberCount(Integer.class));
+	}
+
+	@Test
+	public void deliversEventsOnlyToRunnersThatCanReactInCurrentState() {
+		modelRunner.handleUnhandledWith(message -> log.add("Unhandled"));
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+			.build();
+		modelRunner.run(model);
+		eventBus.subscribe(modelRunner);
+
+		eventBus.publish(entersNumber());
+		eventBus.publish(entersText());
+		eventBus.publish(entersNumber());
+
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER);
+		assertTrue(log.isEmpty());
+	}
+
+	@Test
+	public void queuesEventsPublishedWhileDelivering() {
+		ModelRunner textRunner = new ModelRunner().run(Model.builder()
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.build());
+		textRunner.handleWith(stepToBeRun -> {
+			log.add("Text before");
+			stepToBeRun.run();
+			log.add("Text after");
+		});
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.connect(textRunner).connect(numberRunner);
+
+		eventBus.publish(entersText());
+
+		assertEquals(Arrays.asList("Text before", "Text after", "Number"), log);
+	}
+
+	@Test
+	public void deliversEventsToRunnerInBatches() {
+		ModelRunner firstRunner = runnerThatLogs(EntersText.class, "First");
+		ModelRunner secondRunner = runnerThatLogs(EntersText.class, "Second");
+		eventBus.subscribe(firstRunner).subscribe(secondRunner);
+		ModelRunner publishingRunner = new ModelRunner().run(Model.builder()
+			.on(EntersNumber.class).system(entersNumber -> {
+				eventBus.publish(entersText());
+				eventBus.publish(entersText());
+			})
+			.build());
+		eventBus.subscribe(publishingRunner);
+
+		eventBus.publish(entersNumber());
+
+		assertEquals(Arrays.asList("First", "First", "Second", "Second"), log);
+	}
+
+	@Test
+	public void doesNotDeliverEventsToUnsubscribedRunner() {
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.subscribe(numberRunner);
+		eventBus.unsubscribe(numberRunner);
+
+		eventBus.publish(entersNumber());
+
+		assertEquals(0, eventBus.getSubscriberCount(EntersNumber.class));
+		assertTrue(log.isEmpty());
+	}
+
+	@Test
+	public void keepsEventsQueuedIfRunnerThrowsException() {
+		ModelRunner failingRunner = new ModelRunner().run(Model.builder()
+			.on(EntersText.class).system(entersText -> {
+				if (log.isEmpty()) {
+					log.add("Failed");
+					throw new IllegalStateException();
+				}
+				log.add("Text");
+			})
+			.build());
+		ModelRunner publishingRunner = new ModelRunner().run(Model.builder()
+			.on(EntersNumber.class).system(entersNumber -> {
+				eventBus.publish(entersText());
+				eventBus.publish(entersText());
+			})
+			.build());
+		eventBus.subscribe(failingRunner).subscribe(publishingRunner);
+
+		eventBus.publish(entersNumber());
+		assertEquals(Arrays.asList("Failed"), log);
+		assertTrue(eventBus.getFailures().get(failingRunner) instanceof IllegalStateException);
+
+		eventBus.deliver();
+
+		assertEquals(Arrays.asList("Failed", "Text"), log);
+	}
+
+	@Test
+	public void collectsFailuresOfSubscribersAndDeliversToOthers() {
+		ModelRunner failingRunner = new ModelRunner().run(Model.builder()
+			.on(EntersNumber.class).system(entersNumber -> {
+				throw new IllegalStateException();
+			})
+			.build());
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.subscribe(failingRunner).subscribe(numberRunner);
+
+		eventBus.publish(entersNumber());
+
+		assertEquals(Arrays.asList("Number"), log);
+		assertEquals(1, eventBus.getFailures().size());
+		assertTrue(eventBus.getFailures().get(failingRunner) instanceof IllegalStateException);
+
+		eventBus.clearFailures();
+
+		assertTrue(eventBus.getFailures().isEmpty());
+	}
+
+	@Test
+	public void deliversPublishedEventsIfPublisherFailsOnItsOwnEvent() {
+		ModelRunner textRunner = new ModelRunner().run(Model.builder()
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(entersNumber -> {
+				throw new IllegalStateException();
+			})
+			.build());
+		ModelRunner numberRunner = runnerThatLogs(EntersNumber.class, "Number");
+		eventBus.connect(textRunner).connect(numberRunner);
+
+		try {
+			textRunner.reactTo(entersText());
+			fail();
+		} catch (IllegalStateException e) {
+		}
+
+		assertEquals(Arrays.asList("Number"), log);
+	}
+
+	private ModelRunner runnerThatLogs(Class<?> messageClass, String logEntry) {
+		return new ModelRunner().run(Model.builder()
+			.on(messageClass).system(message -> log.add(logEntry))
+			.build());
+	}
+}
@@ -1,6 +1,9 @@
 package org.requirementsascode;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.ref.WeakReference;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -73,4 +76,43 @@ public class ExceptionHandlingTest extends AbstractTestCase{
 		
 		assertRecordedStepNames(SYSTEM_DISPLAYS_TEXT, SYSTEM_THROWS_EXCEPTION, SYSTEM_HANDLES_EXCEPTION);
 	}
+
+	@Test
+	public void handlesExceptionWithStepForSuperclassOfException() {
+		Model model = 
+			modelBuilder.useCase(USE_CASE)
+				.basicFlow()
+					.step(SYSTEM_THROWS_EXCEPTION).system(throwsArrayIndexOutOfBoundsException())
+				.flow(ALTERNATIVE_FLOW).anytime()
+					.step(SYSTEM_HANDLES_EXCEPTION).on(IllegalStateException.class).system(e -> {})
+				.flow(ALTERNATIVE_FLOW_2).anytime()
+					.step(SYSTEM_HANDLES_EXCEPTION + "2").on(IndexOutOfBoundsException.class).system(e -> {})
+			.build();
+		
+		modelRunner.run(model);
+		
+		assertRecordedStepNames(SYSTEM_THROWS_EXCEPTION, SYSTEM_HANDLES_EXCEPTION + "2");
+	}
+
+	@Test
+	public void releasesModelAfterHandlingException() throws InterruptedException {
+		WeakReference<Model> model = new WeakReference<>(runModelThatHandlesException());
+
+		for (int i = 0; i < 100 && model.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(model.get());
+	}
+
+	private Model runModelThatHandlesException() {
+		Model model = Model.builder().useCase(USE_CASE)
+			.basicFlow()
+				.step(SYSTEM_THROWS_EXCEPTION).system(throwsArrayIndexOutOfBoundsException())
+			.flow(ALTERNATIVE_FLOW).anytime()
+				.step(SYSTEM_HANDLES_EXCEPTION).on(IndexOutOfBoundsException.class).system(e -> {})
+		.build();
+		new ModelRunner().run(model).getStepsThatCanReactTo(IndexOutOfBoundsException.class);
+		return model;
+	}
 }
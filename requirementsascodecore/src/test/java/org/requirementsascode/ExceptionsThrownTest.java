@@ -1,5 +1,8 @@
 package org.requirementsascode;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -169,4 +172,52 @@ public class ExceptionsThrownTest extends AbstractTestCase {
 	
 		modelRunner.run(model);
     }
+
+    @Test
+    public void createsExceptionsWithStackTraceByDefault() {
+		NoSuchElementInModel exception = new NoSuchElementInModel(CUSTOMER_ENTERS_TEXT);
+	
+		assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void throwsMoreThanOneStepCanReactWithStackTraceByDefault() {
+		MoreThanOneStepCanReact exception = runModelWithTwoStepsThatCanReact();
+	
+		assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void throwsMoreThanOneStepCanReactWithoutStackTraceIfDisabled() {
+		modelRunner.captureStackTraces(false);
+		MoreThanOneStepCanReact exception = runModelWithTwoStepsThatCanReact();
+	
+		assertEquals(0, exception.getStackTrace().length);
+		assertTrue(exception.getMessage().contains(CUSTOMER_ENTERS_TEXT));
+    }
+
+    @Test
+    public void createsBuildExceptionsWithStackTraceIfRunnerDoesnt() {
+		modelRunner.captureStackTraces(false);
+		NoSuchElementInModel exception = new NoSuchElementInModel(CUSTOMER_ENTERS_TEXT);
+	
+		assertTrue(exception.getStackTrace().length > 0);
+    }
+
+    private MoreThanOneStepCanReact runModelWithTwoStepsThatCanReact() {
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.basicFlow().anytime()
+					.step(CUSTOMER_ENTERS_TEXT).system(displaysConstantText())
+				.flow(ALTERNATIVE_FLOW).anytime()
+					.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).system(displaysConstantText())
+			.build();
+	
+		try {
+			modelRunner.run(model);
+		} catch (MoreThanOneStepCanReact e) {
+			return e;
+		}
+		throw new AssertionError("Expected " + MoreThanOneStepCanReact.class.getSimpleName());
+    }
 }
@@ -0,0 +1,208 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.requirementsascode.ModelTemplate.reaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+import org.requirementsascode.exception.UnsupportedStep;
+
+public class FlowlessDispatcherTest extends AbstractTestCase {
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private List<Object> dispatchedMessages;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		dispatchedMessages = new ArrayList<>();
+	}
+
+	@Test
+	public void dispatchesMessagesByClass() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(dispatchedMessages::add)
+			.user(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		FlowlessDispatcher dispatcher = FlowlessDispatcher.of(model);
+		EntersText entersText = entersText();
+		dispatcher.dispatch(entersText);
+		dispatcher.dispatch(entersNumber());
+
+		assertEquals(1, dispatchedMessages.size());
+		assertEquals(entersText, dispatchedMessages.get(0));
+		assertEquals(entersNumber().toString(), displayedText);
+	}
+
+	@Test
+	public void dispatchesMessagesOfSubclasses() {
+		Model model = modelBuilder
+			.on(Object.class).system(dispatchedMessages::add)
+		.build();
+
+		FlowlessDispatcher.of(model).dispatch(entersText());
+
+		assertEquals(1, dispatchedMessages.size());
+	}
+
+	@Test
+	public void ignoresMessagesNoStepCanReactTo() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(dispatchedMessages::add)
+		.build();
+
+		Optional<Object> event = FlowlessDispatcher.of(model).dispatch(entersNumber());
+
+		assertFalse(event.isPresent());
+		assertEquals(0, dispatchedMessages.size());
+	}
+
+	@Test
+	public void onlyDispatchesToStepsWithTrueCondition() {
+		Model model = modelBuilder
+			.condition(this::textIsNotAvailable).on(EntersText.class).system(displaysEnteredText())
+			.condition(this::textIsAvailable).on(EntersText.class).system(dispatchedMessages::add)
+		.build();
+
+		FlowlessDispatcher dispatcher = FlowlessDispatcher.of(model);
+		dispatcher.dispatch(entersText());
+		dispatcher.dispatch(entersText());
+
+		assertEquals(1, dispatchedMessages.size());
+	}
+
+	@Test
+	public void publishesReturnedEvents() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(this::publishEnteredTextAsString)
+			.on(String.class).system(dispatchedMessages::add)
+		.build();
+
+		Optional<Object> event = FlowlessDispatcher.of(model).dispatch(entersText());
+
+		assertEquals(TEXT, event.get());
+		assertEquals(TEXT, dispatchedMessages.get(0));
+	}
+
+	@Test
+	public void dispatchesExceptionsThrownBySystemReactions() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(throwsRuntimeException())
+			.on(RuntimeException.class).system(dispatchedMessages::add)
+		.build();
+
+		FlowlessDispatcher.of(model).dispatch(entersText());
+
+		assertEquals(1, dispatchedMessages.size());
+	}
+
+	@Test
+	public void rethrowsUnhandledExceptions() {
+		thrown.expect(ArrayIndexOutOfBoundsException.class);
+
+		Model model = modelBuilder
+			.on(EntersText.class).system(throwsArrayIndexOutOfBoundsException())
+		.build();
+
+		FlowlessDispatcher.of(model).dispatch(entersText());
+	}
+
+	@Test
+	public void passesContextToContextReactions() {
+		ModelTemplate<MessageRecorder> modelTemplate = ModelTemplate.of(MessageRecorder.class, modelBuilder
+			.on(EntersText.class).system(reaction(MessageRecorder::record))
+		.build());
+
+		FlowlessDispatcher dispatcher = FlowlessDispatcher.of(modelTemplate);
+		MessageRecorder recorder1 = new MessageRecorder();
+		MessageRecorder recorder2 = new MessageRecorder();
+		dispatcher.dispatch(recorder1, entersText());
+		dispatcher.dispatch(recorder2, entersText());
+		dispatcher.dispatch(recorder2, entersText());
+
+		assertEquals(1, recorder1.messages.size());
+		assertEquals(2, recorder2.messages.size());
+	}
+
+	@Test
+	public void dispatchesFromSeveralThreadsAtOnce() throws Exception {
+		AtomicInteger dispatchCount = new AtomicInteger();
+		Model model = modelBuilder
+			.on(EntersText.class).system(entersText -> dispatchCount.incrementAndGet())
+		.build();
+		FlowlessDispatcher dispatcher = FlowlessDispatcher.of(model);
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<?>> results = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			results.add(executor.submit(() -> {
+				for (int j = 0; j < 1000; j++) {
+					dispatcher.dispatch(entersText());
+				}
+			}));
+		}
+		executor.shutdown();
+		for (Future<?> result : results) {
+			result.get();
+		}
+
+		assertEquals(4000, dispatchCount.get());
+	}
+
+	@Test
+	public void throwsExceptionIfMoreThanOneStepCanReact() {
+		thrown.expect(MoreThanOneStepCanReact.class);
+
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		FlowlessDispatcher.of(model).dispatch(entersText());
+	}
+
+	@Test
+	public void rejectsModelWithFlows() {
+		thrown.expect(UnsupportedStep.class);
+
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		FlowlessDispatcher.of(model);
+	}
+
+	@Test
+	public void rejectsModelWithAutonomousSystemReactions() {
+		thrown.expect(UnsupportedStep.class);
+
+		Model model = modelBuilder
+			.condition(this::textIsAvailable).system(displaysConstantText())
+		.build();
+
+		FlowlessDispatcher.of(model);
+	}
+
+	private static class MessageRecorder {
+		private List<Object> messages = new ArrayList<>();
+
+		void record(Object message) {
+			messages.add(message);
+		}
+	}
+}
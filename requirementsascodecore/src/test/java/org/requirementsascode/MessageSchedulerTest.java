@@ -0,0 +1,192 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class MessageSchedulerTest extends AbstractTestCase {
+	private static final Duration TICK = Duration.ofMillis(1);
+
+	private List<String> deliveredMessages;
+	private long nanoTime;
+	private MessageScheduler<String> scheduler;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		deliveredMessages = new ArrayList<>();
+		nanoTime = 0;
+		scheduler = new MessageScheduler<>((key, message) -> deliveredMessages.add(key + ":" + message), TICK,
+				() -> nanoTime);
+	}
+
+	@Test
+	public void deliversMessageAfterDelay() {
+		scheduler.schedule("R1", "Timeout", Duration.ofMillis(15));
+
+		advanceBy(Duration.ofMillis(14));
+		assertTrue(deliveredMessages.isEmpty());
+		assertEquals(1, scheduler.getSize());
+
+		advanceBy(Duration.ofMillis(1));
+		assertEquals(Arrays.asList("R1:Timeout"), deliveredMessages);
+		assertEquals(0, scheduler.getSize());
+	}
+
+	@Test
+	public void roundsDelayUpToFullTicks() {
+		nanoTime = 500_000;
+		scheduler.schedule("R1", "Timeout", Duration.ZERO);
+
+		assertEquals(0, scheduler.advance());
+		advanceBy(Duration.ofNanos(500_000));
+		assertEquals(Arrays.asList("R1:Timeout"), deliveredMessages);
+	}
+
+	@Test
+	public void deliversMessagesDueAtSameTickInOrderOfScheduling() {
+		scheduler.schedule("R1", "A", Duration.ofMillis(300));
+		scheduler.schedule("R2", "B", Duration.ofMillis(300));
+		scheduler.schedule("R1", "C", Duration.ofMillis(300));
+
+		advanceBy(Duration.ofMillis(300));
+
+		assertEquals(Arrays.asList("R1:A", "R2:B", "R1:C"), deliveredMessages);
+	}
+
+	@Test
+	public void deliversMessagesWithLongDelaysAtTheirTick() {
+		Random random = new Random(42);
+		Map<String, Long> messageToDueTick = new HashMap<>();
+		for (int i = 0; i < 1000; i++) {
+			long delay = 1 + random.nextInt(200_000);
+			String message = "M" + i;
+			messageToDueTick.put("R:" + message, delay);
+			scheduler.schedule("R", message, Duration.ofMillis(delay));
+		}
+
+		for (long tick = 1; tick <= 200_000; tick++) {
+			nanoTime = Duration.ofMillis(tick).toNanos();
+			int firstDelivered = deliveredMessages.size();
+			scheduler.advance();
+			for (String deliveredMessage : deliveredMessages.subList(firstDelivered, deliveredMessages.size())) {
+				assertEquals(deliveredMessage, (Long) tick, messageToDueTick.get(deliveredMessage));
+			}
+		}
+		assertEquals(1000, deliveredMessages.size());
+	}
+
+	@Test
+	public void deliversMessageWithVeryLongDelay() {
+		scheduler.schedule("R1", "Reminder", Duration.ofDays(400));
+
+		advanceBy(Duration.ofDays(400).minusMillis(1));
+		assertTrue(deliveredMessages.isEmpty());
+		advanceBy(Duration.ofMillis(1));
+		assertEquals(Arrays.asList("R1:Reminder"), deliveredMessages);
+	}
+
+	@Test
+	public void doesNotDeliverCancelledMessage() {
+		ScheduledMessage<String> timeout = scheduler.schedule("R1", "Timeout", Duration.ofMillis(1000));
+		scheduler.schedule("R1", "Reminder", Duration.ofMillis(1000));
+
+		assertTrue(timeout.cancel());
+		assertFalse(timeout.cancel());
+		assertFalse(timeout.isPending());
+		advanceBy(Duration.ofMillis(1000));
+
+		assertEquals(Arrays.asList("R1:Reminder"), deliveredMessages);
+	}
+
+	@Test
+	public void cancelsAllMessagesOfRunner() {
+		scheduler.schedule("R1", "A", Duration.ofMillis(10));
+		scheduler.schedule("R2", "B", Duration.ofMillis(10));
+		scheduler.schedule("R1", "C", Duration.ofHours(1));
+
+		assertEquals(2, scheduler.cancelAll("R1"));
+		assertEquals(0, scheduler.cancelAll("R1"));
+		advanceBy(Duration.ofHours(1));
+
+		assertEquals(Arrays.asList("R2:B"), deliveredMessages);
+		assertEquals(0, scheduler.getSize());
+	}
+
+	@Test
+	public void consumerCanCancelMessagesThatAreDueAtSameTick() {
+		scheduler = new MessageScheduler<>((key, message) -> {
+			deliveredMessages.add(key + ":" + message);
+			scheduler.cancelAll(key);
+		}, TICK, () -> nanoTime);
+		scheduler.schedule("R1", "A", Duration.ofMillis(10));
+		scheduler.schedule("R1", "B", Duration.ofMillis(10));
+
+		advanceBy(Duration.ofMillis(10));
+
+		assertEquals(Arrays.asList("R1:A"), deliveredMessages);
+		assertEquals(0, scheduler.getSize());
+	}
+
+	@Test
+	public void deliversRemainingMessagesAfterConsumerThrowsException() {
+		scheduler = new MessageScheduler<>((key, message) -> {
+			if ("A".equals(message)) {
+				throw new IllegalStateException();
+			}
+			deliveredMessages.add(key + ":" + message);
+		}, TICK, () -> nanoTime);
+		scheduler.schedule("R1", "A", Duration.ofMillis(10));
+		scheduler.schedule("R1", "B", Duration.ofMillis(10));
+
+		nanoTime = Duration.ofMillis(10).toNanos();
+		try {
+			scheduler.advance();
+		} catch (IllegalStateException e) {
+		}
+		assertEquals(1, scheduler.advance());
+
+		assertEquals(Arrays.asList("R1:B"), deliveredMessages);
+	}
+
+	@Test
+	public void deliversMessagesToRunners() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.build();
+		modelRunner.run(model);
+		Map<String, ModelRunner> runners = new HashMap<>();
+		runners.put("R1", modelRunner);
+		MessageScheduler<String> runnerScheduler = new MessageScheduler<>(
+				(key, message) -> runners.get(key).reactTo(message), TICK, () -> nanoTime);
+
+		runnerScheduler.schedule("R1", entersText(), Duration.ofMillis(5));
+		nanoTime = Duration.ofMillis(5).toNanos();
+		runnerScheduler.advance();
+
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT);
+		assertEquals(TEXT, displayedText);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void throwsExceptionForNegativeDelay() {
+		scheduler.schedule("R1", "Timeout", Duration.ofMillis(-1));
+	}
+
+	private void advanceBy(Duration duration) {
+		nanoTime += duration.toNanos();
+		scheduler.advance();
+	}
+}
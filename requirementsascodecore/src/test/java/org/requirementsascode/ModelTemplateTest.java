@@ -0,0 +1,160 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.requirementsascode.ModelTemplate.condition;
+import static org.requirementsascode.ModelTemplate.reaction;
+
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ModelTemplateTest extends AbstractTestCase {
+	private ModelTemplate<TextHolder> modelTemplate;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+	}
+
+	@Test
+	public void reactsOnBoundContext() {
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder
+			.on(EntersText.class).system(reaction(TextHolder::setText))
+		.build());
+
+		TextHolder textHolder = new TextHolder();
+		modelRunner.run(modelTemplate, textHolder);
+		modelRunner.reactTo(entersText());
+
+		assertEquals(TEXT, textHolder.text);
+		assertEquals(1, modelRunner.getRecordedStepNames().length);
+	}
+
+	@Test
+	public void sharesTemplateBetweenRunnersBoundToDifferentContexts() {
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder
+			.on(EntersText.class).system(reaction(TextHolder::setText))
+		.build());
+
+		TextHolder textHolder1 = new TextHolder();
+		TextHolder textHolder2 = new TextHolder();
+		ModelRunner modelRunner1 = new ModelRunner().run(modelTemplate, textHolder1);
+		ModelRunner modelRunner2 = new ModelRunner().run(modelTemplate, textHolder2);
+		modelRunner2.reactTo(entersText());
+
+		assertNull(textHolder1.text);
+		assertEquals(TEXT, textHolder2.text);
+
+		modelRunner1.reactTo(entersAlternativeText());
+		assertEquals(entersAlternativeText().value(), textHolder1.text);
+		assertEquals(TEXT, textHolder2.text);
+	}
+
+	@Test
+	public void evaluatesConditionForBoundContext() {
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder
+			.condition(condition(TextHolder::hasNoText)).on(EntersText.class).system(reaction(TextHolder::setText))
+		.build());
+
+		TextHolder textHolder = new TextHolder();
+		modelRunner.run(modelTemplate, textHolder);
+		assertTrue(modelRunner.canReactTo(EntersText.class));
+
+		modelRunner.reactTo(entersText());
+		assertFalse(modelRunner.canReactTo(EntersText.class));
+	}
+
+	@Test
+	public void evaluatesVersionedConditionOnceForSameVersion() {
+		ContextCondition<TextHolder> hasNoText = condition(textHolder -> {
+			textHolder.evaluations++;
+			return textHolder.hasNoText();
+		}, textHolder -> textHolder.version);
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder
+			.condition(hasNoText).on(EntersText.class).system(reaction(TextHolder::setText))
+		.build());
+
+		TextHolder textHolder = new TextHolder();
+		modelRunner.run(modelTemplate, textHolder);
+		for (int i = 0; i < 10; i++) {
+			modelRunner.canReactTo(EntersText.class);
+		}
+		assertEquals(1, textHolder.evaluations);
+
+		modelRunner.reactTo(entersText());
+		assertFalse(modelRunner.canReactTo(EntersText.class));
+		assertEquals(2, textHolder.evaluations);
+	}
+
+	@Test
+	public void keepsContextConditionApartFromCondition() {
+		ContextCondition<TextHolder> hasNoText = condition(TextHolder::hasNoText);
+		Model model = modelBuilder
+			.condition(hasNoText).on(EntersText.class).system(reaction(TextHolder::setText))
+		.build();
+
+		Step step = model.getModifiableSteps().iterator().next();
+		assertFalse(step.getCondition().isPresent());
+		assertSame(hasNoText, step.getContextCondition().get());
+	}
+
+	@Test
+	public void worksAsFlowCondition() {
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder.useCase(USE_CASE)
+			.basicFlow().condition(condition(TextHolder::hasNoText))
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(reaction(TextHolder::setText))
+		.build());
+
+		TextHolder textHolder = new TextHolder();
+		textHolder.text = TEXT;
+		modelRunner.run(modelTemplate, textHolder);
+		assertFalse(modelRunner.canReactTo(EntersText.class));
+	}
+
+	@Test
+	public void mixesContextReactionsWithOrdinaryReactions() {
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder
+			.on(EntersText.class).system(reaction(TextHolder::setText))
+			.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build());
+
+		TextHolder textHolder = new TextHolder();
+		modelRunner.run(modelTemplate, textHolder);
+		modelRunner.reactTo(entersText(), entersNumber());
+
+		assertEquals(TEXT, textHolder.text);
+		assertEquals(entersNumber().toString(), displayedText);
+	}
+
+	@Test
+	public void replaysOnBoundContext() {
+		modelTemplate = ModelTemplate.of(TextHolder.class, modelBuilder
+			.on(EntersText.class).system(reaction(TextHolder::setText))
+		.build());
+
+		TextHolder textHolder = new TextHolder();
+		modelRunner.run(modelTemplate, textHolder).replay(Stream.of(entersText()));
+
+		assertEquals(TEXT, textHolder.text);
+	}
+
+	private static class TextHolder {
+		private String text;
+		private long version;
+		private int evaluations;
+
+		void setText(EntersText entersText) {
+			text = entersText.value();
+			version++;
+		}
+
+		boolean hasNoText() {
+			return text == null;
+		}
+	}
+}
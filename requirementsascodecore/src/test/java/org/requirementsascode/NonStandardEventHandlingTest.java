@@ -129,4 +129,47 @@ public class NonStandardEventHandlingTest extends AbstractTestCase {
 		assertEquals(EntersText.class, publishedEvents.get(0).getClass());
 		assertEquals("S3", modelRunner.getLatestStep().get().getName());
     }
+
+    @Test
+    public void keepsOuterStepToBeRunUnchangedDuringNestedHandling() {
+		List<String> stepNamesAfterRun = new ArrayList<>();
+		
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.on(EntersText.class).systemPublish(entersText -> entersNumber())
+				.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+	
+		modelRunner.handleWith(stepToBeRun -> {
+		    stepToBeRun.run();
+		    stepNamesAfterRun.add(stepToBeRun.getStepName() + " " + stepToBeRun.getMessage().get().getClass().getSimpleName());
+		});
+		modelRunner.run(model).reactTo(entersText());
+		
+		assertEquals("S2 EntersNumber", stepNamesAfterRun.get(0));
+		assertEquals("S1 EntersText", stepNamesAfterRun.get(1));
+    }
+    
+    @Test
+    public void runsDetachedStepToBeRunLater() {
+		List<StepToBeRun> detachedStepsToBeRun = new ArrayList<>();
+		
+		Model model = modelBuilder
+			.useCase(USE_CASE)
+				.on(EntersText.class).systemPublish(entersText -> entersNumber())
+				.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+	
+		modelRunner.handleWith(stepToBeRun -> detachedStepsToBeRun.add(stepToBeRun.detach()));
+		modelRunner.run(model).reactTo(entersText());
+		assertEquals(1, detachedStepsToBeRun.size());
+		
+		detachedStepsToBeRun.get(0).run();
+		assertEquals(2, detachedStepsToBeRun.size());
+		assertEquals("S1", detachedStepsToBeRun.get(0).getStepName());
+		assertEquals("S2", detachedStepsToBeRun.get(1).getStepName());
+		
+		detachedStepsToBeRun.get(1).run();
+		assertEquals(entersNumber().toString(), displayedText);
+    }
 }
@@ -0,0 +1,106 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutboxTest extends AbstractTestCase {
+	private List<List<Object>> batches;
+	private long nanoTime;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		batches = new ArrayList<>();
+		nanoTime = 0;
+	}
+
+	@Test
+	public void flushesWhenMaxBatchSizeIsReached() {
+		Outbox outbox = createOutbox(2, Duration.ofSeconds(1));
+
+		outbox.add("A");
+		assertTrue(batches.isEmpty());
+		outbox.add("B");
+		outbox.add("C");
+
+		assertEquals(Arrays.asList(Arrays.asList("A", "B")), batches);
+		assertEquals(1, outbox.getSize());
+	}
+
+	@Test
+	public void flushesWhenMaxDelayIsReached() {
+		Outbox outbox = createOutbox(10, Duration.ofMillis(5));
+
+		outbox.add("A");
+		nanoTime = Duration.ofMillis(4).toNanos();
+		outbox.add("B");
+		assertTrue(batches.isEmpty());
+		nanoTime = Duration.ofMillis(5).toNanos();
+		outbox.add("C");
+
+		assertEquals(Arrays.asList(Arrays.asList("A", "B", "C")), batches);
+		assertEquals(0, outbox.getSize());
+	}
+
+	@Test
+	public void doesntFlushEmptyOutbox() {
+		Outbox outbox = createOutbox(10, Duration.ofSeconds(1));
+
+		outbox.flush();
+
+		assertTrue(batches.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMaxBatchSizeBelowOne() {
+		createOutbox(0, Duration.ofSeconds(1));
+	}
+
+	@Test
+	public void runnerFlushesOutboxAfterEachReaction() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> TEXT)
+			.on(EntersNumber.class).systemPublish(entersNumber -> entersNumber.toString())
+		.build();
+		Outbox outbox = createOutbox(10, Duration.ofSeconds(1));
+
+		modelRunner.publishTo(outbox).run(model);
+		modelRunner.reactTo(entersText(), entersNumber());
+		modelRunner.reactTo(entersText());
+
+		assertEquals(2, batches.size());
+		assertEquals(Arrays.asList(TEXT, entersNumber().toString()), batches.get(0));
+		assertEquals(Arrays.asList(TEXT), batches.get(1));
+		assertRecordedStepNames("S1", "S2", "S1");
+	}
+
+	@Test
+	public void runnerFlushesOutboxWhenStopped() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> TEXT)
+		.build();
+		Outbox outbox = createOutbox(10, Duration.ofSeconds(1));
+		modelRunner.publishTo(outbox).run(model);
+
+		modelRunner.handleWith(stepToBeRun -> {
+			stepToBeRun.run();
+			modelRunner.stop();
+			assertEquals(Arrays.asList(Arrays.asList(TEXT)), batches);
+		});
+		modelRunner.reactTo(entersText());
+
+		assertEquals(1, batches.size());
+	}
+
+	private Outbox createOutbox(int maxBatchSize, Duration maxDelay) {
+		return new Outbox(batches::add, maxBatchSize, maxDelay, () -> nanoTime);
+	}
+}
@@ -0,0 +1,105 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueuedPublishingTest extends AbstractTestCase {
+	private List<String> handledSteps;
+	private List<List<Object>> eventBatches;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		handledSteps = new ArrayList<>();
+		eventBatches = new ArrayList<>();
+		modelRunner.handleWith(stepToBeRun -> {
+			handledSteps.add("Start " + stepToBeRun.getStepName());
+			stepToBeRun.run();
+			handledSteps.add("End " + stepToBeRun.getStepName());
+		});
+	}
+
+	@Test
+	public void reactsToPublishedEventsAfterReactionHasBeenCompleted() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.publishQueued().run(model).reactTo(entersText());
+
+		assertEquals(Arrays.asList("Start S1", "End S1", "Start S2", "End S2"), handledSteps);
+		assertEquals(entersNumber().toString(), displayedText);
+		assertRecordedStepNames("S1", "S2");
+	}
+
+	@Test
+	public void reactsToPublishedEventsImmediatelyByDefault() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.run(model).reactTo(entersText());
+
+		assertEquals(Arrays.asList("Start S1", "Start S2", "End S2", "End S1"), handledSteps);
+	}
+
+	@Test
+	public void passesBatchOfEventsToHandler() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).systemPublish(entersNumber -> TEXT)
+			.on(String.class).system(text -> displayedText = text)
+			.on(Integer.class).system(i -> {})
+		.build();
+
+		modelRunner.publishQueued(eventBatches::add).run(model);
+		Optional<Object> latestPublishedEvent = modelRunner.reactTo(entersText());
+		modelRunner.reactTo(42);
+
+		assertEquals(1, eventBatches.size());
+		List<Object> eventBatch = eventBatches.get(0);
+		assertEquals(2, eventBatch.size());
+		assertTrue(eventBatch.get(0) instanceof EntersNumber);
+		assertEquals(TEXT, eventBatch.get(1));
+		assertEquals(TEXT, latestPublishedEvent.get());
+		assertEquals(TEXT, displayedText);
+	}
+
+	@Test
+	public void reactsToLongChainOfEvents() {
+		Model model = modelBuilder
+			.condition(() -> true).on(Integer.class).systemPublish(i -> i > 0 ? i - 1 : null)
+		.build();
+
+		modelRunner.handleWith(StepToBeRun::run).publishQueued(eventBatches::add).run(model);
+		modelRunner.reactTo(100000);
+
+		assertEquals(100000, eventBatches.get(0).size());
+		assertEquals(0, eventBatches.get(0).get(99999));
+	}
+
+	@Test
+	public void customPublisherReplacesQueuedPublishing() {
+		List<Object> publishedEvents = new ArrayList<>();
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.publishQueued(eventBatches::add).publishWith(publishedEvents::add).run(model).reactTo(entersText());
+
+		assertEquals(1, publishedEvents.size());
+		assertTrue(eventBatches.isEmpty());
+		assertEquals(Arrays.asList("Start S1", "End S1"), handledSteps);
+	}
+}
@@ -0,0 +1,140 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+
+public class ReactToAllTest extends AbstractTestCase {
+	private RecordingEventSink eventSink;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		eventSink = new RecordingEventSink();
+	}
+
+	@Test
+	public void passesPublishedEventsAndUnhandledMessagesToSink() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).systemPublish(entersNumber -> TEXT)
+		.build();
+		modelRunner.run(model);
+
+		ReactionSummary summary = modelRunner.reactToAll(Arrays.asList(entersText(), 42, entersText()), eventSink);
+
+		assertEquals(2, summary.getHandledCount());
+		assertEquals(1, summary.getUnhandledCount());
+		assertFalse(summary.getFailure().isPresent());
+		assertEquals(4, eventSink.events.size());
+		assertTrue(eventSink.events.get(0) instanceof EntersNumber);
+		assertEquals(TEXT, eventSink.events.get(1));
+		assertEquals(Arrays.asList(TEXT, 42, TEXT), eventSink.unhandledMessages);
+	}
+
+	@Test
+	public void stopsAtFirstFailure() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+			.on(CharSequence.class).system(s -> {})
+			.on(String.class).system(s -> {})
+		.build();
+		modelRunner.run(model);
+
+		ReactionSummary summary = modelRunner.reactToAll(Arrays.asList(entersText(), TEXT, entersText()), eventSink);
+
+		assertEquals(1, summary.getHandledCount());
+		assertEquals(0, summary.getUnhandledCount());
+		assertTrue(summary.getFailure().get() instanceof MoreThanOneStepCanReact);
+		assertRecordedStepNames("S1");
+	}
+
+	@Test
+	public void doesntPassUnhandledExceptionToSink() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(entersText -> {
+				throw new IllegalStateException();
+			})
+		.build();
+		modelRunner.run(model);
+
+		ReactionSummary summary = modelRunner.reactToAll(Arrays.asList(entersText(), entersText()), eventSink);
+
+		assertEquals(0, summary.getHandledCount());
+		assertEquals(0, summary.getUnhandledCount());
+		assertTrue(summary.getFailure().get() instanceof IllegalStateException);
+		assertTrue(eventSink.unhandledMessages.isEmpty());
+	}
+
+	@Test
+	public void stopsAtFailureWhileReactingToQueuedEvents() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(entersNumber -> {
+				throw new IllegalStateException();
+			})
+		.build();
+		modelRunner.publishQueued().run(model);
+
+		ReactionSummary summary = modelRunner.reactToAll(Arrays.asList(entersText(), entersText()), eventSink);
+
+		assertEquals(1, summary.getHandledCount());
+		assertTrue(summary.getFailure().get() instanceof IllegalStateException);
+		assertEquals(1, eventSink.events.size());
+		assertTrue(eventSink.unhandledMessages.isEmpty());
+		assertRecordedStepNames("S1", "S2");
+	}
+
+	@Test
+	public void reactsToQueuedEventsOfEachMessage() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> entersNumber())
+			.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+		modelRunner.publishQueued().run(model);
+
+		ReactionSummary summary = modelRunner.reactToAll(Arrays.asList(entersText(), entersText()), eventSink);
+
+		assertEquals(2, summary.getHandledCount());
+		assertEquals(2, eventSink.events.size());
+		assertTrue(eventSink.unhandledMessages.isEmpty());
+		assertRecordedStepNames("S1", "S2", "S1", "S2");
+	}
+
+	@Test
+	public void doesntPassEventsToSinkAfterwards() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(entersText -> TEXT)
+		.build();
+		modelRunner.run(model);
+
+		modelRunner.reactToAll(Arrays.asList(entersText()), eventSink);
+		modelRunner.reactTo(entersText(), entersNumber());
+
+		assertEquals(Arrays.asList(TEXT), eventSink.events);
+		assertEquals(Arrays.asList(TEXT), eventSink.unhandledMessages);
+	}
+
+	private static class RecordingEventSink implements EventSink {
+		private final List<Object> events = new ArrayList<>();
+		private final List<Object> unhandledMessages = new ArrayList<>();
+
+		@Override
+		public void publishedEvent(Object event) {
+			events.add(event);
+		}
+
+		@Override
+		public void unhandledMessage(Object message) {
+			unhandledMessages.add(message);
+		}
+	}
+}
@@ -0,0 +1,134 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.requirementsascode.exception.MoreThanOneStepCanReact;
+
+public class ReplayTest extends AbstractTestCase {
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	private List<Object> replayedMessages;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		replayedMessages = new ArrayList<>();
+	}
+
+	@Test
+	public void replaysMessagesInOrder() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(replayedMessages::add)
+			.on(EntersNumber.class).system(replayedMessages::add)
+		.build();
+
+		EntersText entersText = entersText();
+		EntersNumber entersNumber = entersNumber();
+		modelRunner.run(model).replay(Arrays.asList(entersText, entersNumber, entersText).iterator());
+
+		assertEquals(Arrays.asList(entersText, entersNumber, entersText), replayedMessages);
+		assertEquals(EntersText.class, modelRunner.getLatestStep().get().getMessageClass());
+	}
+
+	@Test
+	public void replaysMessagesOfStream() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(replayedMessages::add)
+		.build();
+
+		modelRunner.run(model).replay(Stream.of(entersText(), entersText()));
+
+		assertEquals(2, replayedMessages.size());
+	}
+
+	@Test
+	public void skipsMessagesNoStepCanReactTo() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(replayedMessages::add)
+		.build();
+
+		modelRunner.run(model).replay(Stream.of(entersNumber(), entersText()));
+
+		assertEquals(1, replayedMessages.size());
+	}
+
+	@Test
+	public void bypassesMessageHandlerPublisherAndRecording() {
+		Model model = modelBuilder
+			.on(EntersText.class).systemPublish(this::publishEnteredTextAsString)
+			.on(String.class).system(replayedMessages::add)
+		.build();
+
+		modelRunner.handleWith(stepToBeRun -> replayedMessages.add(stepToBeRun));
+		modelRunner.run(model).replay(Stream.of(entersText()));
+
+		assertEquals(0, replayedMessages.size());
+		assertEquals(0, modelRunner.getRecordedStepNames().length);
+	}
+
+	@Test
+	public void doesNotTriggerAutonomousSystemReactions() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+			.condition(this::textIsAvailable).system(() -> replayedMessages.add(TEXT))
+		.build();
+
+		modelRunner.run(model).replay(Stream.of(entersText()));
+
+		assertEquals(TEXT, displayedText);
+		assertEquals(0, replayedMessages.size());
+	}
+
+	@Test
+	public void replaysStepsOfFlowDependingOnLatestStep() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+				.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model).replay(Stream.of(entersText(), entersNumber(), entersAlternativeText()));
+
+		assertEquals(CUSTOMER_ENTERS_TEXT_AGAIN, latestStepName());
+		assertEquals(entersAlternativeText().value(), displayedText);
+	}
+
+	@Test
+	public void doesNotReplayWhenNotRunning() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		modelRunner.stop();
+		modelRunner.replay(Stream.of(entersText()));
+
+		assertNull(displayedText);
+		assertFalse(modelRunner.getLatestStep().isPresent());
+	}
+
+	@Test
+	public void throwsExceptionIfMoreThanOneStepCanReact() {
+		thrown.expect(MoreThanOneStepCanReact.class);
+
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model).replay(Stream.of(entersText()));
+	}
+}
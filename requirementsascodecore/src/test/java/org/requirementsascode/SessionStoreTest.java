@@ -0,0 +1,265 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.requirementsascode.exception.NoSuchElementInModel;
+
+public class SessionStoreTest extends AbstractTestCase {
+	private static final Duration MAX_IDLE_TIME = Duration.ofMinutes(30);
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path passivationDirectory;
+	private long nanoTime;
+	private Model model;
+	private boolean systemMayReact;
+	private int systemReactionCount;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		passivationDirectory = temporaryFolder.getRoot().toPath();
+		nanoTime = 0;
+		model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+			.build();
+	}
+
+	@Test
+	public void returnsSameRunnerForActiveSession() {
+		SessionStore sessionStore = createSessionStore(2);
+
+		ModelRunner runner = sessionStore.get("A");
+
+		assertSame(runner, sessionStore.get("A"));
+		assertTrue(runner.isRunning());
+		assertEquals(1, sessionStore.getHitCount());
+		assertEquals(1, sessionStore.getMissCount());
+	}
+
+	@Test
+	public void passivatesLeastRecentlyAccessedSession() {
+		SessionStore sessionStore = createSessionStore(2);
+
+		sessionStore.get("A");
+		sessionStore.get("B");
+		sessionStore.get("A");
+		sessionStore.get("C");
+
+		assertEquals(2, sessionStore.getActiveCount());
+		assertEquals(1, sessionStore.getPassivationCount());
+		assertEquals(1, passivationDirectory.toFile().list().length);
+		sessionStore.get("A");
+		assertEquals(1, sessionStore.getPassivationCount());
+	}
+
+	@Test
+	public void restoresPositionOfPassivatedSession() {
+		SessionStore sessionStore = createSessionStore(1);
+
+		sessionStore.reactTo("A", entersText());
+		ModelRunner runnerOfA = sessionStore.get("A");
+		sessionStore.reactTo("B", entersNumber());
+		sessionStore.reactTo("A", entersNumber());
+
+		ModelRunner restoredRunnerOfA = sessionStore.get("A");
+		assertNotSame(runnerOfA, restoredRunnerOfA);
+		assertEquals(CUSTOMER_ENTERS_NUMBER, restoredRunnerOfA.getLatestStep().get().getName());
+		assertFalse(sessionStore.get("B").getLatestStep().isPresent());
+		assertEquals(2, sessionStore.getActivationCount());
+		assertEquals(3, sessionStore.getPassivationCount());
+	}
+
+	@Test
+	public void doesNotTriggerSystemReactionWhenRestoringSession() {
+		model = Model.builder().useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+			.flow(ALTERNATIVE_FLOW).after(CUSTOMER_ENTERS_TEXT).condition(() -> systemMayReact)
+				.step(SYSTEM_DISPLAYS_TEXT).system(() -> systemReactionCount++)
+			.build();
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.reactTo("A", entersText());
+		sessionStore.get("B");
+
+		systemMayReact = true;
+		ModelRunner restoredRunnerOfA = sessionStore.get("A");
+
+		assertEquals(0, systemReactionCount);
+		assertEquals(CUSTOMER_ENTERS_TEXT, restoredRunnerOfA.getLatestStep().get().getName());
+	}
+
+	@Test
+	public void restoresPendingWorkOfPassivatedSession() {
+		model = Model.builder().useCase(USE_CASE)
+			.basicFlow()
+				.step("S1").system(() -> {})
+				.step("S2").system(() -> {})
+				.step("S3").system(() -> {})
+			.build();
+		SessionStore sessionStore = createSessionStore(1, () -> new ModelRunner().limitStepsPerDispatch(1));
+		sessionStore.get("A");
+		sessionStore.get("B");
+
+		ModelRunner restoredRunnerOfA = sessionStore.get("A");
+
+		assertTrue(restoredRunnerOfA.hasPendingWork());
+		assertEquals("S1", restoredRunnerOfA.getLatestStep().get().getName());
+		restoredRunnerOfA.resume();
+		assertEquals("S2", restoredRunnerOfA.getLatestStep().get().getName());
+	}
+
+	@Test
+	public void restoresStoppedSessionWithModel() {
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.reactTo("A", entersText());
+		sessionStore.get("A").stop();
+		sessionStore.get("B");
+
+		ModelRunner restoredRunnerOfA = sessionStore.get("A");
+
+		assertFalse(restoredRunnerOfA.isRunning());
+		assertTrue(restoredRunnerOfA.mayReactTo(EntersNumber.class));
+		assertEquals(CUSTOMER_ENTERS_TEXT, restoredRunnerOfA.getLatestStep().get().getName());
+	}
+
+	@Test
+	public void passivatesIdleSessions() {
+		SessionStore sessionStore = createSessionStore(10);
+		sessionStore.get("A");
+		nanoTime = Duration.ofMinutes(10).toNanos();
+		sessionStore.get("B");
+
+		nanoTime = MAX_IDLE_TIME.toNanos();
+		assertEquals(1, sessionStore.evictIdle());
+		assertEquals(1, sessionStore.getActiveCount());
+
+		nanoTime += Duration.ofMinutes(10).toNanos();
+		sessionStore.get("A");
+		assertEquals(1, sessionStore.getActiveCount());
+		assertEquals(2, sessionStore.getPassivationCount());
+	}
+
+	@Test
+	public void passivatesAllSessions() {
+		SessionStore sessionStore = createSessionStore(10);
+		sessionStore.reactTo("A", entersText());
+		sessionStore.get("B");
+
+		sessionStore.passivateAll();
+
+		assertEquals(0, sessionStore.getActiveCount());
+		assertEquals(2, passivationDirectory.toFile().list().length);
+		assertEquals(CUSTOMER_ENTERS_TEXT, createSessionStore(10).get("A").getLatestStep().get().getName());
+	}
+
+	@Test
+	public void removesActiveAndPassivatedSessions() {
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.reactTo("A", entersText());
+		sessionStore.get("B");
+
+		sessionStore.remove("A");
+		sessionStore.remove("B");
+
+		assertEquals(0, sessionStore.getActiveCount());
+		assertEquals(0, passivationDirectory.toFile().list().length);
+		assertFalse(sessionStore.get("A").getLatestStep().isPresent());
+	}
+
+	@Test(expected = NoSuchElementInModel.class)
+	public void throwsExceptionIfPassivatedStepIsNotInModel() {
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.reactTo("A", entersText());
+		sessionStore.passivateAll();
+
+		model = Model.builder().useCase(USE_CASE).basicFlow().step(CUSTOMER_ENTERS_NUMBER)
+			.user(EntersNumber.class).system(displaysEnteredNumber()).build();
+		createSessionStore(1).get("A");
+	}
+
+	@Test
+	public void keepsPassivatedPositionIfRestoringFails() {
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.reactTo("A", entersText());
+		sessionStore.passivateAll();
+
+		model = Model.builder().useCase(USE_CASE).basicFlow().step(CUSTOMER_ENTERS_NUMBER)
+			.user(EntersNumber.class).system(displaysEnteredNumber()).build();
+		try {
+			createSessionStore(1).get("A");
+			fail();
+		} catch (NoSuchElementInModel e) {
+		}
+
+		assertTrue(new File(passivationDirectory.toFile(), "41.position").exists());
+	}
+
+	@Test
+	public void keepsSessionActiveIfPassivationFails() throws IOException {
+		passivationDirectory = temporaryFolder.newFolder().toPath();
+		SessionStore sessionStore = createSessionStore(1);
+		ModelRunner runner = sessionStore.get("A");
+		Files.delete(passivationDirectory);
+
+		try {
+			sessionStore.passivateAll();
+			fail();
+		} catch (UncheckedIOException e) {
+		}
+
+		assertEquals(1, sessionStore.getActiveCount());
+		assertEquals(0, sessionStore.getPassivationCount());
+		assertSame(runner, sessionStore.get("A"));
+	}
+
+	@Test
+	public void leavesNoTemporaryFileWhenPassivating() {
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.get("A");
+		sessionStore.passivateAll();
+		sessionStore.get("A");
+		sessionStore.passivateAll();
+
+		assertEquals(Arrays.asList("41.position"), Arrays.asList(passivationDirectory.toFile().list()));
+	}
+
+	@Test
+	public void usesHexadecimalSessionIdAsFileName() {
+		SessionStore sessionStore = createSessionStore(1);
+		sessionStore.get("a/b");
+		sessionStore.get("B");
+
+		assertTrue(new File(passivationDirectory.toFile(), "612f62.position").exists());
+	}
+
+	private SessionStore createSessionStore(int maxActiveSessions) {
+		return createSessionStore(maxActiveSessions, ModelRunner::new);
+	}
+
+	private SessionStore createSessionStore(int maxActiveSessions, Supplier<ModelRunner> runnerFactory) {
+		return new SessionStore(model, runnerFactory, maxActiveSessions, MAX_IDLE_TIME, passivationDirectory,
+				() -> nanoTime);
+	}
+}
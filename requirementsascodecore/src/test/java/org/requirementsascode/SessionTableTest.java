@@ -0,0 +1,143 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionTableTest extends AbstractTestCase {
+	private static final String SYSTEM_STARTS = "System starts";
+
+	private Model model;
+	private int startCount;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(SYSTEM_STARTS).system(() -> startCount++)
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+			.build();
+	}
+
+	@Test
+	public void addsSessionsAndTriggersAutonomousSystemReactions() {
+		SessionTable sessionTable = SessionTable.onHeap(model, modelRunner, 10);
+
+		assertEquals(0, sessionTable.addSession());
+		assertEquals(1, sessionTable.addSession());
+
+		assertEquals(2, sessionTable.getSize());
+		assertEquals(2, startCount);
+		assertEquals(SYSTEM_STARTS, latestStepName(sessionTable, 0));
+		assertTrue(sessionTable.isRunning(1));
+	}
+
+	@Test
+	public void reactsToMessageInPositionOfSession() {
+		SessionTable sessionTable = SessionTable.onHeap(model, modelRunner, 10);
+		int firstSession = sessionTable.addSession();
+		int secondSession = sessionTable.addSession();
+
+		sessionTable.reactTo(firstSession, entersText());
+		sessionTable.reactTo(secondSession, entersNumber());
+		sessionTable.reactTo(firstSession, entersNumber());
+
+		assertEquals(CUSTOMER_ENTERS_NUMBER, latestStepName(sessionTable, firstSession));
+		assertEquals(SYSTEM_STARTS, latestStepName(sessionTable, secondSession));
+		assertRecordedStepNames(SYSTEM_STARTS, SYSTEM_STARTS, CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER);
+	}
+
+	@Test
+	public void reactsToMessageForAllSessionsAtStep() {
+		SessionTable sessionTable = SessionTable.offHeap(model, modelRunner.cacheTransitions(), 1);
+		for (int i = 0; i < 100; i++) {
+			sessionTable.addSession();
+		}
+		Step systemStarts = model.findUseCase(USE_CASE).findStep(SYSTEM_STARTS);
+		Step customerEntersText = model.findUseCase(USE_CASE).findStep(CUSTOMER_ENTERS_TEXT);
+		sessionTable.reactTo(7, entersText());
+		sessionTable.stop(8);
+
+		assertEquals(98, sessionTable.reactToAllAt(systemStarts, entersText()));
+
+		assertEquals(99, sessionTable.countSessionsAt(customerEntersText));
+		assertEquals(0, sessionTable.countSessionsAt(systemStarts));
+		assertEquals(SYSTEM_STARTS, latestStepName(sessionTable, 8));
+		assertEquals(0, sessionTable.countSessionsAt(null));
+	}
+
+	@Test
+	public void ignoresMessagesForStoppedSession() {
+		SessionTable sessionTable = SessionTable.onHeap(model, modelRunner, 10);
+		int session = sessionTable.addSession();
+		sessionTable.stop(session);
+
+		Optional<Object> event = sessionTable.reactTo(session, entersText());
+
+		assertFalse(event.isPresent());
+		assertFalse(sessionTable.isRunning(session));
+		assertEquals(SYSTEM_STARTS, latestStepName(sessionTable, session));
+	}
+
+	@Test
+	public void stopsSessionWhoseStepStopsDispatchRunner() {
+		Model stoppingModel = Model.builder()
+			.on(EntersNumber.class).system(entersNumber -> modelRunner.stop())
+			.on(EntersText.class).system(displaysEnteredText())
+			.build();
+		SessionTable sessionTable = SessionTable.onHeap(stoppingModel, modelRunner, 10);
+		int stoppedSession = sessionTable.addSession();
+		int runningSession = sessionTable.addSession();
+
+		sessionTable.reactTo(stoppedSession, entersNumber());
+		Optional<Object> event = sessionTable.reactTo(stoppedSession, entersText());
+		sessionTable.reactTo(runningSession, entersText());
+
+		assertFalse(event.isPresent());
+		assertFalse(sessionTable.isRunning(stoppedSession));
+		assertEquals(EntersNumber.class, sessionTable.getLatestStep(stoppedSession).get().getMessageClass());
+		assertTrue(sessionTable.isRunning(runningSession));
+		assertEquals(EntersText.class, sessionTable.getLatestStep(runningSession).get().getMessageClass());
+	}
+
+	@Test
+	public void resumesPendingWorkOfSession() {
+		Model chainModel = Model.builder().useCase(USE_CASE)
+			.basicFlow()
+				.step("S1").system(() -> {})
+				.step("S2").system(() -> {})
+				.step("S3").system(() -> {})
+			.build();
+		SessionTable sessionTable = SessionTable.onHeap(chainModel, modelRunner.limitStepsPerDispatch(2), 10);
+		int firstSession = sessionTable.addSession();
+		int secondSession = sessionTable.addSession();
+		assertTrue(sessionTable.hasPendingWork(firstSession));
+		assertTrue(sessionTable.hasPendingWork(secondSession));
+
+		sessionTable.resume(firstSession);
+
+		assertEquals("S3", latestStepName(sessionTable, firstSession));
+		assertFalse(sessionTable.hasPendingWork(firstSession));
+		assertEquals("S2", latestStepName(sessionTable, secondSession));
+		assertTrue(sessionTable.hasPendingWork(secondSession));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void throwsExceptionForUnknownSession() {
+		SessionTable sessionTable = SessionTable.onHeap(model, modelRunner, 10);
+		sessionTable.addSession();
+
+		sessionTable.reactTo(1, entersText());
+	}
+
+	private String latestStepName(SessionTable sessionTable, int session) {
+		return sessionTable.getLatestStep(session).get().getName();
+	}
+}
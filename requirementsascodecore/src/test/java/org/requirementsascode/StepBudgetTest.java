@@ -0,0 +1,120 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StepBudgetTest extends AbstractTestCase {
+	private int loopCount;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+	}
+
+	@Test
+	public void runsWholeChainWithoutLimit() {
+		modelRunner.run(chainModel());
+
+		assertRecordedStepNames("S1", "S2", "S3", "S4", "S5");
+		assertFalse(modelRunner.hasPendingWork());
+	}
+
+	@Test
+	public void yieldsWhenLimitIsReachedAndResumes() {
+		modelRunner.limitStepsPerDispatch(2).run(chainModel());
+		assertRecordedStepNames("S1", "S2");
+		assertTrue(modelRunner.hasPendingWork());
+
+		modelRunner.resume();
+		assertRecordedStepNames("S1", "S2", "S3", "S4");
+		assertTrue(modelRunner.hasPendingWork());
+
+		modelRunner.resume();
+		assertRecordedStepNames("S1", "S2", "S3", "S4", "S5");
+		assertFalse(modelRunner.hasPendingWork());
+
+		modelRunner.resume();
+		assertRecordedStepNames("S1", "S2", "S3", "S4", "S5");
+	}
+
+	@Test
+	public void hasNoPendingWorkIfChainEndsAtLimit() {
+		modelRunner.limitStepsPerDispatch(5).run(chainModel());
+
+		assertRecordedStepNames("S1", "S2", "S3", "S4", "S5");
+		assertFalse(modelRunner.hasPendingWork());
+	}
+
+	@Test
+	public void hasBudgetForEachMessageOfCall() {
+		modelRunner.limitStepsPerDispatch(2).run(chainModel());
+
+		modelRunner.reactTo(entersNumber(), entersNumber());
+
+		assertRecordedStepNames("S1", "S2", "S3", "S4", "S5");
+		assertFalse(modelRunner.hasPendingWork());
+	}
+
+	@Test
+	public void resumesPendingWorkBeforeReactingToMessage() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step("S1").system(() -> {})
+				.step("S2").system(() -> {})
+				.step("S3").system(() -> {})
+				.step("S4").user(EntersText.class).system(displaysEnteredText())
+				.step("S5").system(() -> {})
+			.build();
+
+		modelRunner.limitStepsPerDispatch(2).run(model);
+		modelRunner.reactTo(entersText());
+
+		assertRecordedStepNames("S1", "S2", "S3", "S4");
+		assertEquals(TEXT, displayedText);
+		assertTrue(modelRunner.hasPendingWork());
+	}
+
+	@Test
+	public void yieldsInLoopInsteadOfRepeatingInfinitely() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step("S1").system(() -> loopCount++)
+				.step("S2").continuesAt("S1")
+			.build();
+
+		modelRunner.limitStepsPerDispatch(10).run(model);
+		assertEquals(5, loopCount);
+		assertTrue(modelRunner.hasPendingWork());
+
+		modelRunner.resume();
+		assertEquals(10, loopCount);
+	}
+
+	@Test
+	public void hasNoPendingWorkWhenStopped() {
+		modelRunner.limitStepsPerDispatch(1).run(chainModel());
+		modelRunner.stop();
+
+		assertFalse(modelRunner.hasPendingWork());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void throwsExceptionIfLimitIsLessThanOne() {
+		modelRunner.limitStepsPerDispatch(0);
+	}
+
+	private Model chainModel() {
+		return modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step("S1").system(() -> {})
+				.step("S2").system(() -> {})
+				.step("S3").system(() -> {})
+				.step("S4").system(() -> {})
+				.step("S5").system(() -> {})
+			.build();
+	}
+}
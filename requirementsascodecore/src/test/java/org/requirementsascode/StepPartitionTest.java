@@ -0,0 +1,108 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StepPartitionTest extends AbstractTestCase {
+	private Actor customer;
+	private Actor secondActor;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		this.customer = modelBuilder.actor("Customer");
+		this.secondActor = modelBuilder.actor("Second Actor");
+	}
+
+	@Test
+	public void partitionsStepsByActorIncludingSystemSteps() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).as(customer).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).as(secondActor).user(EntersNumber.class).system(displaysEnteredNumber())
+				.step(SYSTEM_DISPLAYS_TEXT).system(displaysConstantText())
+		.build();
+
+		StepPartition customerPartition = model.getStepPartition(customer);
+		StepPartition secondActorPartition = model.getStepPartition(secondActor);
+
+		assertEquals(2, customerPartition.getSteps().size());
+		assertTrue(customerPartition.getSteps().contains(findStep(model, CUSTOMER_ENTERS_TEXT)));
+		assertTrue(customerPartition.getSteps().contains(findStep(model, SYSTEM_DISPLAYS_TEXT)));
+		assertEquals(2, secondActorPartition.getSteps().size());
+		assertTrue(secondActorPartition.getSteps().contains(findStep(model, CUSTOMER_ENTERS_NUMBER)));
+		assertEquals(1, model.getStepPartition(model.getSystemActor()).getSteps().size());
+	}
+
+	@Test
+	public void sharesPartitionsOfUnchangedModel() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		assertSame(model.getStepPartition(customer), model.getStepPartition(customer));
+	}
+
+	@Test
+	public void discardsPartitionsWhenModelChanges() {
+		Model model = modelBuilder.useCase(USE_CASE).as(customer)
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+		StepPartition partition = model.getStepPartition(customer);
+
+		modelBuilder.useCase("Second Use Case").as(customer).on(EntersNumber.class).system(displaysEnteredNumber()).build();
+
+		assertNotSame(partition, model.getStepPartition(customer));
+		assertEquals(2, model.getStepPartition(customer).getSteps().size());
+	}
+
+	@Test
+	public void switchesActorsWithoutLosingPosition() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).as(customer).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).as(secondActor).user(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.as(customer).run(model).reactTo(entersText());
+		modelRunner.as(customer).reactTo(entersNumber());
+		modelRunner.as(secondActor).reactTo(entersNumber());
+
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER);
+	}
+
+	@Test
+	public void releasesModelAfterDispatch() throws InterruptedException {
+		WeakReference<Model> model = new WeakReference<>(runModelAndReactTo(TEXT));
+
+		assertIsGarbageCollected(model);
+	}
+
+	private Model runModelAndReactTo(Object message) {
+		Model model = Model.builder()
+			.on(String.class).system(text -> {})
+		.build();
+		new ModelRunner().run(model).reactTo(message);
+		return model;
+	}
+
+	private void assertIsGarbageCollected(WeakReference<?> reference) throws InterruptedException {
+		for (int i = 0; i < 100 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(reference.get());
+	}
+
+	private Step findStep(Model model, String stepName) {
+		return model.findUseCase(USE_CASE).findStep(stepName);
+	}
+}
@@ -0,0 +1,86 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SystemReactionTest {
+	private List<Object> reactions;
+	private List<Object> publishedEvents;
+
+	@Before
+	public void setup() {
+		reactions = new ArrayList<>();
+		publishedEvents = new ArrayList<>();
+	}
+
+	@Test
+	public void runnableReactsWithoutPublishing() {
+		Runnable runnable = () -> reactions.add("run");
+		SystemReaction<String> systemReaction = SystemReaction.ofRunnable(runnable);
+
+		systemReaction.invoke(null, "Message", publishedEvents::add);
+
+		assertSame(runnable, systemReaction.getModelObject());
+		assertEquals("run", reactions.get(0));
+		assertTrue(publishedEvents.isEmpty());
+		assertNull(systemReaction.apply("Message"));
+	}
+
+	@Test
+	public void consumerReceivesMessage() {
+		Consumer<String> consumer = reactions::add;
+		SystemReaction<String> systemReaction = SystemReaction.ofConsumer(consumer);
+
+		systemReaction.invoke(null, "Message", publishedEvents::add);
+
+		assertEquals("Message", reactions.get(0));
+		assertTrue(publishedEvents.isEmpty());
+	}
+
+	@Test
+	public void contextReactionReceivesContextAndMessage() {
+		ContextReaction<List<Object>, String> contextReaction = ModelTemplate.reaction(List::add);
+		SystemReaction<String> systemReaction = SystemReaction.ofContextReaction(contextReaction);
+
+		systemReaction.invoke(reactions, "Message", publishedEvents::add);
+
+		assertSame(contextReaction, systemReaction.getModelObject());
+		assertEquals("Message", reactions.get(0));
+		assertTrue(publishedEvents.isEmpty());
+	}
+
+	@Test
+	public void supplierPublishesEventIfThereIsOne() {
+		Supplier<Object> supplier = () -> reactions.isEmpty() ? null : "Event";
+		SystemReaction<String> systemReaction = SystemReaction.ofSupplier(supplier);
+
+		systemReaction.invoke(null, "Message", publishedEvents::add);
+		assertTrue(publishedEvents.isEmpty());
+
+		reactions.add("Reaction");
+		systemReaction.invoke(null, "Message", publishedEvents::add);
+		assertEquals("Event", publishedEvents.get(0));
+	}
+
+	@Test
+	public void functionPublishesReturnedEvent() {
+		Function<String, Object> function = String::length;
+		SystemReaction<String> systemReaction = SystemReaction.ofFunction(function);
+
+		systemReaction.invoke(null, "Message", publishedEvents::add);
+
+		assertEquals(7, publishedEvents.get(0));
+		assertEquals(7, systemReaction.apply("Message"));
+	}
+}
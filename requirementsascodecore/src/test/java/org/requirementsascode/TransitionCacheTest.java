@@ -0,0 +1,147 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TransitionCacheTest extends AbstractTestCase {
+	private int timesDisplayed;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		modelRunner.cacheTransitions();
+		timesDisplayed = 0;
+	}
+
+	@Test
+	public void cachesConditionFreeTransitions() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CUSTOMER_ENTERS_NUMBER).user(EntersNumber.class).system(displaysEnteredNumber())
+				.step(CUSTOMER_ENTERS_TEXT_AGAIN).user(EntersText.class).system(displaysEnteredText())
+			.flow(ALTERNATIVE_FLOW).after(CUSTOMER_ENTERS_TEXT_AGAIN)
+				.step(CUSTOMER_ENTERS_ALTERNATIVE_TEXT).user(EntersText.class).system(displaysEnteredText())
+				.step(CONTINUE).continuesAfter(CUSTOMER_ENTERS_TEXT)
+		.build();
+
+		modelRunner.run(model);
+		modelRunner.reactTo(entersText(), entersNumber(), entersText(), entersText(), entersNumber(), entersText(),
+			entersText(), entersNumber());
+
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT, CUSTOMER_ENTERS_NUMBER, CUSTOMER_ENTERS_TEXT_AGAIN,
+			CUSTOMER_ENTERS_ALTERNATIVE_TEXT, CONTINUE, CUSTOMER_ENTERS_NUMBER, CUSTOMER_ENTERS_TEXT_AGAIN,
+			CUSTOMER_ENTERS_ALTERNATIVE_TEXT, CONTINUE, CUSTOMER_ENTERS_NUMBER);
+		assertTrue(modelRunner.getCachedTransitionCount() > 0);
+	}
+
+	@Test
+	public void cachesThatNoStepReacts() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		int cachedTransitionCount = modelRunner.getCachedTransitionCount();
+		modelRunner.reactTo(entersNumber(), entersNumber());
+
+		assertRecordedStepNames();
+		assertEquals(cachedTransitionCount + 1, modelRunner.getCachedTransitionCount());
+	}
+
+	@Test
+	public void doesNotCacheTransitionsWithConditions() {
+		Model model = modelBuilder
+			.condition(this::textIsNotAvailable).on(EntersText.class).system(displaysEnteredText())
+			.condition(this::textIsAvailable).on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		modelRunner.reactTo(entersText());
+		Step firstStep = modelRunner.getLatestStep().get();
+		modelRunner.setLatestStep(null);
+		modelRunner.reactTo(entersText());
+
+		assertNotSame(firstStep, modelRunner.getLatestStep().get());
+	}
+
+	@Test
+	public void doesNotCacheTransitionsWithReactWhileConditions() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow()
+				.step(SYSTEM_DISPLAYS_TEXT).system(this::incrementTimesDisplayed).reactWhile(() -> timesDisplayed < 3)
+		.build();
+
+		modelRunner.run(model);
+
+		assertEquals(3, timesDisplayed);
+		assertEquals(0, modelRunner.getCachedTransitionCount());
+	}
+
+	@Test
+	public void discardsCacheWhenRunWithOtherModel() {
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+		modelRunner.run(model).reactTo(entersText());
+		assertTrue(modelRunner.getCachedTransitionCount() > 0);
+
+		Model otherModel = Model.builder().build();
+		modelRunner.run(otherModel);
+		assertEquals(0, modelRunner.getCachedTransitionCount());
+	}
+
+	@Test
+	public void keepsCachesWhenSwitchingActors() {
+		Actor customer = modelBuilder.actor("Customer");
+		Actor secondActor = modelBuilder.actor("Second Actor");
+		Model model = modelBuilder
+			.useCase(USE_CASE).as(customer)
+				.on(EntersText.class).system(displaysEnteredText())
+			.useCase("Second Use Case").as(secondActor)
+				.on(EntersNumber.class).system(displaysEnteredNumber())
+		.build();
+
+		modelRunner.as(customer).run(model).reactTo(entersText());
+		int customerTransitionCount = modelRunner.getCachedTransitionCount();
+		modelRunner.as(secondActor).reactTo(entersNumber());
+		assertEquals(entersNumber().toString(), displayedText);
+
+		modelRunner.as(customer);
+		assertEquals(customerTransitionCount, modelRunner.getCachedTransitionCount());
+		modelRunner.reactTo(entersText());
+		assertEquals(TEXT, displayedText);
+	}
+
+	@Test
+	public void tableGrowsAndKeepsEntries() {
+		TransitionCache transitionCache = new TransitionCache();
+		Model model = modelBuilder
+			.on(EntersText.class).system(displaysEnteredText())
+		.build();
+		Step step = model.getSteps().iterator().next();
+
+		for (int ordinal = 0; ordinal < 100; ordinal++) {
+			transitionCache.put(ordinal, EntersText.class, step);
+			transitionCache.put(ordinal, EntersNumber.class, null);
+		}
+
+		assertEquals(200, transitionCache.size());
+		for (int ordinal = 0; ordinal < 100; ordinal++) {
+			assertSame(step, transitionCache.stepAt(transitionCache.indexOf(ordinal, EntersText.class)));
+			assertNull(transitionCache.stepAt(transitionCache.indexOf(ordinal, EntersNumber.class)));
+		}
+		assertEquals(-1, transitionCache.indexOf(100, EntersText.class));
+	}
+
+	private void incrementTimesDisplayed() {
+		timesDisplayed++;
+	}
+}
@@ -0,0 +1,107 @@
+package org.requirementsascode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class VersionedConditionTest extends AbstractTestCase {
+	private long stateVersion;
+	private boolean conditionResult;
+	private int evaluations;
+
+	@Before
+	public void setup() {
+		setupWithRecordingModelRunner();
+		stateVersion = 0;
+		conditionResult = true;
+		evaluations = 0;
+	}
+
+	@Test
+	public void evaluatesVersionedConditionOnceForSameVersion() {
+		Model model = modelBuilder
+			.condition(versionedCondition()).on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		modelRunner.reactTo(entersText(), entersText(), entersText());
+
+		assertEquals(1, evaluations);
+		assertEquals(3, modelRunner.getRecordedStepNames().length);
+	}
+
+	@Test
+	public void reevaluatesVersionedConditionWhenVersionChanges() {
+		Model model = modelBuilder
+			.condition(versionedCondition()).on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		modelRunner.reactTo(entersText());
+
+		conditionResult = false;
+		modelRunner.reactTo(entersText());
+		assertEquals(2, modelRunner.getRecordedStepNames().length);
+
+		stateVersion++;
+		modelRunner.reactTo(entersText());
+		assertEquals(2, modelRunner.getRecordedStepNames().length);
+		assertEquals(2, evaluations);
+	}
+
+	@Test
+	public void canReactToAndReactToTypesReuseCachedResult() {
+		Model model = modelBuilder
+			.condition(versionedCondition()).on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(modelRunner.canReactTo(EntersText.class));
+			assertEquals(1, modelRunner.getReactToTypes().size());
+		}
+
+		assertEquals(1, evaluations);
+	}
+
+	@Test
+	public void versionedConditionWorksAsFlowCondition() {
+		Model model = modelBuilder.useCase(USE_CASE)
+			.basicFlow().condition(versionedCondition())
+				.step(CUSTOMER_ENTERS_TEXT).user(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		conditionResult = false;
+		modelRunner.run(model);
+		assertFalse(modelRunner.canReactTo(EntersText.class));
+
+		conditionResult = true;
+		stateVersion++;
+		modelRunner.reactTo(entersText());
+		assertRecordedStepNames(CUSTOMER_ENTERS_TEXT);
+	}
+
+	@Test
+	public void restartingRunnerDiscardsCachedResults() {
+		Model model = modelBuilder
+			.condition(versionedCondition()).on(EntersText.class).system(displaysEnteredText())
+		.build();
+
+		modelRunner.run(model);
+		modelRunner.canReactTo(EntersText.class);
+		modelRunner.restart();
+		modelRunner.canReactTo(EntersText.class);
+
+		assertEquals(2, evaluations);
+	}
+
+	private VersionedCondition versionedCondition() {
+		return VersionedCondition.of(() -> {
+			evaluations++;
+			return conditionResult;
+		}, () -> stateVersion);
+	}
+}
@@ -0,0 +1,96 @@
+package creditcard_eventsourcing.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.requirementsascode.ModelRunner;
+
+import creditcard_eventsourcing.model.CreditCard;
+import creditcard_eventsourcing.model.CreditCardModelRunner;
+import creditcard_eventsourcing.persistence.CreditCardRepository;
+
+/**
+ * Measures how many load-modify-save operations per second the credit card
+ * repository handles when several threads work on randomly chosen cards at the
+ * same time. Saves that fail because another thread saved the same card first
+ * are counted as conflicts.
+ *
+ * <p>
+ * Usage: RepositoryThroughputBenchmark [threads] [cards] [seconds]
+ *
+ * @author b_muth
+ *
+ */
+public class RepositoryThroughputBenchmark {
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_CARDS = 1000;
+    private static final int DEFAULT_SECONDS = 10;
+
+    public static void main(String[] args) throws Exception {
+	int threads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_THREADS;
+	int cards = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_CARDS;
+	int seconds = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SECONDS;
+
+	CreditCardRepository repository = new CreditCardRepository();
+	UUID[] uuids = createCards(repository, cards);
+
+	long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+	ExecutorService executor = Executors.newFixedThreadPool(threads);
+	List<Future<Result>> futureResults = new ArrayList<>();
+	for (int i = 0; i < threads; i++) {
+	    futureResults.add(executor.submit(() -> closeCyclesUntil(endTime, repository, uuids)));
+	}
+	executor.shutdown();
+
+	long operations = 0;
+	long conflicts = 0;
+	for (Future<Result> futureResult : futureResults) {
+	    Result result = futureResult.get();
+	    operations += result.operations;
+	    conflicts += result.conflicts;
+	}
+
+	System.out.printf("%d threads, %d cards, %d seconds%n", threads, cards, seconds);
+	System.out.printf("%d operations per second, %d conflicts%n", operations / seconds, conflicts);
+    }
+
+    private static UUID[] createCards(CreditCardRepository repository, int cards) {
+	UUID[] uuids = new UUID[cards];
+	for (int i = 0; i < cards; i++) {
+	    CreditCard creditCard = new CreditCard(UUID.randomUUID());
+	    new CreditCardModelRunner(creditCard, new ModelRunner()).requestToAssignLimit(BigDecimal.TEN);
+	    repository.save(creditCard);
+	    uuids[i] = creditCard.getUuid();
+	}
+	return uuids;
+    }
+
+    private static Result closeCyclesUntil(long endTime, CreditCardRepository repository, UUID[] uuids) {
+	Result result = new Result();
+	ThreadLocalRandom random = ThreadLocalRandom.current();
+	while (System.nanoTime() < endTime) {
+	    CreditCard creditCard = repository.load(uuids[random.nextInt(uuids.length)]);
+	    new CreditCardModelRunner(creditCard, new ModelRunner()).requestToCloseCycle();
+	    try {
+		repository.save(creditCard);
+		result.operations++;
+	    } catch (ConcurrentModificationException e) {
+		result.conflicts++;
+	    }
+	}
+	return result;
+    }
+
+    private static class Result {
+	private long operations;
+	private long conflicts;
+    }
+}
@@ -1,16 +1,19 @@
 package creditcard_eventsourcing.model;
 
+import static org.requirementsascode.ModelTemplate.reaction;
+
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.function.Consumer;
 
-import org.requirementsascode.Condition;
+import org.requirementsascode.ContextCondition;
+import org.requirementsascode.ContextReaction;
+import org.requirementsascode.FlowlessDispatcher;
 import org.requirementsascode.Model;
-import org.requirementsascode.ModelRunner;
-import org.requirementsascode.StepToBeRun;
+import org.requirementsascode.ModelTemplate;
+import org.requirementsascode.VersionedContextCondition;
 
 import creditcard_eventsourcing.model.request.RequestToCloseCycle;
 import creditcard_eventsourcing.model.request.RequestsRepay;
@@ -28,33 +31,26 @@ public class CreditCard {
     private BigDecimal initialLimit;
     private BigDecimal usedLimit = BigDecimal.ZERO;
     private int withdrawals;
+    private long limitAssignments;
+    private int version;
     private List<DomainEvent> pendingEvents = new ArrayList<>();
-    private Model eventHandlingModel;
-    private ModelRunner modelRunner;
+
+    private static final FlowlessDispatcher eventDispatcher = FlowlessDispatcher
+	.of(ModelTemplate.of(CreditCard.class, model()));
 
     public CreditCard(UUID uuid) {
         this.uuid = uuid;
-        this.eventHandlingModel = model();
-        this.modelRunner = new ModelRunner();
-        modelRunner.handleWith(this::addingPendingEvents);
-        modelRunner.run(eventHandlingModel);
     }
 
-    private Model model() {
+    private static Model model() {
 	return Model.builder()
-	  .on(LimitAssigned.class).system(this::limitAssigned)
-	  .on(CardWithdrawn.class).system(this::cardWithdrawn)
-	  .on(CardRepaid.class).system(this::cardRepaid)
-	  .on(CycleClosed.class).system(this::cycleWasClosed)
+	  .on(LimitAssigned.class).system(reaction(CreditCard::limitAssigned))
+	  .on(CardWithdrawn.class).system(reaction(CreditCard::cardWithdrawn))
+	  .on(CardRepaid.class).system(reaction(CreditCard::cardRepaid))
+	  .on(CycleClosed.class).system(reaction(CreditCard::cycleWasClosed))
 	.build();
     }
     
-    private void addingPendingEvents(StepToBeRun stepToBeRun) {
-	stepToBeRun.run();
-	DomainEvent domainEvent = (DomainEvent) stepToBeRun.getMessage().get();
-	pendingEvents.add(domainEvent);
-    }
-
     public List<DomainEvent> getPendingEvents() {
         return pendingEvents;
     }
@@ -65,6 +61,7 @@ public class CreditCard {
     
     private void limitAssigned(LimitAssigned event) {
         this.initialLimit = event.getAmount(); 
+        limitAssignments++;
     }
 
     private void cardWithdrawn(CardWithdrawn event) {
@@ -87,6 +84,20 @@ public class CreditCard {
         return uuid;
     }
     
+    /**
+     * Returns the number of saved events this card has been recreated from, or
+     * that have been flushed after saving.
+     * 
+     * @return the version of the card
+     */
+    public int getVersion() {
+        return version;
+    }
+    
+    public CreditCardState getState() {
+	return new CreditCardState(initialLimit, usedLimit, withdrawals, limitAssignments);
+    }
+    
     /*
      * Validation methods
      */
@@ -102,48 +113,48 @@ public class CreditCard {
      * Commands
      */
     
-    class AssignsLimit implements Consumer<RequestsToAssignLimit> {
+    static class AssignsLimit extends ContextReaction<CreditCard, RequestsToAssignLimit> {
 	@Override
-	public void accept(RequestsToAssignLimit request) {
+	public void accept(CreditCard creditCard, RequestsToAssignLimit request) {
 	    BigDecimal amount = request.getAmount();
-	    handle(new LimitAssigned(uuid, amount, Instant.now()));
+	    creditCard.handle(new LimitAssigned(creditCard.uuid, amount, Instant.now()));
 	}
     }
     
-    class Withdraws implements Consumer<RequestsWithdrawal> {
+    static class Withdraws extends ContextReaction<CreditCard, RequestsWithdrawal> {
 	@Override
-	public void accept(RequestsWithdrawal request) {
+	public void accept(CreditCard creditCard, RequestsWithdrawal request) {
 	    BigDecimal amount = request.getAmount();
-	    if (notEnoughMoneyToWithdraw(amount)) {
+	    if (creditCard.notEnoughMoneyToWithdraw(amount)) {
 		throw new IllegalStateException();
 	    }
-	    handle(new CardWithdrawn(uuid, amount, Instant.now()));
+	    creditCard.handle(new CardWithdrawn(creditCard.uuid, amount, Instant.now()));
 	}
     }
 
-    class Repays implements Consumer<RequestsRepay> {
+    static class Repays extends ContextReaction<CreditCard, RequestsRepay> {
 	@Override
-	public void accept(RequestsRepay request) {
+	public void accept(CreditCard creditCard, RequestsRepay request) {
 	    BigDecimal amount = request.getAmount();
-	    handle(new CardRepaid(uuid, amount, Instant.now()));
+	    creditCard.handle(new CardRepaid(creditCard.uuid, amount, Instant.now()));
 	}
     }
 
-    class ClosesCycle implements Consumer<RequestToCloseCycle> {
+    static class ClosesCycle extends ContextReaction<CreditCard, RequestToCloseCycle> {
 	@Override
-	public void accept(RequestToCloseCycle request) {
-	    handle(new CycleClosed(uuid, Instant.now()));
+	public void accept(CreditCard creditCard, RequestToCloseCycle request) {
+	    creditCard.handle(new CycleClosed(creditCard.uuid, Instant.now()));
 	}
     }
 
-    class ThrowsAssignLimitException implements Consumer<RequestsToAssignLimit> {
-	public void accept(RequestsToAssignLimit request) {
+    static class ThrowsAssignLimitException extends ContextReaction<CreditCard, RequestsToAssignLimit> {
+	public void accept(CreditCard creditCard, RequestsToAssignLimit request) {
 	    throw new IllegalStateException();
 	}
     }
 
-    class ThrowsTooManyWithdrawalsException implements Consumer<RequestsWithdrawal> {
-	public void accept(RequestsWithdrawal request) {
+    static class ThrowsTooManyWithdrawalsException extends ContextReaction<CreditCard, RequestsWithdrawal> {
+	public void accept(CreditCard creditCard, RequestsWithdrawal request) {
 	    throw new IllegalStateException();
 	}
     }
@@ -152,23 +163,33 @@ public class CreditCard {
      * Conditions
      */
     
-    class TooManyWithdrawalsInCycle implements Condition{
+    static class TooManyWithdrawalsInCycle implements VersionedContextCondition<CreditCard> {
+	@Override
+	public boolean test(CreditCard creditCard) {
+	    return creditCard.withdrawals >= 45;
+	}
+
 	@Override
-	public boolean evaluate() {
-	    return withdrawals >= 45;
+	public long getVersion(CreditCard creditCard) {
+	    return creditCard.withdrawals;
 	}
     }
     
-    class LimitAlreadyAssigned implements Condition {
+    static class LimitAlreadyAssigned implements VersionedContextCondition<CreditCard> {
 	@Override
-	public boolean evaluate() {
-	    return initialLimit != null;
+	public boolean test(CreditCard creditCard) {
+	    return creditCard.initialLimit != null;
+	}
+
+	@Override
+	public long getVersion(CreditCard creditCard) {
+	    return creditCard.limitAssignments;
 	}
     }
     
-    class AccountOpen implements Condition{
+    static class AccountOpen implements ContextCondition<CreditCard> {
 	@Override
-	public boolean evaluate() {
+	public boolean test(CreditCard creditCard) {
 	    return true;
 	}
     }
@@ -179,15 +200,39 @@ public class CreditCard {
      */
     public static CreditCard recreateFrom(UUID uuid, List<DomainEvent> events) {
 	CreditCard creditCard = new CreditCard(uuid);
-	events.forEach(ev -> creditCard.handle(ev));
+	creditCard.replay(events);
+	return creditCard;
+    }
+    
+    public static CreditCard recreateFrom(UUID uuid, CreditCardState state, int stateVersion, List<DomainEvent> eventsAfterState) {
+	CreditCard creditCard = new CreditCard(uuid);
+	creditCard.restore(state, stateVersion);
+	creditCard.replay(eventsAfterState);
 	return creditCard;
     }
+    
+    private void restore(CreditCardState state, int stateVersion) {
+	initialLimit = state.getInitialLimit();
+	usedLimit = state.getUsedLimit();
+	withdrawals = state.getWithdrawals();
+	limitAssignments = state.getLimitAssignments();
+	version = stateVersion;
+    }
+    
+    private void replay(List<DomainEvent> events) {
+	for (DomainEvent event : events) {
+	    eventDispatcher.dispatch(this, event);
+	}
+	version += events.size();
+    }
 
     private void handle(DomainEvent event) {
-	modelRunner.reactTo(event);
+	eventDispatcher.dispatch(this, event);
+	pendingEvents.add(event);
     }
     
     public void flushEvents() {
+        version += pendingEvents.size();
         pendingEvents.clear();
     }
 }
\ No newline at end of file
@@ -2,15 +2,18 @@ package creditcard_eventsourcing.model;
 
 import java.math.BigDecimal;
 
-import org.requirementsascode.Condition;
 import org.requirementsascode.Model;
 import org.requirementsascode.ModelRunner;
+import org.requirementsascode.ModelTemplate;
 
+import creditcard_eventsourcing.model.CreditCard.AccountOpen;
 import creditcard_eventsourcing.model.CreditCard.AssignsLimit;
 import creditcard_eventsourcing.model.CreditCard.ClosesCycle;
+import creditcard_eventsourcing.model.CreditCard.LimitAlreadyAssigned;
 import creditcard_eventsourcing.model.CreditCard.Repays;
 import creditcard_eventsourcing.model.CreditCard.ThrowsAssignLimitException;
 import creditcard_eventsourcing.model.CreditCard.ThrowsTooManyWithdrawalsException;
+import creditcard_eventsourcing.model.CreditCard.TooManyWithdrawalsInCycle;
 import creditcard_eventsourcing.model.CreditCard.Withdraws;
 import creditcard_eventsourcing.model.request.RequestToCloseCycle;
 import creditcard_eventsourcing.model.request.RequestsRepay;
@@ -35,32 +38,35 @@ public class CreditCardModelRunner {
     private static final Class<RequestsRepay> requestsRepay = RequestsRepay.class;
     private static final Class<RequestToCloseCycle> requestToCloseCycle = RequestToCloseCycle.class;
     
-    // Commands
-    private AssignsLimit assignsLimit;
-    private Withdraws withdraws;
-    private Repays repays;
-    private ClosesCycle closesCycle;
-    private ThrowsAssignLimitException throwsAssignLimitException;
-    private ThrowsTooManyWithdrawalsException throwsTooManyWithdrawalsException;
+    // Commands, shared by all cards
+    private static final AssignsLimit assignsLimit = new AssignsLimit();
+    private static final Withdraws withdraws = new Withdraws();
+    private static final Repays repays = new Repays();
+    private static final ClosesCycle closesCycle = new ClosesCycle();
+    private static final ThrowsAssignLimitException throwsAssignLimitException = new ThrowsAssignLimitException();
+    private static final ThrowsTooManyWithdrawalsException throwsTooManyWithdrawalsException = new ThrowsTooManyWithdrawalsException();
     
-    // Conditions
-    private Condition tooManyWithdrawalsInCycle;
-    private Condition limitAlreadyAssigned;
-    private Condition accountOpen;
+    // Conditions, shared by all cards
+    private static final TooManyWithdrawalsInCycle tooManyWithdrawalsInCycle = new TooManyWithdrawalsInCycle();
+    private static final LimitAlreadyAssigned limitAlreadyAssigned = new LimitAlreadyAssigned();
+    private static final AccountOpen accountOpen = new AccountOpen();
+    
+    // The model, built once and bound to each card
+    private static final ModelTemplate<CreditCard> modelTemplate = ModelTemplate.of(CreditCard.class, buildModel());
     
     // Other fields
-    private CreditCard creditCard;
     private ModelRunner modelRunner;
 
     public CreditCardModelRunner(CreditCard creditCard, ModelRunner modelRunner) {
-	this.creditCard = creditCard;
 	this.modelRunner = modelRunner;
-	
-	assignCardDependentFields();
-	modelRunner.run(model());
+	modelRunner.run(modelTemplate, creditCard);
     }
 
     public Model model() {
+	return modelTemplate.getModel();
+    }
+
+    private static Model buildModel() {
 	Model model = Model.builder()
 	  .useCase("Use credit card")
 	    .basicFlow()
@@ -103,17 +109,4 @@ public class CreditCardModelRunner {
     public void requestToCloseCycle() {
 	request(new RequestToCloseCycle());
     }
-    
-    private void assignCardDependentFields() {
-	assignsLimit = creditCard.new AssignsLimit();
-	withdraws = creditCard.new Withdraws();
-	repays = creditCard.new Repays();
-	closesCycle = creditCard.new ClosesCycle();
-	throwsAssignLimitException = creditCard.new ThrowsAssignLimitException();
-	throwsTooManyWithdrawalsException = creditCard.new ThrowsTooManyWithdrawalsException();
-	
-	tooManyWithdrawalsInCycle = creditCard.new TooManyWithdrawalsInCycle();
-	limitAlreadyAssigned = creditCard.new LimitAlreadyAssigned();
-	accountOpen = creditCard.new AccountOpen();
-    }
 }
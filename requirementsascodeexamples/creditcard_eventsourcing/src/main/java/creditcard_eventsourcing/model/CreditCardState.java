@@ -0,0 +1,39 @@
+package creditcard_eventsourcing.model;
+
+import java.math.BigDecimal;
+
+/**
+ * The state of a credit card at a certain version, as used for snapshots.
+ * 
+ * @author b_muth
+ *
+ */
+public class CreditCardState {
+    private final BigDecimal initialLimit;
+    private final BigDecimal usedLimit;
+    private final int withdrawals;
+    private final long limitAssignments;
+
+    public CreditCardState(BigDecimal initialLimit, BigDecimal usedLimit, int withdrawals, long limitAssignments) {
+        this.initialLimit = initialLimit;
+        this.usedLimit = usedLimit;
+        this.withdrawals = withdrawals;
+        this.limitAssignments = limitAssignments;
+    }
+
+    public BigDecimal getInitialLimit() {
+        return initialLimit;
+    }
+
+    public BigDecimal getUsedLimit() {
+        return usedLimit;
+    }
+
+    public int getWithdrawals() {
+        return withdrawals;
+    }
+
+    public long getLimitAssignments() {
+        return limitAssignments;
+    }
+}
@@ -0,0 +1,50 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of the latest states of aggregates, e.g. snapshots. When the
+ * cache is full, the state of the least recently used aggregate is evicted.
+ * 
+ * <p>
+ * The cache is safe to be used by several threads concurrently.
+ * 
+ * @author b_muth
+ *
+ * @param <K> the type of the aggregate ids
+ * @param <A> the type of the cached states
+ */
+public class AggregateCache<K, A> {
+    private final Map<K, A> aggregates;
+
+    public AggregateCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive, but was: " + maximumSize);
+        }
+        this.aggregates = new LinkedHashMap<K, A>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, A> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    public synchronized A get(K aggregateId) {
+        return aggregates.get(aggregateId);
+    }
+
+    public synchronized void put(K aggregateId, A aggregate) {
+        aggregates.put(aggregateId, aggregate);
+    }
+
+    public synchronized void remove(K aggregateId) {
+        aggregates.remove(aggregateId);
+    }
+
+    public synchronized int size() {
+        return aggregates.size();
+    }
+}
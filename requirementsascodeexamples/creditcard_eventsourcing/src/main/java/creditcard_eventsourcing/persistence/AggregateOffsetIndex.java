@@ -0,0 +1,115 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Index from aggregate ids to the addresses of their event records, in the
+ * order the records have been appended.
+ * 
+ * <p>
+ * The index is an open addressing hash table with linear probing. The two
+ * halves of each aggregate id are kept in primitive arrays, so no objects are
+ * allocated per aggregate apart from its array of addresses.
+ * 
+ * @author b_muth
+ *
+ */
+class AggregateOffsetIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_ADDRESSES_PER_AGGREGATE = 8;
+
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+    private long[][] recordAddresses;
+    private int[] recordCounts;
+    private int size;
+
+    AggregateOffsetIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    void add(UUID aggregateId, long recordAddress) {
+        if (2 * (size + 1) > recordAddresses.length) {
+            resize();
+        }
+
+        int slot = findSlot(aggregateId.getMostSignificantBits(), aggregateId.getLeastSignificantBits());
+        long[] addresses = recordAddresses[slot];
+        if (addresses == null) {
+            addresses = new long[INITIAL_ADDRESSES_PER_AGGREGATE];
+            mostSignificantBits[slot] = aggregateId.getMostSignificantBits();
+            leastSignificantBits[slot] = aggregateId.getLeastSignificantBits();
+            size++;
+        } else if (recordCounts[slot] == addresses.length) {
+            addresses = Arrays.copyOf(addresses, 2 * addresses.length);
+        }
+        addresses[recordCounts[slot]++] = recordAddress;
+        recordAddresses[slot] = addresses;
+    }
+
+    int getRecordCount(UUID aggregateId) {
+        int slot = findSlot(aggregateId.getMostSignificantBits(), aggregateId.getLeastSignificantBits());
+        return recordCounts[slot];
+    }
+
+    long getRecordAddress(UUID aggregateId, int version) {
+        int slot = findSlot(aggregateId.getMostSignificantBits(), aggregateId.getLeastSignificantBits());
+        if (version < 0 || version >= recordCounts[slot]) {
+            throw new IndexOutOfBoundsException("No record with version " + version + " for " + aggregateId);
+        }
+        return recordAddresses[slot][version];
+    }
+
+    Set<UUID> getAggregateIds() {
+        Set<UUID> aggregateIds = new HashSet<>();
+        for (int slot = 0; slot < recordAddresses.length; slot++) {
+            if (recordAddresses[slot] != null) {
+                aggregateIds.add(new UUID(mostSignificantBits[slot], leastSignificantBits[slot]));
+            }
+        }
+        return aggregateIds;
+    }
+
+    private int findSlot(long msb, long lsb) {
+        int mask = recordAddresses.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (recordAddresses[slot] != null
+            && (mostSignificantBits[slot] != msb || leastSignificantBits[slot] != lsb)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private void resize() {
+        long[] oldMostSignificantBits = mostSignificantBits;
+        long[] oldLeastSignificantBits = leastSignificantBits;
+        long[][] oldRecordAddresses = recordAddresses;
+        int[] oldRecordCounts = recordCounts;
+
+        allocate(2 * oldRecordAddresses.length);
+        for (int oldSlot = 0; oldSlot < oldRecordAddresses.length; oldSlot++) {
+            if (oldRecordAddresses[oldSlot] != null) {
+                int slot = findSlot(oldMostSignificantBits[oldSlot], oldLeastSignificantBits[oldSlot]);
+                mostSignificantBits[slot] = oldMostSignificantBits[oldSlot];
+                leastSignificantBits[slot] = oldLeastSignificantBits[oldSlot];
+                recordAddresses[slot] = oldRecordAddresses[oldSlot];
+                recordCounts[slot] = oldRecordCounts[oldSlot];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostSignificantBits = new long[capacity];
+        leastSignificantBits = new long[capacity];
+        recordAddresses = new long[capacity][];
+        recordCounts = new int[capacity];
+    }
+}
@@ -0,0 +1,181 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import creditcard_eventsourcing.model.CreditCard;
+
+/**
+ * Rehydrates all cards of a repository in parallel, for example to rebuild read
+ * models at startup.
+ *
+ * <p>
+ * The ids of the cards are split into batches that are loaded by the threads of
+ * a fork join pool. The cards replay their events independently of each other,
+ * so the time it takes scales with the number of threads. The cards bypass the
+ * repository's cache of recently used cards. After each batch, the progress is
+ * reported to a listener. The listener is called by the pool's threads, so it
+ * must be safe to be used by several threads concurrently.
+ *
+ * @author b_muth
+ *
+ */
+public class BulkRehydrator {
+    private static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final CreditCardRepository repository;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+
+    public BulkRehydrator(CreditCardRepository repository) {
+        this(repository, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a rehydrator that loads the cards of the specified repository.
+     *
+     * @param repository the repository to load the cards from
+     * @param pool       the pool whose threads load the cards
+     * @param batchSize  the number of cards each task loads without splitting
+     *                   further, and after which progress is reported
+     */
+    public BulkRehydrator(CreditCardRepository repository, ForkJoinPool pool, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive, but was: " + batchSize);
+        }
+        this.repository = Objects.requireNonNull(repository);
+        this.pool = Objects.requireNonNull(pool);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Loads all cards of the repository.
+     *
+     * @param progressListener is informed about the progress after each batch
+     * @return the loaded cards, by id
+     */
+    public Map<UUID, CreditCard> rehydrateAll(Consumer<Progress> progressListener) {
+        return rehydrateAll(Function.identity(), progressListener);
+    }
+
+    /**
+     * Loads all cards of the repository, and projects each card to a read model.
+     * Only the projections are kept, so the cards can be garbage collected as soon
+     * as they have been projected.
+     *
+     * @param <P>              the type of the projections
+     * @param projection       creates the read model of a card
+     * @param progressListener is informed about the progress after each batch
+     * @return the projections, by card id
+     */
+    public <P> Map<UUID, P> rehydrateAll(Function<CreditCard, P> projection, Consumer<Progress> progressListener) {
+        Objects.requireNonNull(projection);
+        Objects.requireNonNull(progressListener);
+
+        UUID[] uuids = repository.getUuids().toArray(new UUID[0]);
+        Map<UUID, P> projections = new ConcurrentHashMap<>(uuids.length * 4 / 3 + 1);
+        LongAdder rehydrated = new LongAdder();
+        long startTime = System.nanoTime();
+
+        pool.invoke(new RehydrationTask<>(uuids, 0, uuids.length, projection, projections, rehydrated,
+            startTime, progressListener));
+        return projections;
+    }
+
+    private class RehydrationTask<P> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final UUID[] uuids;
+        private final int from;
+        private final int to;
+        private final Function<CreditCard, P> projection;
+        private final Map<UUID, P> projections;
+        private final LongAdder rehydrated;
+        private final long startTime;
+        private final Consumer<Progress> progressListener;
+
+        RehydrationTask(UUID[] uuids, int from, int to, Function<CreditCard, P> projection, Map<UUID, P> projections,
+            LongAdder rehydrated, long startTime, Consumer<Progress> progressListener) {
+            this.uuids = uuids;
+            this.from = from;
+            this.to = to;
+            this.projection = projection;
+            this.projections = projections;
+            this.rehydrated = rehydrated;
+            this.startTime = startTime;
+            this.progressListener = progressListener;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > batchSize) {
+                int middle = (from + to) >>> 1;
+                invokeAll(subtask(from, middle), subtask(middle, to));
+            } else {
+                rehydrateBatch();
+            }
+        }
+
+        private RehydrationTask<P> subtask(int subtaskFrom, int subtaskTo) {
+            return new RehydrationTask<>(uuids, subtaskFrom, subtaskTo, projection, projections, rehydrated, startTime,
+                progressListener);
+        }
+
+        private void rehydrateBatch() {
+            for (int i = from; i < to; i++) {
+                UUID uuid = uuids[i];
+                projections.put(uuid, projection.apply(repository.loadBypassingCache(uuid)));
+            }
+            rehydrated.add(to - from);
+            progressListener.accept(new Progress(rehydrated.sum(), uuids.length, System.nanoTime() - startTime));
+        }
+    }
+
+    /**
+     * The progress of a bulk rehydration.
+     */
+    public static class Progress {
+        private final long rehydrated;
+        private final long total;
+        private final long elapsedNanos;
+
+        Progress(long rehydrated, long total, long elapsedNanos) {
+            this.rehydrated = rehydrated;
+            this.total = total;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRehydrated() {
+            return rehydrated;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns the number of cards rehydrated per second so far.
+         *
+         * @return the throughput
+         */
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : rehydrated * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d cards rehydrated, %.0f per second", rehydrated, total, getThroughput());
+        }
+    }
+}
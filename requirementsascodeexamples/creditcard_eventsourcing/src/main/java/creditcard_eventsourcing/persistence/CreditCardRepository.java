@@ -1,15 +1,15 @@
 package creditcard_eventsourcing.persistence;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.ConcurrentModificationException;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.locks.Lock;
 
 import org.springframework.stereotype.Repository;
 
 import creditcard_eventsourcing.model.CreditCard;
+import creditcard_eventsourcing.model.CreditCardState;
 import creditcard_eventsourcing.model.DomainEvent;
 
 /**
@@ -21,25 +21,125 @@ import creditcard_eventsourcing.model.DomainEvent;
  */
 @Repository
 public class CreditCardRepository {
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 100;
+    private static final int DEFAULT_CACHE_SIZE = 1000;
+    private static final int LOCK_STRIPES = 64;
 
-    private final Map<UUID, List<DomainEvent>> eventStream = new HashMap<>();
+    private final EventStore eventStore;
+    private final SnapshotStore<CreditCardState> snapshotStore;
+    private final AggregateCache<UUID, Snapshot<CreditCardState>> cachedSnapshots;
+    private final StripedLocks locks;
 
     public CreditCardRepository() {
+        this(new InMemoryEventStore(), DEFAULT_SNAPSHOT_INTERVAL, DEFAULT_CACHE_SIZE);
     }
 
+    /**
+     * Creates a repository that keeps the events of cards in the specified
+     * store, snapshots cards every time the specified number of events has been
+     * saved for them, and keeps a snapshot of the latest state of the specified
+     * number of recently used cards in memory.
+     * 
+     * <p>
+     * The repository is safe to be used by several threads concurrently. Each
+     * load returns a card of its own. Saving a card fails with a
+     * {@link ConcurrentModificationException} if another card with the same id
+     * has been saved since the card was loaded.
+     * 
+     * @param eventStore       the store of the cards' events
+     * @param snapshotInterval the number of events after which a snapshot is taken
+     * @param cacheSize        the maximum number of cards kept in memory
+     */
+    public CreditCardRepository(EventStore eventStore, int snapshotInterval, int cacheSize) {
+        this.eventStore = eventStore;
+        this.snapshotStore = new SnapshotStore<>(snapshotInterval);
+        this.cachedSnapshots = new AggregateCache<>(cacheSize);
+        this.locks = new StripedLocks(LOCK_STRIPES);
+    }
 
     public void save(CreditCard creditCard) {
-        List<DomainEvent> currentStream = eventStream.getOrDefault(creditCard.getUuid(), new ArrayList<>());
-        currentStream.addAll(creditCard.getPendingEvents());
-        eventStream.put(creditCard.getUuid(), currentStream);
-        creditCard.flushEvents();
+        UUID uuid = creditCard.getUuid();
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            int oldVersion = creditCard.getVersion();
+            eventStore.append(uuid, oldVersion, creditCard.getPendingEvents());
+            creditCard.flushEvents();
+
+            int newVersion = creditCard.getVersion();
+            Snapshot<CreditCardState> snapshot = new Snapshot<>(uuid, newVersion, creditCard.getState());
+            if (snapshotStore.isSnapshotDue(oldVersion, newVersion)) {
+                snapshotStore.save(snapshot);
+            }
+            cachedSnapshots.put(uuid, snapshot);
+        } finally {
+            lock.unlock();
+        }
     }
 
     public CreditCard load(UUID uuid) {
-        return CreditCard.recreateFrom(uuid, eventStream.getOrDefault(uuid, new ArrayList<>()));
+        Snapshot<CreditCardState> newestSnapshot = newestSnapshot(uuid);
+        CreditCard creditCard = recreate(uuid, newestSnapshot);
+
+        int snapshotVersion = newestSnapshot == null ? 0 : newestSnapshot.getVersion();
+        if (creditCard.getVersion() > snapshotVersion) {
+            cacheUnlessOutdated(new Snapshot<>(uuid, creditCard.getVersion(), creditCard.getState()));
+        }
+        return creditCard;
+    }
+
+    /**
+     * Caches the specified snapshot, unless a snapshot of a newer version has
+     * been cached by a save in the meantime.
+     */
+    private void cacheUnlessOutdated(Snapshot<CreditCardState> snapshot) {
+        UUID uuid = snapshot.getAggregateId();
+        Lock lock = locks.lockFor(uuid);
+        lock.lock();
+        try {
+            Snapshot<CreditCardState> cachedSnapshot = cachedSnapshots.get(uuid);
+            if (cachedSnapshot == null || cachedSnapshot.getVersion() < snapshot.getVersion()) {
+                cachedSnapshots.put(uuid, snapshot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the card with the specified id from the stored snapshots and events
+     * only. Neither reads nor updates the cache, so loading many cards in bulk
+     * neither contends for the cache nor evicts the recently used cards.
+     */
+    CreditCard loadBypassingCache(UUID uuid) {
+        return recreate(uuid, snapshotStore.findNewest(uuid).orElse(null));
+    }
+
+    private CreditCard recreate(UUID uuid, Snapshot<CreditCardState> newestSnapshot) {
+        CreditCard creditCard;
+        if (newestSnapshot != null) {
+            List<DomainEvent> eventsAfterSnapshot = eventStore.load(uuid, newestSnapshot.getVersion());
+            creditCard = CreditCard.recreateFrom(uuid, newestSnapshot.getState(), newestSnapshot.getVersion(),
+                eventsAfterSnapshot);
+        } else {
+            creditCard = CreditCard.recreateFrom(uuid, eventStore.load(uuid, 0));
+        }
+        return creditCard;
+    }
+
+    private Snapshot<CreditCardState> newestSnapshot(UUID uuid) {
+        Snapshot<CreditCardState> cachedSnapshot = cachedSnapshots.get(uuid);
+        Snapshot<CreditCardState> storedSnapshot = snapshotStore.findNewest(uuid).orElse(null);
+        if (cachedSnapshot == null) {
+            return storedSnapshot;
+        } else if (storedSnapshot == null || cachedSnapshot.getVersion() >= storedSnapshot.getVersion()) {
+            return cachedSnapshot;
+        } else {
+            return storedSnapshot;
+        }
     }
     
     public Set<UUID> getUuids(){
-    	return eventStream.keySet();
+    	return eventStore.getAggregateIds();
     }
 }
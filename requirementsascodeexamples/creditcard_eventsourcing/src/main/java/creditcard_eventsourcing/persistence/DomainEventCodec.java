@@ -0,0 +1,182 @@
+package creditcard_eventsourcing.persistence;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import creditcard_eventsourcing.model.CardRepaid;
+import creditcard_eventsourcing.model.CardWithdrawn;
+import creditcard_eventsourcing.model.CycleClosed;
+import creditcard_eventsourcing.model.DomainEvent;
+import creditcard_eventsourcing.model.LimitAssigned;
+
+/**
+ * Codec for domain events. Each subtype of {@link DomainEvent} is encoded by the
+ * codec registered for it, prefixed with a one byte tag that identifies the
+ * subtype when decoding.
+ * 
+ * @author b_muth
+ *
+ */
+public class DomainEventCodec implements EventCodec<DomainEvent> {
+    private final Map<Class<?>, Byte> eventClassToTag = new HashMap<>();
+    private final List<EventCodec<? extends DomainEvent>> tagToCodec = new ArrayList<>();
+
+    /**
+     * Creates a codec for the events of credit cards.
+     * 
+     * @return the codec
+     */
+    public static DomainEventCodec forCreditCardEvents() {
+        return new DomainEventCodec()
+            .register(LimitAssigned.class, new LimitAssignedCodec())
+            .register(CardWithdrawn.class, new CardWithdrawnCodec())
+            .register(CardRepaid.class, new CardRepaidCodec())
+            .register(CycleClosed.class, new CycleClosedCodec());
+    }
+
+    /**
+     * Registers the codec for the specified subtype of domain events.
+     * 
+     * @param eventClass the class of events
+     * @param codec      the codec for the events of that class
+     * @param <E>        the type of events
+     * @return this codec, for chaining
+     */
+    public <E extends DomainEvent> DomainEventCodec register(Class<E> eventClass, EventCodec<E> codec) {
+        Objects.requireNonNull(eventClass);
+        Objects.requireNonNull(codec);
+        if (eventClassToTag.containsKey(eventClass)) {
+            throw new IllegalArgumentException("Codec already registered for: " + eventClass.getName());
+        }
+        if (tagToCodec.size() > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many event classes registered");
+        }
+
+        eventClassToTag.put(eventClass, (byte) tagToCodec.size());
+        tagToCodec.add(codec);
+        return this;
+    }
+
+    @Override
+    public void encode(DomainEvent event, ByteBuffer buffer) {
+        Byte tag = eventClassToTag.get(event.getClass());
+        if (tag == null) {
+            throw new IllegalArgumentException("No codec registered for: " + event.getClass().getName());
+        }
+        buffer.put(tag);
+        codecFor(tag).encode(event, buffer);
+    }
+
+    @Override
+    public DomainEvent decode(ByteBuffer buffer) {
+        byte tag = buffer.get();
+        if (tag < 0 || tag >= tagToCodec.size()) {
+            throw new IllegalStateException("Unknown event tag: " + tag);
+        }
+        return codecFor(tag).decode(buffer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventCodec<DomainEvent> codecFor(byte tag) {
+        return (EventCodec<DomainEvent>) tagToCodec.get(tag);
+    }
+
+    /*
+     * Codecs of the credit card events
+     */
+
+    private static class LimitAssignedCodec implements EventCodec<LimitAssigned> {
+        @Override
+        public void encode(LimitAssigned event, ByteBuffer buffer) {
+            putUuid(event.getCardNo(), buffer);
+            putBigDecimal(event.getAmount(), buffer);
+            putInstant(event.getTimestamp(), buffer);
+        }
+
+        @Override
+        public LimitAssigned decode(ByteBuffer buffer) {
+            return new LimitAssigned(getUuid(buffer), getBigDecimal(buffer), getInstant(buffer));
+        }
+    }
+
+    private static class CardWithdrawnCodec implements EventCodec<CardWithdrawn> {
+        @Override
+        public void encode(CardWithdrawn event, ByteBuffer buffer) {
+            putUuid(event.getCardNo(), buffer);
+            putBigDecimal(event.getAmount(), buffer);
+            putInstant(event.getTimestamp(), buffer);
+        }
+
+        @Override
+        public CardWithdrawn decode(ByteBuffer buffer) {
+            return new CardWithdrawn(getUuid(buffer), getBigDecimal(buffer), getInstant(buffer));
+        }
+    }
+
+    private static class CardRepaidCodec implements EventCodec<CardRepaid> {
+        @Override
+        public void encode(CardRepaid event, ByteBuffer buffer) {
+            putUuid(event.getCardNo(), buffer);
+            putBigDecimal(event.getAmount(), buffer);
+            putInstant(event.getTimestamp(), buffer);
+        }
+
+        @Override
+        public CardRepaid decode(ByteBuffer buffer) {
+            return new CardRepaid(getUuid(buffer), getBigDecimal(buffer), getInstant(buffer));
+        }
+    }
+
+    private static class CycleClosedCodec implements EventCodec<CycleClosed> {
+        @Override
+        public void encode(CycleClosed event, ByteBuffer buffer) {
+            putUuid(event.getCardNo(), buffer);
+            putInstant(event.getTimestamp(), buffer);
+        }
+
+        @Override
+        public CycleClosed decode(ByteBuffer buffer) {
+            return new CycleClosed(getUuid(buffer), getInstant(buffer));
+        }
+    }
+
+    private static void putUuid(UUID uuid, ByteBuffer buffer) {
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void putBigDecimal(BigDecimal value, ByteBuffer buffer) {
+        byte[] unscaledValue = value.unscaledValue().toByteArray();
+        buffer.putInt(value.scale());
+        buffer.putInt(unscaledValue.length);
+        buffer.put(unscaledValue);
+    }
+
+    private static BigDecimal getBigDecimal(ByteBuffer buffer) {
+        int scale = buffer.getInt();
+        byte[] unscaledValue = new byte[buffer.getInt()];
+        buffer.get(unscaledValue);
+        return new BigDecimal(new BigInteger(unscaledValue), scale);
+    }
+
+    private static void putInstant(Instant instant, ByteBuffer buffer) {
+        buffer.putLong(instant.getEpochSecond());
+        buffer.putInt(instant.getNano());
+    }
+
+    private static Instant getInstant(ByteBuffer buffer) {
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+}
@@ -0,0 +1,28 @@
+package creditcard_eventsourcing.persistence;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts events to bytes and back.
+ * 
+ * @author b_muth
+ *
+ * @param <E> the type of events
+ */
+public interface EventCodec<E> {
+    /**
+     * Writes the specified event to the buffer, starting at its position.
+     * 
+     * @param event  the event to encode
+     * @param buffer the target buffer
+     */
+    void encode(E event, ByteBuffer buffer);
+
+    /**
+     * Reads an event from the buffer, starting at its position.
+     * 
+     * @param buffer the source buffer
+     * @return the decoded event
+     */
+    E decode(ByteBuffer buffer);
+}
@@ -0,0 +1,59 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import creditcard_eventsourcing.model.DomainEvent;
+
+/**
+ * Stores the event streams of aggregates. Events are only ever appended to a
+ * stream, never changed or removed.
+ * 
+ * <p>
+ * Implementations are safe to be used by several threads concurrently.
+ * 
+ * @author b_muth
+ *
+ */
+public interface EventStore {
+    /**
+     * Appends the specified events to the stream of the specified aggregate, if
+     * the stream's version is the expected version.
+     * 
+     * @param aggregateId     the id of the aggregate
+     * @param expectedVersion the version the stream must have before appending
+     * @param events          the events to append, in order
+     * @throws ConcurrentModificationException if the stream's version differs
+     *                                         from the expected version, because
+     *                                         events have been appended since the
+     *                                         aggregate was loaded
+     */
+    void append(UUID aggregateId, int expectedVersion, List<DomainEvent> events);
+
+    /**
+     * Loads the events of the specified aggregate, starting with the event at the
+     * specified version.
+     * 
+     * @param aggregateId the id of the aggregate
+     * @param fromVersion the number of events at the start of the stream to skip
+     * @return the events, or an empty list if there are none
+     */
+    List<DomainEvent> load(UUID aggregateId, int fromVersion);
+
+    /**
+     * Returns the number of events in the stream of the specified aggregate.
+     * 
+     * @param aggregateId the id of the aggregate
+     * @return the version of the aggregate's stream, 0 if there is no stream
+     */
+    int getVersion(UUID aggregateId);
+
+    /**
+     * Returns the ids of all aggregates with a stream in this store.
+     * 
+     * @return the aggregate ids
+     */
+    Set<UUID> getAggregateIds();
+}
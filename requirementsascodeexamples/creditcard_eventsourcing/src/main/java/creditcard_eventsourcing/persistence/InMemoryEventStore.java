@@ -0,0 +1,86 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import creditcard_eventsourcing.model.DomainEvent;
+
+/**
+ * An event store that keeps the event streams on the heap. The events are lost
+ * when the application stops.
+ * 
+ * <p>
+ * Appends to the same stream are serialized. Reads never block: they see the
+ * events of a stream up to the version that has been published by the latest
+ * completed append.
+ * 
+ * @author b_muth
+ *
+ */
+public class InMemoryEventStore implements EventStore {
+    private final ConcurrentMap<UUID, EventStream> eventStreams = new ConcurrentHashMap<>();
+
+    @Override
+    public void append(UUID aggregateId, int expectedVersion, List<DomainEvent> events) {
+        EventStream eventStream = eventStreams.computeIfAbsent(aggregateId, id -> new EventStream());
+        eventStream.append(aggregateId, expectedVersion, events);
+    }
+
+    @Override
+    public List<DomainEvent> load(UUID aggregateId, int fromVersion) {
+        EventStream eventStream = eventStreams.get(aggregateId);
+        return eventStream == null ? Collections.emptyList() : eventStream.load(fromVersion);
+    }
+
+    @Override
+    public int getVersion(UUID aggregateId) {
+        EventStream eventStream = eventStreams.get(aggregateId);
+        return eventStream == null ? 0 : eventStream.version;
+    }
+
+    @Override
+    public Set<UUID> getAggregateIds() {
+        return Collections.unmodifiableSet(eventStreams.keySet());
+    }
+
+    /**
+     * The events of one aggregate. Each append writes the events into the array
+     * before publishing the new version, so a reader that reads the version first
+     * sees all events up to that version.
+     */
+    private static class EventStream {
+        private volatile DomainEvent[] events = new DomainEvent[8];
+        private volatile int version;
+
+        synchronized void append(UUID aggregateId, int expectedVersion, List<DomainEvent> newEvents) {
+            if (version != expectedVersion) {
+                throw new ConcurrentModificationException(
+                    "Expected version " + expectedVersion + " of " + aggregateId + ", but was " + version);
+            }
+
+            int newVersion = version + newEvents.size();
+            DomainEvent[] currentEvents = events;
+            if (newVersion > currentEvents.length) {
+                currentEvents = Arrays.copyOf(currentEvents, Math.max(newVersion, 2 * currentEvents.length));
+            }
+            int eventVersion = version;
+            for (DomainEvent newEvent : newEvents) {
+                currentEvents[eventVersion++] = newEvent;
+            }
+            events = currentEvents;
+            version = newVersion;
+        }
+
+        List<DomainEvent> load(int fromVersion) {
+            int currentVersion = version;
+            DomainEvent[] currentEvents = events;
+            return Arrays.asList(Arrays.copyOfRange(currentEvents, fromVersion, currentVersion));
+        }
+    }
+}
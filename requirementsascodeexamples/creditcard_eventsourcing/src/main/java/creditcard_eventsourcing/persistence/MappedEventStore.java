@@ -0,0 +1,391 @@
+package creditcard_eventsourcing.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import creditcard_eventsourcing.model.DomainEvent;
+
+/**
+ * An event store that appends events to memory mapped segment files in a
+ * directory, so that the events survive a restart and don't need to fit on the
+ * heap.
+ * 
+ * <p>
+ * Each record consists of the length of the encoded event, a CRC32 checksum of
+ * the rest of the record, the id of the aggregate, and the event encoded by the
+ * {@link EventCodec}. Records are only appended to the newest segment. When
+ * it is full, the segment is forced to disk and becomes read only, and a new
+ * segment is created. An index from
+ * aggregate ids to record addresses is kept in memory, and rebuilt from the
+ * segments when the store is opened. Events are decoded directly from the
+ * mapped segments, without copying the records first.
+ * 
+ * <p>
+ * When the store is opened, each record is checked: it must fit into its
+ * segment, and its checksum must match. A record that was torn by a crash
+ * before the events were committed fails the check. Indexing stops at the
+ * first such record in the newest segment, and the rest of the segment is
+ * cleared, so that new records are appended in its place. An invalid record in
+ * an older segment, which has been forced to disk when it was sealed, means
+ * that the segment is corrupt, and opening the store fails.
+ * 
+ * <p>
+ * Appended events are forced to disk by {@link #commit()}. To commit the
+ * events of many aggregates with a single fsync, the store commits
+ * automatically only after the specified number of appends. Events that have
+ * been appended but not committed yet survive a crash of the application, but
+ * not of the operating system.
+ * 
+ * <p>
+ * As all records are appended to the same segment, appends are serialized.
+ * Loads share a read lock, so they run in parallel with each other. Forcing
+ * the events to disk doesn't hold the lock, so neither loads nor appends wait
+ * for it.
+ * 
+ * @author b_muth
+ *
+ */
+public class MappedEventStore implements EventStore, Closeable {
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+    private static final int CHECKSUM_OFFSET = Integer.BYTES;
+    private static final int AGGREGATE_ID_OFFSET = CHECKSUM_OFFSET + Integer.BYTES;
+    static final int RECORD_HEADER_SIZE = AGGREGATE_ID_OFFSET + 2 * Long.BYTES;
+
+    private final Path directory;
+    private final EventCodec<DomainEvent> codec;
+    private final int segmentSize;
+    private final int commitBatchSize;
+    private final List<MappedByteBuffer> segments;
+    private final AggregateOffsetIndex index;
+    private final ByteBuffer encodingBuffer;
+    private final CRC32 checksum;
+    private final ReadWriteLock lock;
+    private MappedByteBuffer activeSegment;
+    private int uncommittedAppends;
+
+    /**
+     * Opens the event store in the specified directory. Existing segments are
+     * read to rebuild the index.
+     * 
+     * @param directory       the directory of the segment files
+     * @param codec           the codec for the events
+     * @param segmentSize     the size of each segment file, in bytes
+     * @param commitBatchSize the number of appends after which the store commits
+     * @throws IOException if the segments can't be created or read
+     */
+    public MappedEventStore(Path directory, EventCodec<DomainEvent> codec, int segmentSize, int commitBatchSize)
+        throws IOException {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        if (commitBatchSize <= 0) {
+            throw new IllegalArgumentException("Commit batch size must be positive, but was: " + commitBatchSize);
+        }
+
+        this.directory = Files.createDirectories(Objects.requireNonNull(directory));
+        this.codec = Objects.requireNonNull(codec);
+        this.segmentSize = segmentSize;
+        this.commitBatchSize = commitBatchSize;
+        this.segments = new ArrayList<>();
+        this.index = new AggregateOffsetIndex();
+        this.encodingBuffer = ByteBuffer.allocate(segmentSize - RECORD_HEADER_SIZE);
+        this.checksum = new CRC32();
+        this.lock = new ReentrantReadWriteLock();
+
+        openExistingSegments();
+        if (activeSegment == null) {
+            activeSegment = createSegment(0);
+        }
+    }
+
+    @Override
+    public void append(UUID aggregateId, int expectedVersion, List<DomainEvent> events) {
+        Objects.requireNonNull(aggregateId);
+        Objects.requireNonNull(events);
+
+        MappedByteBuffer segmentToCommit = null;
+        lock.writeLock().lock();
+        try {
+            int version = index.getRecordCount(aggregateId);
+            if (version != expectedVersion) {
+                throw new ConcurrentModificationException(
+                    "Expected version " + expectedVersion + " of " + aggregateId + ", but was " + version);
+            }
+
+            List<ByteBuffer> encodedEvents = encodeAll(events);
+            for (ByteBuffer encodedEvent : encodedEvents) {
+                appendRecord(aggregateId, encodedEvent);
+            }
+
+            if (++uncommittedAppends >= commitBatchSize) {
+                segmentToCommit = startCommit();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (segmentToCommit != null) {
+            segmentToCommit.force();
+        }
+    }
+
+    /**
+     * Encodes all events before any of them is appended, so that an event that
+     * can't be encoded doesn't leave the events before it in the store.
+     */
+    private List<ByteBuffer> encodeAll(List<DomainEvent> events) {
+        List<ByteBuffer> encodedEvents = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            ByteBuffer encodedEvent = encode(event);
+            ByteBuffer copy = ByteBuffer.allocate(encodedEvent.remaining());
+            copy.put(encodedEvent).flip();
+            encodedEvents.add(copy);
+        }
+        return encodedEvents;
+    }
+
+    private ByteBuffer encode(DomainEvent event) {
+        encodingBuffer.clear();
+        try {
+            codec.encode(event, encodingBuffer);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("Event doesn't fit into a segment: " + event.getType());
+        }
+        encodingBuffer.flip();
+        return encodingBuffer;
+    }
+
+    private void appendRecord(UUID aggregateId, ByteBuffer encodedEvent) {
+        int recordSize = RECORD_HEADER_SIZE + encodedEvent.remaining();
+        if (activeSegment.remaining() < recordSize) {
+            activeSegment = sealAndCreateNextSegment();
+        }
+
+        int segmentNumber = segments.size() - 1;
+        int offset = activeSegment.position();
+        int eventSize = encodedEvent.remaining();
+        activeSegment.putInt(eventSize);
+        activeSegment.putInt(0);
+        activeSegment.putLong(aggregateId.getMostSignificantBits());
+        activeSegment.putLong(aggregateId.getLeastSignificantBits());
+        activeSegment.put(encodedEvent);
+        activeSegment.putInt(offset + CHECKSUM_OFFSET, checksumOf(activeSegment, offset, eventSize));
+
+        index.add(aggregateId, recordAddress(segmentNumber, offset));
+    }
+
+    /**
+     * Returns the checksum of the aggregate id and the encoded event of the
+     * record at the specified offset.
+     */
+    private int checksumOf(ByteBuffer segment, int offset, int eventSize) {
+        ByteBuffer checkedBytes = segment.duplicate();
+        checkedBytes.limit(offset + RECORD_HEADER_SIZE + eventSize).position(offset + AGGREGATE_ID_OFFSET);
+        checksum.reset();
+        checksum.update(checkedBytes);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * Forces all appended events to disk.
+     */
+    public void commit() {
+        MappedByteBuffer segmentToCommit;
+        lock.writeLock().lock();
+        try {
+            segmentToCommit = startCommit();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        segmentToCommit.force();
+    }
+
+    /**
+     * Returns the segment that needs to be forced to disk to commit the events
+     * appended so far. The segments sealed before have been forced already.
+     */
+    private MappedByteBuffer startCommit() {
+        uncommittedAppends = 0;
+        return activeSegment;
+    }
+
+    @Override
+    public List<DomainEvent> load(UUID aggregateId, int fromVersion) {
+        lock.readLock().lock();
+        try {
+            int version = index.getRecordCount(aggregateId);
+            List<DomainEvent> events = new ArrayList<>(Math.max(0, version - fromVersion));
+            for (int eventVersion = fromVersion; eventVersion < version; eventVersion++) {
+                long recordAddress = index.getRecordAddress(aggregateId, eventVersion);
+                events.add(decode(recordAddress));
+            }
+            return events;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private DomainEvent decode(long recordAddress) {
+        ByteBuffer record = segments.get(segmentNumberOf(recordAddress)).duplicate();
+        int offset = offsetOf(recordAddress);
+        int eventSize = record.getInt(offset);
+        int eventOffset = offset + RECORD_HEADER_SIZE;
+        record.limit(eventOffset + eventSize).position(eventOffset);
+        return codec.decode(record);
+    }
+
+    @Override
+    public int getVersion(UUID aggregateId) {
+        lock.readLock().lock();
+        try {
+            return index.getRecordCount(aggregateId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<UUID> getAggregateIds() {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableSet(index.getAggregateIds());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Commits the appended events. The store must not be used after closing it.
+     */
+    @Override
+    public void close() {
+        commit();
+    }
+
+    private void openExistingSegments() throws IOException {
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files.filter(this::isSegmentFile).sorted().collect(Collectors.toList());
+        }
+
+        for (int segmentNumber = 0; segmentNumber < segmentFiles.size(); segmentNumber++) {
+            boolean isLastSegment = segmentNumber == segmentFiles.size() - 1;
+            MapMode mapMode = isLastSegment ? MapMode.READ_WRITE : MapMode.READ_ONLY;
+            MappedByteBuffer segment = map(segmentFiles.get(segmentNumber), mapMode);
+            boolean isValid = indexRecordsOf(segment, segmentNumber);
+            if (!isValid && !isLastSegment) {
+                throw new IOException("Corrupt record in sealed segment: " + segmentFiles.get(segmentNumber));
+            }
+            segments.add(segment);
+            if (isLastSegment) {
+                activeSegment = segment;
+            }
+        }
+    }
+
+    private boolean isSegmentFile(Path file) {
+        String fileName = file.getFileName().toString();
+        return fileName.startsWith(SEGMENT_FILE_PREFIX) && fileName.endsWith(SEGMENT_FILE_SUFFIX);
+    }
+
+    /**
+     * Indexes the valid records of the specified segment, up to the first
+     * invalid record, and clears the rest of the segment if it is writable.
+     * 
+     * @return false if an invalid record has been found, true otherwise
+     */
+    private boolean indexRecordsOf(MappedByteBuffer segment, int segmentNumber) {
+        int offset = 0;
+        boolean isValid = true;
+        while (offset + RECORD_HEADER_SIZE <= segment.limit()) {
+            int eventSize = segment.getInt(offset);
+            if (eventSize == 0) {
+                break;
+            }
+            if (eventSize < 0 || eventSize > segment.limit() - offset - RECORD_HEADER_SIZE
+                || segment.getInt(offset + CHECKSUM_OFFSET) != checksumOf(segment, offset, eventSize)) {
+                isValid = false;
+                break;
+            }
+            UUID aggregateId = new UUID(segment.getLong(offset + AGGREGATE_ID_OFFSET),
+                segment.getLong(offset + AGGREGATE_ID_OFFSET + Long.BYTES));
+            index.add(aggregateId, recordAddress(segmentNumber, offset));
+            offset += RECORD_HEADER_SIZE + eventSize;
+        }
+
+        if (!isValid && !segment.isReadOnly()) {
+            for (int i = offset; i < segment.limit(); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        segment.position(offset);
+        return isValid;
+    }
+
+    private MappedByteBuffer sealAndCreateNextSegment() {
+        int sealedSegmentNumber = segments.size() - 1;
+        activeSegment.force();
+        try {
+            segments.set(sealedSegmentNumber, map(segmentFile(sealedSegmentNumber), MapMode.READ_ONLY));
+            return createSegment(sealedSegmentNumber + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private MappedByteBuffer createSegment(int segmentNumber) throws IOException {
+        MappedByteBuffer segment = map(segmentFile(segmentNumber), MapMode.READ_WRITE);
+        segments.add(segment);
+        return segment;
+    }
+
+    private MappedByteBuffer map(Path segmentFile, MapMode mapMode) throws IOException {
+        StandardOpenOption[] openOptions = mapMode == MapMode.READ_ONLY
+            ? new StandardOpenOption[] { StandardOpenOption.READ }
+            : new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE };
+        try (FileChannel channel = FileChannel.open(segmentFile, openOptions)) {
+            long mappedSize = mapMode == MapMode.READ_ONLY ? channel.size() : segmentSize;
+            return channel.map(mapMode, 0, mappedSize);
+        }
+    }
+
+    private Path segmentFile(int segmentNumber) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_FILE_PREFIX, segmentNumber, SEGMENT_FILE_SUFFIX));
+    }
+
+    private static long recordAddress(int segmentNumber, int offset) {
+        return ((long) segmentNumber << 32) | offset;
+    }
+
+    private static int segmentNumberOf(long recordAddress) {
+        return (int) (recordAddress >>> 32);
+    }
+
+    private static int offsetOf(long recordAddress) {
+        return (int) recordAddress;
+    }
+}
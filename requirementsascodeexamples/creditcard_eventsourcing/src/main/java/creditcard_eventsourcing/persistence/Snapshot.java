@@ -0,0 +1,42 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A snapshot of an event sourced aggregate: its state after the first
+ * <code>version</code> events of its event stream have been applied.
+ * 
+ * @author b_muth
+ *
+ * @param <S> the type of the aggregate's state
+ */
+public class Snapshot<S> {
+    private final UUID aggregateId;
+    private final int version;
+    private final S state;
+
+    public Snapshot(UUID aggregateId, int version, S state) {
+        this.aggregateId = Objects.requireNonNull(aggregateId);
+        this.version = version;
+        this.state = Objects.requireNonNull(state);
+    }
+
+    public UUID getAggregateId() {
+        return aggregateId;
+    }
+
+    /**
+     * Returns the number of events of the aggregate's event stream that are
+     * contained in this snapshot.
+     * 
+     * @return the version of the snapshot
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public S getState() {
+        return state;
+    }
+}
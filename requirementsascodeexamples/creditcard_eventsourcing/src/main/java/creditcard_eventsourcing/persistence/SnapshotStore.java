@@ -0,0 +1,75 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the newest snapshot of each aggregate, so that loading an aggregate
+ * only needs to replay the events that have been saved after the snapshot.
+ * 
+ * <p>
+ * A new snapshot is due each time the version of an aggregate passes a
+ * multiple of the snapshot interval.
+ * 
+ * @author b_muth
+ *
+ * @param <S> the type of the aggregates' state
+ */
+public class SnapshotStore<S> {
+    private final int snapshotInterval;
+    private final Map<UUID, Snapshot<S>> newestSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a snapshot store.
+     * 
+     * @param snapshotInterval the number of events after which a new snapshot is
+     *                         due
+     */
+    public SnapshotStore(int snapshotInterval) {
+        if (snapshotInterval <= 0) {
+            throw new IllegalArgumentException("Snapshot interval must be positive, but was: " + snapshotInterval);
+        }
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Returns whether a snapshot should be taken when an aggregate has advanced
+     * from the old version to the new version.
+     * 
+     * @param oldVersion the version before the events have been saved
+     * @param newVersion the version after the events have been saved
+     * @return true if a snapshot is due, false otherwise
+     */
+    public boolean isSnapshotDue(int oldVersion, int newVersion) {
+        return newVersion / snapshotInterval > oldVersion / snapshotInterval;
+    }
+
+    /**
+     * Saves the specified snapshot, unless a newer snapshot of the same aggregate
+     * has already been saved.
+     * 
+     * @param snapshot the snapshot to save
+     */
+    public void save(Snapshot<S> snapshot) {
+        Objects.requireNonNull(snapshot);
+        newestSnapshots.merge(snapshot.getAggregateId(), snapshot,
+            (saved, candidate) -> candidate.getVersion() > saved.getVersion() ? candidate : saved);
+    }
+
+    /**
+     * Finds the newest snapshot of the specified aggregate.
+     * 
+     * @param aggregateId the id of the aggregate
+     * @return the newest snapshot, or an empty optional if there is none
+     */
+    public Optional<Snapshot<S>> findNewest(UUID aggregateId) {
+        return Optional.ofNullable(newestSnapshots.get(aggregateId));
+    }
+
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+}
@@ -0,0 +1,30 @@
+package creditcard_eventsourcing.persistence;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed number of locks, shared by all aggregates. Each aggregate id is
+ * mapped to one of the locks, so aggregates with different ids can mostly be
+ * modified in parallel, without a lock object per aggregate.
+ * 
+ * @author b_muth
+ *
+ */
+class StripedLocks {
+    private final Lock[] stripes;
+
+    StripedLocks(int minimumStripeCount) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, minimumStripeCount - 1)) << 1;
+        this.stripes = new Lock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    Lock lockFor(Object aggregateId) {
+        int hash = aggregateId.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
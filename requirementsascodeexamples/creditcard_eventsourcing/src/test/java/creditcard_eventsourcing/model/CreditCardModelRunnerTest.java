@@ -10,6 +10,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.UUID;
 
 import org.junit.Before;
@@ -152,6 +153,16 @@ public class CreditCardModelRunnerTest {
 	assertEquals(new BigDecimal(8), creditCard.availableLimit());
     }
 
+    @Test
+    public void cardRestoredFromStateKeepsLimitAssignments() {
+	cardModelRunner.requestToAssignLimit(BigDecimal.TEN);
+	creditCard.flushEvents();
+
+	CreditCard restoredCard = CreditCard.recreateFrom(creditCard.getUuid(), creditCard.getState(), 1,
+	    Collections.emptyList());
+	assertEquals(1, restoredCard.getState().getLimitAssignments());
+    }
+
     protected void assertRecordedStepNames(String... expectedStepNames) {
 	String[] actualStepNames = modelRunner.getRecordedStepNames();
 	assertArrayEquals(expectedStepNames, actualStepNames);
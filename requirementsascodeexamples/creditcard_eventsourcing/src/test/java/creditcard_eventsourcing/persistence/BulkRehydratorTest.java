@@ -0,0 +1,96 @@
+package creditcard_eventsourcing.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.ModelRunner;
+
+import creditcard_eventsourcing.model.CreditCard;
+import creditcard_eventsourcing.model.CreditCardModelRunner;
+import creditcard_eventsourcing.persistence.BulkRehydrator.Progress;
+
+public class BulkRehydratorTest {
+    private static final int CARDS = 1000;
+    private static final int BATCH_SIZE = 100;
+
+    private CreditCardRepository repository;
+    private ForkJoinPool pool;
+    private BulkRehydrator bulkRehydrator;
+    private List<Progress> reportedProgress;
+
+    @Before
+    public void setUp() throws Exception {
+	repository = new CreditCardRepository(new InMemoryEventStore(), 10, 1);
+	pool = new ForkJoinPool(4);
+	bulkRehydrator = new BulkRehydrator(repository, pool, BATCH_SIZE);
+	reportedProgress = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+	pool.shutdown();
+    }
+
+    @Test
+    public void rehydratesAllCards() {
+	for (int i = 0; i < CARDS; i++) {
+	    saveCardWithWithdrawals(i % 20);
+	}
+
+	Map<UUID, CreditCard> creditCards = bulkRehydrator.rehydrateAll(reportedProgress::add);
+
+	assertEquals(CARDS, creditCards.size());
+	for (CreditCard creditCard : creditCards.values()) {
+	    int withdrawals = creditCard.getVersion() - 1;
+	    assertEquals(new BigDecimal(100 - withdrawals), creditCard.availableLimit());
+	}
+    }
+
+    @Test
+    public void projectsCards() {
+	UUID uuid = saveCardWithWithdrawals(3);
+
+	Map<UUID, BigDecimal> availableLimits = bulkRehydrator.rehydrateAll(CreditCard::availableLimit,
+	    reportedProgress::add);
+
+	assertEquals(Collections.singletonMap(uuid, new BigDecimal(97)), availableLimits);
+    }
+
+    @Test
+    public void reportsProgressAfterEachBatch() {
+	for (int i = 0; i < CARDS; i++) {
+	    saveCardWithWithdrawals(1);
+	}
+
+	bulkRehydrator.rehydrateAll(reportedProgress::add);
+
+	assertTrue(reportedProgress.size() >= CARDS / BATCH_SIZE);
+	long maximumRehydrated = reportedProgress.stream().mapToLong(Progress::getRehydrated).max().getAsLong();
+	assertEquals(CARDS, maximumRehydrated);
+	for (Progress progress : reportedProgress) {
+	    assertEquals(CARDS, progress.getTotal());
+	}
+    }
+
+    private UUID saveCardWithWithdrawals(int withdrawals) {
+	CreditCard creditCard = new CreditCard(UUID.randomUUID());
+	CreditCardModelRunner cardModelRunner = new CreditCardModelRunner(creditCard, new ModelRunner());
+	cardModelRunner.requestToAssignLimit(new BigDecimal(100));
+	for (int i = 0; i < withdrawals; i++) {
+	    cardModelRunner.requestWithdrawal(BigDecimal.ONE);
+	}
+	repository.save(creditCard);
+	return creditCard.getUuid();
+    }
+}
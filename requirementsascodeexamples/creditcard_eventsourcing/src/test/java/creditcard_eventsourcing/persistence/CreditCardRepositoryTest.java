@@ -0,0 +1,201 @@
+package creditcard_eventsourcing.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.requirementsascode.ModelRunner;
+
+import creditcard_eventsourcing.model.CreditCard;
+import creditcard_eventsourcing.model.CreditCardModelRunner;
+import creditcard_eventsourcing.model.DomainEvent;
+
+public class CreditCardRepositoryTest {
+    private static final int SNAPSHOT_INTERVAL = 10;
+    private static final int CACHE_SIZE = 1;
+
+    private CreditCardRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+	repository = new CreditCardRepository(new InMemoryEventStore(), SNAPSHOT_INTERVAL, CACHE_SIZE);
+    }
+
+    @Test
+    public void loadsCopyOfSavedCardFromCache() {
+	CreditCard creditCard = cardWithWithdrawals(3);
+	repository.save(creditCard);
+
+	CreditCard loadedCard = repository.load(creditCard.getUuid());
+	assertNotSame(creditCard, loadedCard);
+	assertEquals(new BigDecimal(97), loadedCard.availableLimit());
+	assertEquals(4, loadedCard.getVersion());
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void rejectsSavingStaleCard() {
+	CreditCard creditCard = cardWithWithdrawals(3);
+	repository.save(creditCard);
+
+	CreditCard loadedCard1 = repository.load(creditCard.getUuid());
+	CreditCard loadedCard2 = repository.load(creditCard.getUuid());
+	new CreditCardModelRunner(loadedCard1, new ModelRunner()).requestToCloseCycle();
+	new CreditCardModelRunner(loadedCard2, new ModelRunner()).requestToCloseCycle();
+	repository.save(loadedCard1);
+	repository.save(loadedCard2);
+    }
+
+    @Test
+    public void savesCardsFromSeveralThreads() throws Exception {
+	CreditCard creditCard = cardWithWithdrawals(0);
+	repository.save(creditCard);
+	UUID uuid = creditCard.getUuid();
+
+	ExecutorService executor = Executors.newFixedThreadPool(4);
+	List<Future<Integer>> results = new ArrayList<>();
+	for (int i = 0; i < 4; i++) {
+	    results.add(executor.submit(() -> closeCyclesUntilSaved(uuid, 25)));
+	}
+	executor.shutdown();
+	for (Future<Integer> result : results) {
+	    result.get();
+	}
+
+	assertEquals(101, repository.load(uuid).getVersion());
+    }
+
+    @Test
+    public void loadsEvictedCardFromEvents() {
+	CreditCard creditCard = cardWithWithdrawals(3);
+	repository.save(creditCard);
+	repository.save(cardWithWithdrawals(1));
+
+	CreditCard loadedCard = repository.load(creditCard.getUuid());
+	assertNotSame(creditCard, loadedCard);
+	assertEquals(new BigDecimal(97), loadedCard.availableLimit());
+	assertEquals(4, loadedCard.getVersion());
+    }
+
+    @Test
+    public void loadsEvictedCardFromSnapshotAndRemainingEvents() {
+	CreditCard creditCard = new CreditCard(UUID.randomUUID());
+	CreditCardModelRunner cardModelRunner = assignLimitAndWithdraw(creditCard, 14);
+	repository.save(creditCard);
+	withdraw(cardModelRunner, 2);
+	repository.save(creditCard);
+	repository.save(cardWithWithdrawals(1));
+
+	CreditCard loadedCard = repository.load(creditCard.getUuid());
+	assertNotSame(creditCard, loadedCard);
+	assertEquals(new BigDecimal(84), loadedCard.availableLimit());
+	assertEquals(17, loadedCard.getVersion());
+    }
+
+    @Test
+    public void loadedCardKeepsWorking() {
+	CreditCard creditCard = cardWithWithdrawals(14);
+	repository.save(creditCard);
+	repository.save(cardWithWithdrawals(1));
+
+	CreditCard loadedCard = repository.load(creditCard.getUuid());
+	new CreditCardModelRunner(loadedCard, new ModelRunner()).requestToCloseCycle();
+	repository.save(loadedCard);
+	repository.save(cardWithWithdrawals(1));
+
+	CreditCard reloadedCard = repository.load(creditCard.getUuid());
+	assertEquals(new BigDecimal(86), reloadedCard.availableLimit());
+	assertEquals(16, reloadedCard.getVersion());
+    }
+
+    @Test
+    public void slowLoadDoesntReplaceNewerCachedSnapshot() {
+	SlowEventStore eventStore = new SlowEventStore();
+	repository = new CreditCardRepository(eventStore, SNAPSHOT_INTERVAL, CACHE_SIZE);
+	CreditCard creditCard = cardWithWithdrawals(3);
+	repository.save(creditCard);
+	repository.save(cardWithWithdrawals(1));
+
+	eventStore.whileLoading = () -> closeCyclesUntilSaved(creditCard.getUuid(), 1);
+	repository.load(creditCard.getUuid());
+	eventStore.loadedEventCount = 0;
+
+	assertEquals(5, repository.load(creditCard.getUuid()).getVersion());
+	assertEquals(0, eventStore.loadedEventCount);
+    }
+
+    @Test
+    public void snapshotIsDueWhenIntervalIsPassed() {
+	SnapshotStore<Object> snapshotStore = new SnapshotStore<>(SNAPSHOT_INTERVAL);
+	assertFalse(snapshotStore.isSnapshotDue(0, 9));
+	assertTrue(snapshotStore.isSnapshotDue(9, 10));
+	assertTrue(snapshotStore.isSnapshotDue(5, 25));
+	assertFalse(snapshotStore.isSnapshotDue(10, 19));
+    }
+
+    private int closeCyclesUntilSaved(UUID uuid, int cycles) {
+	int conflicts = 0;
+	for (int i = 0; i < cycles;) {
+	    CreditCard loadedCard = repository.load(uuid);
+	    new CreditCardModelRunner(loadedCard, new ModelRunner()).requestToCloseCycle();
+	    try {
+		repository.save(loadedCard);
+		i++;
+	    } catch (ConcurrentModificationException e) {
+		conflicts++;
+	    }
+	}
+	return conflicts;
+    }
+
+    private CreditCard cardWithWithdrawals(int withdrawals) {
+	CreditCard creditCard = new CreditCard(UUID.randomUUID());
+	assignLimitAndWithdraw(creditCard, withdrawals);
+	return creditCard;
+    }
+
+    private CreditCardModelRunner assignLimitAndWithdraw(CreditCard creditCard, int withdrawals) {
+	CreditCardModelRunner cardModelRunner = new CreditCardModelRunner(creditCard, new ModelRunner());
+	cardModelRunner.requestToAssignLimit(new BigDecimal(100));
+	withdraw(cardModelRunner, withdrawals);
+	return cardModelRunner;
+    }
+
+    private void withdraw(CreditCardModelRunner cardModelRunner, int withdrawals) {
+	for (int i = 0; i < withdrawals; i++) {
+	    cardModelRunner.requestWithdrawal(BigDecimal.ONE);
+	}
+    }
+
+    /**
+     * Runs a task after loading events once, as if another thread saved the card
+     * while it is loaded.
+     */
+    private static class SlowEventStore extends InMemoryEventStore {
+	private Runnable whileLoading;
+	private int loadedEventCount;
+
+	@Override
+	public List<DomainEvent> load(UUID aggregateId, int fromVersion) {
+	    List<DomainEvent> events = super.load(aggregateId, fromVersion);
+	    loadedEventCount += events.size();
+	    Runnable task = whileLoading;
+	    whileLoading = null;
+	    if (task != null) {
+		task.run();
+	    }
+	    return events;
+	}
+    }
+}
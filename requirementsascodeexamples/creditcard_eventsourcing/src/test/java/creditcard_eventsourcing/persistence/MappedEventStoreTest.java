@@ -0,0 +1,261 @@
+package creditcard_eventsourcing.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import creditcard_eventsourcing.model.CardRepaid;
+import creditcard_eventsourcing.model.CardWithdrawn;
+import creditcard_eventsourcing.model.CycleClosed;
+import creditcard_eventsourcing.model.DomainEvent;
+import creditcard_eventsourcing.model.LimitAssigned;
+
+public class MappedEventStoreTest {
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private MappedEventStore eventStore;
+
+    @Before
+    public void setUp() throws Exception {
+	directory = temporaryFolder.newFolder().toPath();
+	eventStore = openEventStore();
+    }
+
+    @Test
+    public void loadsAppendedEventsOfAllTypes() {
+	UUID uuid = UUID.randomUUID();
+	eventStore.append(uuid, eventStore.getVersion(uuid), events(uuid));
+
+	assertEventsEqual(events(uuid), eventStore.load(uuid, 0));
+	assertEquals(4, eventStore.getVersion(uuid));
+    }
+
+    @Test
+    public void loadsEventsFromVersion() {
+	UUID uuid = UUID.randomUUID();
+	eventStore.append(uuid, eventStore.getVersion(uuid), events(uuid));
+
+	List<DomainEvent> events = eventStore.load(uuid, 2);
+	assertEventsEqual(events(uuid).subList(2, 4), events);
+    }
+
+    @Test
+    public void loadsNoEventsOfUnknownAggregate() {
+	assertTrue(eventStore.load(UUID.randomUUID(), 0).isEmpty());
+	assertEquals(0, eventStore.getVersion(UUID.randomUUID()));
+    }
+
+    @Test
+    public void keepsEventsOfAggregatesApart() {
+	UUID uuid1 = UUID.randomUUID();
+	UUID uuid2 = UUID.randomUUID();
+	eventStore.append(uuid1, eventStore.getVersion(uuid1), events(uuid1).subList(0, 1));
+	eventStore.append(uuid2, eventStore.getVersion(uuid2), events(uuid2));
+	eventStore.append(uuid1, eventStore.getVersion(uuid1), events(uuid1).subList(1, 2));
+
+	assertEventsEqual(events(uuid1).subList(0, 2), eventStore.load(uuid1, 0));
+	assertEventsEqual(events(uuid2), eventStore.load(uuid2, 0));
+	assertEquals(2, eventStore.getAggregateIds().size());
+    }
+
+    @Test
+    public void appendsNoEventsOfBatchIfAnEventCantBeEncoded() {
+	UUID uuid = UUID.randomUUID();
+	List<DomainEvent> appendedEvents = new ArrayList<>(events(uuid));
+	appendedEvents.add(() -> "UnregisteredEvent");
+	try {
+	    eventStore.append(uuid, eventStore.getVersion(uuid), appendedEvents);
+	    fail();
+	} catch (IllegalArgumentException e) {
+	}
+
+	assertEquals(0, eventStore.getVersion(uuid));
+	assertTrue(eventStore.getAggregateIds().isEmpty());
+	eventStore.append(uuid, 0, events(uuid));
+	assertEventsEqual(events(uuid), eventStore.load(uuid, 0));
+    }
+
+    @Test
+    public void rollsOverToNewSegmentsWhenFull() throws IOException {
+	UUID uuid = UUID.randomUUID();
+	List<DomainEvent> appendedEvents = new ArrayList<>();
+	for (int i = 0; i < 100; i++) {
+	    appendedEvents.addAll(events(uuid));
+	}
+	eventStore.append(uuid, eventStore.getVersion(uuid), appendedEvents);
+
+	assertTrue(segmentFileCount() > 1);
+	assertEventsEqual(appendedEvents, eventStore.load(uuid, 0));
+    }
+
+    @Test
+    public void indexesManyAggregates() {
+	List<UUID> uuids = new ArrayList<>();
+	for (int i = 0; i < 5000; i++) {
+	    UUID uuid = UUID.randomUUID();
+	    uuids.add(uuid);
+	    eventStore.append(uuid, eventStore.getVersion(uuid), events(uuid).subList(0, 1));
+	}
+
+	for (UUID uuid : uuids) {
+	    assertEventsEqual(events(uuid).subList(0, 1), eventStore.load(uuid, 0));
+	}
+	assertEquals(5000, eventStore.getAggregateIds().size());
+    }
+
+    @Test
+    public void reopenedStoreContainsCommittedEvents() throws IOException {
+	UUID uuid = UUID.randomUUID();
+	List<DomainEvent> appendedEvents = new ArrayList<>();
+	for (int i = 0; i < 20; i++) {
+	    appendedEvents.addAll(events(uuid));
+	}
+	eventStore.append(uuid, eventStore.getVersion(uuid), appendedEvents);
+	eventStore.close();
+
+	eventStore = openEventStore();
+	assertEventsEqual(appendedEvents, eventStore.load(uuid, 0));
+
+	eventStore.append(uuid, eventStore.getVersion(uuid), events(uuid));
+	assertEquals(84, eventStore.getVersion(uuid));
+    }
+
+    @Test
+    public void dropsTornRecordWhenReopened() throws IOException {
+	UUID uuid = UUID.randomUUID();
+	eventStore.append(uuid, 0, events(uuid));
+	eventStore.close();
+	int endOfValidRecords = endOfRecords();
+	eventStore = openEventStore();
+	eventStore.append(uuid, 4, events(uuid).subList(0, 1));
+	eventStore.close();
+	int tornRecordSize = endOfRecords() - endOfValidRecords;
+	overwrite(endOfValidRecords + tornRecordSize / 2, new byte[tornRecordSize - tornRecordSize / 2]);
+
+	eventStore = openEventStore();
+	assertEquals(4, eventStore.getVersion(uuid));
+	assertEventsEqual(events(uuid), eventStore.load(uuid, 0));
+
+	eventStore.append(uuid, 4, events(uuid).subList(1, 2));
+	eventStore.close();
+	eventStore = openEventStore();
+	assertEquals(5, eventStore.getVersion(uuid));
+	assertEventsEqual(events(uuid).subList(1, 2), eventStore.load(uuid, 4));
+    }
+
+    @Test
+    public void dropsRecordWithInvalidSizeWhenReopened() throws IOException {
+	UUID uuid = UUID.randomUUID();
+	eventStore.append(uuid, 0, events(uuid));
+	eventStore.close();
+	overwrite(endOfRecords(), ByteBuffer.allocate(Integer.BYTES).putInt(Integer.MAX_VALUE).array());
+
+	eventStore = openEventStore();
+	assertEquals(4, eventStore.getVersion(uuid));
+	assertEventsEqual(events(uuid), eventStore.load(uuid, 0));
+    }
+
+    @Test
+    public void repositoryWorksWithMappedEventStore() {
+	CreditCardRepository repository = new CreditCardRepository(eventStore, 10, 1);
+	UUID uuid = UUID.randomUUID();
+	eventStore.append(uuid, eventStore.getVersion(uuid), events(uuid));
+
+	assertEquals(new BigDecimal("10.00"), repository.load(uuid).availableLimit());
+    }
+
+    private MappedEventStore openEventStore() throws IOException {
+	return new MappedEventStore(directory, DomainEventCodec.forCreditCardEvents(), SEGMENT_SIZE, 10);
+    }
+
+    private Path firstSegmentFile() throws IOException {
+	try (Stream<Path> files = Files.list(directory)) {
+	    return files.sorted().findFirst().get();
+	}
+    }
+
+    /**
+     * Returns the offset after the last record of the first segment, by walking
+     * the records' sizes.
+     */
+    private int endOfRecords() throws IOException {
+	ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(firstSegmentFile()));
+	int offset = 0;
+	int eventSize;
+	while ((eventSize = segment.getInt(offset)) != 0) {
+	    offset += MappedEventStore.RECORD_HEADER_SIZE + eventSize;
+	}
+	return offset;
+    }
+
+    private void overwrite(int offset, byte[] bytes) throws IOException {
+	try (FileChannel channel = FileChannel.open(firstSegmentFile(), StandardOpenOption.WRITE)) {
+	    channel.write(ByteBuffer.wrap(bytes), offset);
+	}
+    }
+
+    private long segmentFileCount() throws IOException {
+	try (Stream<Path> files = Files.list(directory)) {
+	    return files.count();
+	}
+    }
+
+    private List<DomainEvent> events(UUID uuid) {
+	Instant timestamp = Instant.ofEpochSecond(1_500_000_000L, 42);
+	return Arrays.asList(
+	    new LimitAssigned(uuid, new BigDecimal("10.00"), timestamp),
+	    new CardWithdrawn(uuid, new BigDecimal("2.50"), timestamp),
+	    new CardRepaid(uuid, new BigDecimal("2.50"), timestamp),
+	    new CycleClosed(uuid, timestamp));
+    }
+
+    private void assertEventsEqual(List<DomainEvent> expectedEvents, List<DomainEvent> actualEvents) {
+	assertEquals(expectedEvents.size(), actualEvents.size());
+	for (int i = 0; i < expectedEvents.size(); i++) {
+	    assertEquals(describe(expectedEvents.get(i)), describe(actualEvents.get(i)));
+	}
+    }
+
+    private String describe(DomainEvent event) {
+	if (event instanceof LimitAssigned) {
+	    LimitAssigned limitAssigned = (LimitAssigned) event;
+	    return describe(event, limitAssigned.getCardNo(), limitAssigned.getAmount(), limitAssigned.getTimestamp());
+	} else if (event instanceof CardWithdrawn) {
+	    CardWithdrawn cardWithdrawn = (CardWithdrawn) event;
+	    return describe(event, cardWithdrawn.getCardNo(), cardWithdrawn.getAmount(), cardWithdrawn.getTimestamp());
+	} else if (event instanceof CardRepaid) {
+	    CardRepaid cardRepaid = (CardRepaid) event;
+	    return describe(event, cardRepaid.getCardNo(), cardRepaid.getAmount(), cardRepaid.getTimestamp());
+	} else {
+	    CycleClosed cycleClosed = (CycleClosed) event;
+	    return describe(event, cycleClosed.getCardNo(), null, cycleClosed.getTimestamp());
+	}
+    }
+
+    private String describe(DomainEvent event, UUID cardNo, BigDecimal amount, Instant timestamp) {
+	return event.getType() + " " + cardNo + " " + amount + " " + timestamp;
+    }
+}
@@ -4,6 +4,7 @@ import static org.requirementsascode.extract.freemarker.methodmodel.util.Steps.g
 import static org.requirementsascode.extract.freemarker.methodmodel.util.Words.getLowerCaseWordsOfClassName;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.commons.lang3.StringUtils;
 import org.requirementsascode.Flow;
@@ -73,8 +74,9 @@ public class FlowCondition implements TemplateMethodModelEx {
     }
 
     private String getCondition(Flow flow) {
-	String conditionWords = flow.getCondition()
-		.map(condition -> (WHEN + getLowerCaseWordsOfClassName(condition.getClass()))).orElse("");
+	Optional<?> condition = flow.getCondition().isPresent() ? flow.getCondition() : flow.getContextCondition();
+	String conditionWords = condition
+		.map(flowCondition -> (WHEN + getLowerCaseWordsOfClassName(flowCondition.getClass()))).orElse("");
 	return conditionWords;
     }
 }
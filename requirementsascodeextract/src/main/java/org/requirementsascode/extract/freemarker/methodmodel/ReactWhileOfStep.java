@@ -4,7 +4,6 @@ import static org.requirementsascode.extract.freemarker.methodmodel.util.Words.g
 
 import java.util.List;
 
-import org.requirementsascode.Condition;
 import org.requirementsascode.FlowStep;
 import org.requirementsascode.Step;
 
@@ -28,7 +27,9 @@ public class ReactWhileOfStep implements TemplateMethodModelEx {
 
 	String reactWhile = "";
 	if (step instanceof FlowStep) {
-	    Condition reactWhileCondition = ((FlowStep) step).getReactWhile();
+	    FlowStep flowStep = (FlowStep) step;
+	    Object reactWhileCondition = flowStep.getReactWhile() != null ? flowStep.getReactWhile()
+		    : flowStep.getContextReactWhile();
 	    if (reactWhileCondition != null) {
 		reactWhile = REACT_WHILE_PREFIX + getLowerCaseWordsOfClassName(reactWhileCondition.getClass())
 			+ REACT_WHILE_POSTFIX;
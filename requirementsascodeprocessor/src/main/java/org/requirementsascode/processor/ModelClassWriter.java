@@ -0,0 +1,110 @@
+package org.requirementsascode.processor;
+
+import java.util.List;
+
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * Writes the source code of the model class generated for a class annotated
+ * with {@link org.requirementsascode.annotation.UseCase}. Only builder code is
+ * generated: the model class contains a <code>model(..)</code> method that
+ * builds the model with the model builder, with method references to the
+ * handler methods. Each step is wrapped in its own flow with the step's name.
+ * The runner dispatches messages to the steps of the built model as it does
+ * for any other model.
+ *
+ * @author b_muth
+ *
+ */
+class ModelClassWriter {
+	static final String USE_CASE_CONSTANT = "USE_CASE";
+
+	private final Types types;
+	private final String packageName;
+	private final String handlerClassName;
+	private final String modelClassName;
+	private final String useCaseName;
+	private final List<StepDefinition> steps;
+	private final StringBuilder source;
+
+	ModelClassWriter(Types types, String packageName, String handlerClassName, String modelClassName,
+			String useCaseName, List<StepDefinition> steps) {
+		this.types = types;
+		this.packageName = packageName;
+		this.handlerClassName = handlerClassName;
+		this.modelClassName = modelClassName;
+		this.useCaseName = useCaseName;
+		this.steps = steps;
+		this.source = new StringBuilder();
+	}
+
+	String write() {
+		if (!packageName.isEmpty()) {
+			line(0, "package " + packageName + ";");
+			line(0, "");
+		}
+		line(0, "/**");
+		line(0, " * Builds the model of the use case defined by the annotations of {@link " + handlerClassName + "}.");
+		line(0, " * Generated by " + UseCaseProcessor.class.getName() + ", don't edit.");
+		line(0, " */");
+		line(0, "public final class " + modelClassName + " {");
+		line(1, "public static final String " + USE_CASE_CONSTANT + " = " + literal(useCaseName) + ";");
+		line(0, "");
+		line(1, "private " + modelClassName + "() {");
+		line(1, "}");
+		line(0, "");
+		writeModelMethod();
+		line(0, "}");
+		return source.toString();
+	}
+
+	private void writeModelMethod() {
+		line(1, "public static org.requirementsascode.Model model(" + handlerClassName + " handlers) {");
+		line(2, "java.util.Objects.requireNonNull(handlers);");
+		line(2, "return org.requirementsascode.Model.builder()");
+		line(3, ".useCase(" + USE_CASE_CONSTANT + ")");
+		for (StepDefinition step : steps) {
+			String stepName = literal(step.getName());
+			StringBuilder stepSource = new StringBuilder(".flow(" + stepName + ")");
+			stepSource.append(step.hasAfter() ? ".after(" + literal(step.getAfter()) + ")" : ".anytime()");
+			if (step.hasCondition()) {
+				stepSource.append(".condition(handlers::" + step.getCondition() + ")");
+			}
+			stepSource.append(".step(" + stepName + ")");
+			stepSource.append(".on(" + className(step.getMessageType()) + ".class)");
+			String systemMethod = step.publishesEvent() ? "systemPublish" : "system";
+			stepSource.append("." + systemMethod + "(handlers::" + step.getMethodName() + ")");
+			line(4, stepSource.toString());
+		}
+		line(2, ".build();");
+		line(1, "}");
+	}
+
+	private String className(TypeMirror type) {
+		return types.erasure(type).toString();
+	}
+
+	private void line(int indentation, String text) {
+		for (int i = 0; i < indentation; i++) {
+			source.append('\t');
+		}
+		source.append(text).append('\n');
+	}
+
+	private static String literal(String value) {
+		StringBuilder literal = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				literal.append('\\').append(c);
+			} else if (c < ' ') {
+				literal.append(String.format("\\%03o", (int) c));
+			} else if (c > '~') {
+				literal.append(String.format("\\u%04x", (int) c));
+			} else {
+				literal.append(c);
+			}
+		}
+		return literal.append('"').toString();
+	}
+}
@@ -0,0 +1,73 @@
+package org.requirementsascode.processor;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A step, as defined by a method annotated with
+ * {@link org.requirementsascode.annotation.Step}.
+ *
+ * @author b_muth
+ *
+ */
+class StepDefinition {
+	private final ExecutableElement method;
+	private final String name;
+	private final TypeMirror messageType;
+	private final String after;
+	private final String condition;
+
+	StepDefinition(ExecutableElement method, String name, TypeMirror messageType, String after, String condition) {
+		this.method = method;
+		this.name = name;
+		this.messageType = messageType;
+		this.after = after;
+		this.condition = condition;
+	}
+
+	ExecutableElement getMethod() {
+		return method;
+	}
+
+	String getMethodName() {
+		return method.getSimpleName().toString();
+	}
+
+	String getName() {
+		return name;
+	}
+
+	TypeMirror getMessageType() {
+		return messageType;
+	}
+
+	String getAfter() {
+		return after;
+	}
+
+	boolean hasAfter() {
+		return !after.isEmpty();
+	}
+
+	String getCondition() {
+		return condition;
+	}
+
+	boolean hasCondition() {
+		return !condition.isEmpty();
+	}
+
+	boolean hasParameter() {
+		return !method.getParameters().isEmpty();
+	}
+
+	boolean publishesEvent() {
+		return !method.getReturnType().getKind().equals(TypeKind.VOID);
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
@@ -0,0 +1,274 @@
+package org.requirementsascode.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates a model class for each class annotated with
+ * {@link org.requirementsascode.annotation.UseCase}. See
+ * {@link ModelClassWriter} for the content of the generated class.
+ *
+ * <p>
+ * All checks that the model builder would do at runtime, and that can be done
+ * at compile time, are reported as compile errors: missing or cyclic
+ * <code>after</code> steps, duplicate step names, handler methods that can't
+ * receive the message class, and missing condition methods.
+ *
+ * @author b_muth
+ *
+ */
+@SupportedAnnotationTypes({ UseCaseProcessor.USE_CASE_ANNOTATION, UseCaseProcessor.STEP_ANNOTATION })
+public class UseCaseProcessor extends AbstractProcessor {
+	static final String USE_CASE_ANNOTATION = "org.requirementsascode.annotation.UseCase";
+	static final String STEP_ANNOTATION = "org.requirementsascode.annotation.Step";
+	static final String MODEL_CLASS_SUFFIX = "Model";
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		Set<Element> useCaseClasses = new HashSet<>();
+		for (TypeElement annotation : annotations) {
+			if (annotation.getQualifiedName().contentEquals(USE_CASE_ANNOTATION)) {
+				useCaseClasses.addAll(roundEnv.getElementsAnnotatedWith(annotation));
+			}
+		}
+		for (TypeElement annotation : annotations) {
+			if (annotation.getQualifiedName().contentEquals(STEP_ANNOTATION)) {
+				checkStepsAreInUseCaseClasses(roundEnv.getElementsAnnotatedWith(annotation), useCaseClasses);
+			}
+		}
+		for (Element useCaseClass : useCaseClasses) {
+			processUseCaseClass(useCaseClass);
+		}
+		return true;
+	}
+
+	private void checkStepsAreInUseCaseClasses(Set<? extends Element> stepMethods, Set<Element> useCaseClasses) {
+		for (Element stepMethod : stepMethods) {
+			if (!useCaseClasses.contains(stepMethod.getEnclosingElement())) {
+				error(stepMethod, "@Step method must be in a class annotated with @UseCase");
+			}
+		}
+	}
+
+	private void processUseCaseClass(Element element) {
+		if (!element.getKind().equals(ElementKind.CLASS)
+				|| !element.getEnclosingElement().getKind().equals(ElementKind.PACKAGE)) {
+			error(element, "@UseCase must annotate a top level class");
+			return;
+		}
+		if (element.getModifiers().contains(Modifier.PRIVATE)) {
+			error(element, "@UseCase class must not be private");
+			return;
+		}
+
+		TypeElement useCaseClass = (TypeElement) element;
+		String useCaseName = (String) getAnnotationValue(useCaseClass, USE_CASE_ANNOTATION, "value");
+		List<StepDefinition> stepDefinitions = new ArrayList<>();
+		boolean isValid = true;
+		for (ExecutableElement method : ElementFilter.methodsIn(useCaseClass.getEnclosedElements())) {
+			if (getAnnotationMirror(method, STEP_ANNOTATION) != null) {
+				StepDefinition stepDefinition = createStepDefinition(useCaseClass, method);
+				if (stepDefinition == null) {
+					isValid = false;
+				} else {
+					stepDefinitions.add(stepDefinition);
+				}
+			}
+		}
+
+		List<StepDefinition> orderedSteps = isValid ? orderSteps(stepDefinitions) : null;
+		if (orderedSteps != null) {
+			writeModelClass(useCaseClass, useCaseName, orderedSteps);
+		}
+	}
+
+	private StepDefinition createStepDefinition(TypeElement useCaseClass, ExecutableElement method) {
+		String name = (String) getAnnotationValue(method, STEP_ANNOTATION, "name");
+		if (name.isEmpty()) {
+			name = method.getSimpleName().toString();
+		}
+		TypeMirror messageType = (TypeMirror) getAnnotationValue(method, STEP_ANNOTATION, "on");
+		String after = (String) getAnnotationValue(method, STEP_ANNOTATION, "after");
+		String condition = (String) getAnnotationValue(method, STEP_ANNOTATION, "condition");
+		StepDefinition stepDefinition = new StepDefinition(method, name, messageType, after, condition);
+
+		boolean isValid = checkIsAccessibleInstanceMethod(method, "@Step method")
+				&& checkHandlerCanReceive(stepDefinition)
+				&& (!stepDefinition.hasCondition() || checkConditionMethodExists(useCaseClass, stepDefinition));
+		return isValid ? stepDefinition : null;
+	}
+
+	private boolean checkIsAccessibleInstanceMethod(ExecutableElement method, String description) {
+		Set<Modifier> modifiers = method.getModifiers();
+		if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)) {
+			error(method, description + " must not be private or static");
+			return false;
+		}
+		return true;
+	}
+
+	private boolean checkHandlerCanReceive(StepDefinition stepDefinition) {
+		ExecutableElement method = stepDefinition.getMethod();
+		TypeMirror messageType = stepDefinition.getMessageType();
+		if (!messageType.getKind().equals(TypeKind.DECLARED)) {
+			error(method, "@Step message class must be a class or interface: " + messageType);
+			return false;
+		}
+		if (method.getParameters().size() > 1) {
+			error(method, "@Step method must have no parameter, or a single parameter for the message");
+			return false;
+		}
+		if (!stepDefinition.hasParameter() && stepDefinition.publishesEvent()) {
+			error(method, "@Step method that publishes an event must have a parameter for the message");
+			return false;
+		}
+
+		Types types = processingEnv.getTypeUtils();
+		if (stepDefinition.hasParameter()) {
+			TypeMirror parameterType = types.erasure(method.getParameters().get(0).asType());
+			if (!types.isAssignable(types.erasure(messageType), parameterType)) {
+				error(method, "@Step method can't receive messages of class " + messageType);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean checkConditionMethodExists(TypeElement useCaseClass, StepDefinition stepDefinition) {
+		List<ExecutableElement> methods = ElementFilter
+				.methodsIn(processingEnv.getElementUtils().getAllMembers(useCaseClass));
+		for (ExecutableElement method : methods) {
+			if (method.getSimpleName().contentEquals(stepDefinition.getCondition()) && method.getParameters().isEmpty()
+					&& method.getReturnType().getKind().equals(TypeKind.BOOLEAN)) {
+				return checkIsAccessibleInstanceMethod(method, "Condition method");
+			}
+		}
+		error(stepDefinition.getMethod(),
+				"No method " + stepDefinition.getCondition() + "() that returns a boolean found for the condition");
+		return false;
+	}
+
+	/**
+	 * Orders the steps so that each step comes after the step it references in
+	 * <code>after</code>, because the model builder looks that step up when the
+	 * position is built. Otherwise, the order of declaration is kept.
+	 */
+	private List<StepDefinition> orderSteps(List<StepDefinition> stepDefinitions) {
+		Map<String, StepDefinition> nameToStep = new LinkedHashMap<>();
+		for (StepDefinition stepDefinition : stepDefinitions) {
+			if (nameToStep.put(stepDefinition.getName(), stepDefinition) != null) {
+				error(stepDefinition.getMethod(), "Duplicate step name: " + stepDefinition.getName());
+				return null;
+			}
+		}
+
+		List<StepDefinition> orderedSteps = new ArrayList<>();
+		Set<StepDefinition> visitedSteps = new HashSet<>();
+		for (StepDefinition stepDefinition : stepDefinitions) {
+			if (!addAfterReferencedSteps(stepDefinition, nameToStep, orderedSteps, visitedSteps)) {
+				return null;
+			}
+		}
+		return orderedSteps;
+	}
+
+	private boolean addAfterReferencedSteps(StepDefinition stepDefinition, Map<String, StepDefinition> nameToStep,
+			List<StepDefinition> orderedSteps, Set<StepDefinition> visitedSteps) {
+		if (orderedSteps.contains(stepDefinition)) {
+			return true;
+		}
+		if (!visitedSteps.add(stepDefinition)) {
+			error(stepDefinition.getMethod(), "Cyclic after reference: " + stepDefinition.getName());
+			return false;
+		}
+		if (stepDefinition.hasAfter()) {
+			StepDefinition afterStep = nameToStep.get(stepDefinition.getAfter());
+			if (afterStep == null) {
+				error(stepDefinition.getMethod(), "No step found for after: " + stepDefinition.getAfter());
+				return false;
+			}
+			if (!addAfterReferencedSteps(afterStep, nameToStep, orderedSteps, visitedSteps)) {
+				return false;
+			}
+		}
+		orderedSteps.add(stepDefinition);
+		return true;
+	}
+
+	private void writeModelClass(TypeElement useCaseClass, String useCaseName, List<StepDefinition> orderedSteps) {
+		PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(useCaseClass);
+		String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+		String handlerClassName = useCaseClass.getSimpleName().toString();
+		String modelClassName = handlerClassName + MODEL_CLASS_SUFFIX;
+		String qualifiedModelClassName = packageName.isEmpty() ? modelClassName : packageName + "." + modelClassName;
+
+		ModelClassWriter modelClassWriter = new ModelClassWriter(processingEnv.getTypeUtils(), packageName,
+				handlerClassName, modelClassName, useCaseName, orderedSteps);
+		try {
+			JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(qualifiedModelClassName, useCaseClass);
+			try (Writer writer = sourceFile.openWriter()) {
+				writer.write(modelClassWriter.write());
+			}
+		} catch (IOException e) {
+			error(useCaseClass, "Could not write " + qualifiedModelClassName + ": " + e.getMessage());
+		}
+	}
+
+	private AnnotationMirror getAnnotationMirror(Element element, String annotationName) {
+		for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+			TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+			if (annotationElement.getQualifiedName().contentEquals(annotationName)) {
+				return annotationMirror;
+			}
+		}
+		return null;
+	}
+
+	private Object getAnnotationValue(Element element, String annotationName, String valueName) {
+		AnnotationMirror annotationMirror = getAnnotationMirror(element, annotationName);
+		Map<? extends ExecutableElement, ? extends AnnotationValue> values = processingEnv.getElementUtils()
+				.getElementValuesWithDefaults(annotationMirror);
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+			if (entry.getKey().getSimpleName().contentEquals(valueName)) {
+				return entry.getValue().getValue();
+			}
+		}
+		return null;
+	}
+
+	private void error(Element element, String message) {
+		Messager messager = processingEnv.getMessager();
+		messager.printMessage(Kind.ERROR, message, element);
+	}
+}
@@ -0,0 +1,170 @@
+package org.requirementsascode.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.requirementsascode.Model;
+import org.requirementsascode.ModelRunner;
+import org.requirementsascode.Step;
+
+public class UseCaseProcessorTest {
+	private static final String HANDLERS = "package example;\n"
+		+ "import java.util.ArrayList;\n"
+		+ "import java.util.List;\n"
+		+ "import org.requirementsascode.annotation.Step;\n"
+		+ "import org.requirementsascode.annotation.UseCase;\n"
+		+ "@UseCase(\"Handle \\\"messages\\\"\")\n"
+		+ "public class Handlers {\n"
+		+ "  public final List<Object> handled = new ArrayList<>();\n"
+		+ "  public boolean handlesNumbers;\n"
+		+ "  @Step(on = Integer.class, after = \"receiveText\")\n"
+		+ "  void receiveInteger(Integer number) { handled.add(number); }\n"
+		+ "  @Step(name = \"receiveText\", on = String.class)\n"
+		+ "  Integer receive(CharSequence text) { handled.add(text); return text.length(); }\n"
+		+ "  @Step(on = Number.class, condition = \"handlesNumbers\")\n"
+		+ "  void receiveNumber(Number number) { handled.add(\"Number \" + number); }\n"
+		+ "  @Step(on = Boolean.class)\n"
+		+ "  void clear() { handled.clear(); }\n"
+		+ "  boolean handlesNumbers() { return handlesNumbers; }\n"
+		+ "}\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private DiagnosticCollector<JavaFileObject> diagnostics;
+
+	@Before
+	public void setup() {
+		diagnostics = new DiagnosticCollector<>();
+	}
+
+	@Test
+	public void generatesModelThatReactsToMessages() throws Exception {
+		Class<?> handlersClass = compile(HANDLERS).loadClass("example.Handlers");
+		Object handlers = handlersClass.getDeclaredConstructor().newInstance();
+		Model model = buildModel(handlers);
+
+		ModelRunner modelRunner = new ModelRunner().run(model);
+		modelRunner.reactTo("Text", 42L);
+
+		assertEquals(Arrays.asList("Text", 4), getHandledMessages(handlers));
+		assertEquals("Handle \"messages\"", model.getUseCases().iterator().next().getName());
+	}
+
+	@Test
+	public void generatesConditionAndSystemReactionWithoutParameter() throws Exception {
+		Class<?> handlersClass = compile(HANDLERS).loadClass("example.Handlers");
+		Object handlers = handlersClass.getDeclaredConstructor().newInstance();
+		handlersClass.getField("handlesNumbers").set(handlers, true);
+		Model model = buildModel(handlers);
+
+		ModelRunner modelRunner = new ModelRunner().run(model);
+		modelRunner.reactTo(42L);
+		assertEquals(Arrays.asList("Number 42"), getHandledMessages(handlers));
+
+		modelRunner.reactTo(Boolean.TRUE);
+		assertTrue(getHandledMessages(handlers).isEmpty());
+	}
+
+	@Test
+	public void generatesStepsAfterTheStepsTheyReference() throws Exception {
+		ClassLoader classLoader = compile(HANDLERS);
+		Model model = buildModel(classLoader.loadClass("example.Handlers").getDeclaredConstructor().newInstance());
+
+		List<String> stepNames = model.getSteps().stream().map(Step::getName).collect(Collectors.toList());
+		assertEquals(Arrays.asList("receiveText", "receiveInteger", "receiveNumber", "clear"), stepNames);
+	}
+
+	@Test
+	public void reportsMissingAfterStep() throws Exception {
+		String source = HANDLERS.replace("after = \"receiveText\"", "after = \"receiveLetter\"");
+		assertCompilationFailsWith(source, "No step found for after: receiveLetter");
+	}
+
+	@Test
+	public void reportsCyclicAfterSteps() throws Exception {
+		String source = HANDLERS.replace("@Step(name = \"receiveText\", on = String.class)",
+			"@Step(name = \"receiveText\", on = String.class, after = \"receiveInteger\")");
+		assertCompilationFailsWith(source, "Cyclic after reference");
+	}
+
+	@Test
+	public void reportsHandlerThatCantReceiveMessages() throws Exception {
+		String source = HANDLERS.replace("void receiveInteger(Integer number)", "void receiveInteger(String number)");
+		assertCompilationFailsWith(source, "@Step method can't receive messages of class java.lang.Integer");
+	}
+
+	@Test
+	public void reportsMissingConditionMethod() throws Exception {
+		String source = HANDLERS.replace("boolean handlesNumbers()", "boolean isHandlingNumbers()");
+		assertCompilationFailsWith(source, "No method handlesNumbers() that returns a boolean found");
+	}
+
+	@Test
+	public void reportsDuplicateStepNames() throws Exception {
+		String source = HANDLERS.replace("@Step(on = Boolean.class)", "@Step(name = \"receiveText\", on = Boolean.class)");
+		assertCompilationFailsWith(source, "Duplicate step name: receiveText");
+	}
+
+	private Model buildModel(Object handlers) throws Exception {
+		Class<?> modelClass = handlers.getClass().getClassLoader().loadClass("example.HandlersModel");
+		return (Model) modelClass.getMethod("model", handlers.getClass()).invoke(null, handlers);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object> getHandledMessages(Object handlers) throws Exception {
+		return (List<Object>) handlers.getClass().getField("handled").get(handlers);
+	}
+
+	private void assertCompilationFailsWith(String source, String message) throws IOException {
+		assertFalse(runCompiler(source));
+		boolean hasMessage = diagnostics.getDiagnostics().stream()
+			.filter(diagnostic -> diagnostic.getKind().equals(Diagnostic.Kind.ERROR))
+			.anyMatch(diagnostic -> diagnostic.getMessage(null).contains(message));
+		assertTrue(diagnostics.getDiagnostics().toString(), hasMessage);
+	}
+
+	private ClassLoader compile(String source) throws IOException {
+		assertTrue(diagnostics.getDiagnostics().toString(), runCompiler(source));
+		URL[] urls = { temporaryFolder.getRoot().toURI().toURL() };
+		return new URLClassLoader(urls, getClass().getClassLoader());
+	}
+
+	private boolean runCompiler(String source) throws IOException {
+		File sourceFile = new File(temporaryFolder.newFolder("example"), "Handlers.java");
+		Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+			List<String> options = Arrays.asList("-d", temporaryFolder.getRoot().getPath(), "-classpath",
+				System.getProperty("java.class.path"));
+			Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjects(sourceFile);
+			CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, compilationUnits);
+			task.setProcessors(Arrays.asList(new UseCaseProcessor()));
+			return task.call();
+		}
+	}
+}